@@ -0,0 +1,186 @@
+package com.github.myibu.redis.client;
+
+import com.github.myibu.redis.client.RedisClient.RedisInputStream;
+import com.github.myibu.redis.client.RedisClient.RedisReply;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RedisInputStream解析预先录制的响应的性能
+ * @author myibu
+ * Create on 2026/10/18
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RedisDecodeBenchmark {
+    // 管道中的响应个数，大的响应按总大小限制
+    private static final int MAX_PIPELINED_REPLIES = 1000;
+    private static final int MAX_PIPELINED_BYTES = 8 * 1024 * 1024;
+
+    /**
+     * status: +OK，bulk1m: 1MB的Bulk Strings，array100k: 100000个元素的数组，nested: 嵌套数组
+     */
+    @Param({"status", "bulk1m", "array100k", "nested"})
+    private String payload;
+
+    private ReplayInputStream source;
+    private RedisInputStream in;
+    private ReplayInputStream pipelinedSource;
+    private RedisInputStream pipelinedIn;
+    private int pipelinedReplies;
+
+    @Setup
+    public void setup() {
+        byte[] reply = record(payload);
+        source = new ReplayInputStream(reply);
+        in = new RedisInputStream(source);
+        pipelinedReplies = Math.max(1, Math.min(MAX_PIPELINED_REPLIES, MAX_PIPELINED_BYTES / reply.length));
+        ByteArrayOutputStream pipelined = new ByteArrayOutputStream();
+        for (int i = 0; i < pipelinedReplies; i++) {
+            pipelined.write(reply, 0, reply.length);
+        }
+        pipelinedSource = new ReplayInputStream(pipelined.toByteArray());
+        pipelinedIn = new RedisInputStream(pipelinedSource);
+    }
+
+    /**
+     * 只识别响应的边界，不解析内容
+     */
+    @Benchmark
+    public RedisReply readReply() throws IOException {
+        source.rewind();
+        return in.readReply();
+    }
+
+    /**
+     * 识别响应并解析所有内容
+     */
+    @Benchmark
+    public void readReplyAndDecode(Blackhole bh) throws IOException {
+        source.rewind();
+        decode(in.readReply(), bh);
+    }
+
+    /**
+     * 一次读取管道中已经到达的所有响应
+     */
+    @Benchmark
+    public void readReplies(Blackhole bh) throws IOException {
+        pipelinedSource.rewind();
+        int n = 0;
+        while (n < pipelinedReplies) {
+            List<RedisReply> replies = pipelinedIn.readReplies();
+            n += replies.size();
+            bh.consume(replies);
+        }
+    }
+
+    private static void decode(RedisReply reply, Blackhole bh) {
+        Object data = reply.getData();
+        if (data instanceof List) {
+            for (Object element : (List<?>) data) {
+                decode((RedisReply) element, bh);
+            }
+        } else if (data instanceof Map) {
+            for (Object element : ((Map<?, ?>) data).values()) {
+                decode((RedisReply) element, bh);
+            }
+        } else {
+            bh.consume(data);
+        }
+    }
+
+    static byte[] record(String payload) {
+        StringBuilder sb = new StringBuilder();
+        switch (payload) {
+            case "status":
+                sb.append("+OK\r\n");
+                break;
+            case "bulk1m":
+                int size = 1024 * 1024;
+                sb.append('$').append(size).append("\r\n");
+                for (int i = 0; i < size; i++) {
+                    sb.append((char) ('a' + i % 26));
+                }
+                sb.append("\r\n");
+                break;
+            case "array100k":
+                sb.append("*100000\r\n");
+                for (int i = 0; i < 100000; i++) {
+                    String member = "member:" + i;
+                    sb.append('$').append(member.length()).append("\r\n").append(member).append("\r\n");
+                }
+                break;
+            case "nested":
+                // 类似CLUSTER SLOTS和XRANGE的结构
+                sb.append("*100\r\n");
+                for (int i = 0; i < 100; i++) {
+                    sb.append("*3\r\n:").append(i).append("\r\n$6\r\nstream\r\n*4\r\n");
+                    sb.append("$5\r\nfield\r\n$5\r\nvalue\r\n:42\r\n*2\r\n+OK\r\n$-1\r\n");
+                }
+                break;
+            default:
+                throw new IllegalArgumentException(payload);
+        }
+        return sb.toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * 可以重复读取的输入流
+     */
+    static final class ReplayInputStream extends InputStream {
+        private final byte[] data;
+        private int pos;
+
+        ReplayInputStream(byte[] data) {
+            this.data = data;
+        }
+
+        void rewind() {
+            pos = 0;
+        }
+
+        @Override
+        public int read() {
+            return pos < data.length ? data[pos++] & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (pos >= data.length) {
+                return -1;
+            }
+            int n = Math.min(len, data.length - pos);
+            System.arraycopy(data, pos, b, off, n);
+            pos += n;
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return data.length - pos;
+        }
+    }
+}
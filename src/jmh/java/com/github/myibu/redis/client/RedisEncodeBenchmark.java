@@ -0,0 +1,88 @@
+package com.github.myibu.redis.client;
+
+import com.github.myibu.redis.client.RedisClient.RedisCommand;
+import com.github.myibu.redis.client.RedisClient.RedisOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RedisOutputStream编码命令的性能，写入的数据直接丢弃
+ * @author myibu
+ * Create on 2026/10/18
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RedisEncodeBenchmark {
+    @Param({"16", "1024"})
+    private int valueSize;
+
+    private RedisOutputStream out;
+    private String key;
+    private String value;
+    private byte[][] args;
+
+    @Setup
+    public void setup() {
+        out = new RedisOutputStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        });
+        key = "benchmark:key:000001";
+        char[] chars = new char[valueSize];
+        Arrays.fill(chars, 'v');
+        value = new String(chars);
+        args = new byte[][]{key.getBytes(StandardCharsets.UTF_8), value.getBytes(StandardCharsets.UTF_8)};
+    }
+
+    @Benchmark
+    public void writeCommandBytes() throws IOException {
+        out.writeCommand(RedisCommand.SET.raw, args);
+        out.flush();
+    }
+
+    @Benchmark
+    public void writeCommandStrings() throws IOException {
+        out.writeCommand(RedisCommand.SET.raw, RedisClient.encodeArgs(key, value));
+        out.flush();
+    }
+
+    @Benchmark
+    public void writeBulk() throws IOException {
+        out.writeCommandHeader(RedisCommand.SET.raw, 2);
+        out.writeBulk(key);
+        out.writeBulk(value);
+        out.flush();
+    }
+
+    @Benchmark
+    public void writeBulkLong() throws IOException {
+        out.writeCommandHeader(RedisCommand.INCRBY.raw, 2);
+        out.writeBulk(key);
+        out.writeBulk(1234567890123L);
+        out.flush();
+    }
+}
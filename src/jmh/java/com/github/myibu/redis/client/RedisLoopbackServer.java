@@ -0,0 +1,94 @@
+package com.github.myibu.redis.client;
+
+import com.github.myibu.redis.client.RedisClient.RedisInputStream;
+import com.github.myibu.redis.client.RedisClient.RedisReply;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * 进程内的RESP服务端，只支持PING、SET和GET，GET返回固定大小的值，用于测量客户端本身的开销
+ * @author myibu
+ * Create on 2026/10/18
+ */
+final class RedisLoopbackServer implements Closeable {
+    private static final byte[] PONG = "+PONG\r\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] OK = "+OK\r\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] UNKNOWN = "-ERR unknown command\r\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final ServerSocket serverSocket;
+    private final byte[] value;
+
+    RedisLoopbackServer(int valueSize) throws IOException {
+        serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        byte[] header = ("$" + valueSize + "\r\n").getBytes(StandardCharsets.US_ASCII);
+        value = new byte[header.length + valueSize + 2];
+        System.arraycopy(header, 0, value, 0, header.length);
+        for (int i = header.length; i < value.length - 2; i++) {
+            value[i] = 'v';
+        }
+        value[value.length - 2] = '\r';
+        value[value.length - 1] = '\n';
+        Thread acceptor = new Thread(this::accept, "redis-loopback-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    InetSocketAddress getAddress() {
+        return new InetSocketAddress(serverSocket.getInetAddress(), serverSocket.getLocalPort());
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                Thread handler = new Thread(() -> serve(socket), "redis-loopback-handler");
+                handler.setDaemon(true);
+                handler.start();
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (Socket s = socket) {
+            RedisInputStream in = new RedisInputStream(s.getInputStream());
+            OutputStream out = s.getOutputStream();
+            while (true) {
+                RedisReply command = in.readReply();
+                @SuppressWarnings("unchecked")
+                List<RedisReply> args = (List<RedisReply>) command.getData();
+                switch (String.valueOf(args.get(0).getData())) {
+                    case "PING":
+                        out.write(PONG);
+                        break;
+                    case "SET":
+                        out.write(OK);
+                        break;
+                    case "GET":
+                        out.write(value);
+                        break;
+                    default:
+                        out.write(UNKNOWN);
+                        break;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // 客户端断开
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+    }
+}
@@ -0,0 +1,70 @@
+package com.github.myibu.redis.client;
+
+import com.github.myibu.redis.client.RedisClient.RedisCommand;
+import com.github.myibu.redis.client.RedisClient.RedisReply;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 通过进程内的RESP服务端测量execAndReturn一问一答的性能
+ * @author myibu
+ * Create on 2026/10/18
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RedisRoundTripBenchmark {
+    @Param({"16", "16384"})
+    private int valueSize;
+
+    private RedisLoopbackServer server;
+    private RedisClient client;
+    private byte[] key;
+    private byte[] value;
+
+    @Setup
+    public void setup() throws IOException {
+        server = new RedisLoopbackServer(valueSize);
+        client = new RedisClient(server.getAddress());
+        key = "benchmark:key".getBytes(StandardCharsets.UTF_8);
+        value = new byte[valueSize];
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        client.close();
+        server.close();
+    }
+
+    @Benchmark
+    public RedisReply ping() {
+        return client.execAndReturn(RedisCommand.PING);
+    }
+
+    @Benchmark
+    public RedisReply set() {
+        return client.execAndReturn(RedisCommand.SET, key, value);
+    }
+
+    @Benchmark
+    public byte[] get() {
+        return client.execAndReturn(RedisCommand.GET, key).getBytes();
+    }
+}
@@ -0,0 +1,251 @@
+package com.github.myibu.redis.client;
+
+import com.github.myibu.redis.client.RedisClient.RedisCommand;
+import com.github.myibu.redis.client.RedisClient.RedisException;
+import com.github.myibu.redis.client.RedisClient.RedisOutputStream;
+import com.github.myibu.redis.client.RedisClient.RedisReply;
+import com.github.myibu.redis.client.RedisClient.RedisReplyDecoder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 基于NIO的异步Redis客户端，线程安全
+ * 所有线程共用一个连接，同一轮事件循环中提交的命令会合并为一次写入，响应按发送顺序对应到各个命令。
+ * 返回的CompletableFuture在事件循环线程中完成，回调中不要执行阻塞操作。
+ * <pre>
+ * RedisAsyncClient client = new RedisAsyncClient();
+ * client.exec(RedisCommand.GET, "foo").thenAccept(System.out::println);
+ * </pre>
+ * @author myibu
+ * Create on 2026/10/18
+ */
+public class RedisAsyncClient {
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    // 单次写入的最大数据量，超过后剩余命令在下一轮发送
+    private static final int MAX_BATCH_SIZE = 1024 * 1024;
+
+    private final SocketChannel channel;
+    private final Selector selector;
+    private final SelectionKey key;
+    private final Thread eventLoop;
+    private final ConcurrentLinkedQueue<Request> submitted = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean wakeup = new AtomicBoolean();
+    private volatile boolean closed = false;
+
+    // 以下字段只在事件循环线程中访问
+    private final ArrayDeque<CompletableFuture<RedisReply>> inflight = new ArrayDeque<>();
+    private final CommandBuffer out = new CommandBuffer();
+    private final RedisOutputStream ros = new RedisOutputStream(out);
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+    private final RedisReplyDecoder decoder = new RedisReplyDecoder();
+    private ByteBuffer outbound;
+
+    public RedisAsyncClient() {
+        this("127.0.0.1", 6379);
+    }
+
+    public RedisAsyncClient(String hostname, int port) {
+        this(new InetSocketAddress(hostname, port));
+    }
+
+    public RedisAsyncClient(InetSocketAddress socketAddress) {
+        try {
+            channel = SocketChannel.open();
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            channel.setOption(StandardSocketOptions.SO_KEEPALIVE, true);
+            channel.connect(socketAddress);
+            channel.configureBlocking(false);
+            selector = Selector.open();
+            key = channel.register(selector, SelectionKey.OP_READ);
+        } catch (Exception e) {
+            throw new RedisException("Create redis client failed.", e);
+        }
+        eventLoop = new Thread(this::run, "redis-async-client-" + socketAddress);
+        eventLoop.setDaemon(true);
+        eventLoop.start();
+    }
+
+    /**
+     * 执行无参数的命令
+     * @param command redis命令，如：ping
+     * @return 执行结果
+     */
+    public CompletableFuture<RedisReply> exec(RedisCommand command) {
+        return exec(command, new byte[0][]);
+    }
+
+    /**
+     * 执行命令
+     * @param command redis命令，如：set
+     * @param args redis命令参数： 如： [foo bar]
+     * @return 执行结果
+     */
+    public CompletableFuture<RedisReply> exec(RedisCommand command, String ...args) {
+        try {
+            return exec(command, RedisClient.encodeArgs(args));
+        } catch (Exception e) {
+            CompletableFuture<RedisReply> future = new CompletableFuture<>();
+            future.completeExceptionally(new RedisException("Execute command failed.", e));
+            return future;
+        }
+    }
+
+    /**
+     * 执行命令，参数按原样发送
+     * @param command redis命令，如：set
+     * @param args redis命令参数
+     * @return 执行结果
+     */
+    public CompletableFuture<RedisReply> exec(RedisCommand command, byte[] ...args) {
+        CompletableFuture<RedisReply> future = new CompletableFuture<>();
+        submitted.add(new Request(command.raw, args, future));
+        if (closed) {
+            failSubmitted(new RedisException("Client is closed."));
+        } else if (wakeup.compareAndSet(false, true)) {
+            selector.wakeup();
+        }
+        return future;
+    }
+
+    /**
+     * 关闭客户端，尚未完成的命令会以异常结束
+     */
+    public void close() {
+        closed = true;
+        selector.wakeup();
+        if (Thread.currentThread() != eventLoop) {
+            try {
+                eventLoop.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void run() {
+        RedisException cause = new RedisException("Client is closed.");
+        try {
+            while (!closed) {
+                if (outbound == null && !submitted.isEmpty()) {
+                    selector.selectNow();
+                } else {
+                    selector.select();
+                }
+                wakeup.set(false);
+                if (selector.selectedKeys().remove(key) && key.isReadable()) {
+                    read();
+                }
+                encode();
+                write();
+            }
+        } catch (Exception e) {
+            cause = new RedisException("Connection failed.", e);
+        } finally {
+            closed = true;
+            try {
+                selector.close();
+                channel.close();
+            } catch (IOException e) {
+                // ignore
+            }
+            CompletableFuture<RedisReply> future;
+            while ((future = inflight.poll()) != null) {
+                future.completeExceptionally(cause);
+            }
+            failSubmitted(cause);
+        }
+    }
+
+    /**
+     * 将已提交的命令编码到同一个缓冲区中，上一批数据写完之前不编码新的命令
+     */
+    private void encode() throws IOException {
+        if (outbound != null) {
+            return;
+        }
+        out.reset();
+        Request request;
+        while (out.size() < MAX_BATCH_SIZE && (request = submitted.poll()) != null) {
+            ros.writeCommand(request.command, request.args);
+            inflight.add(request.future);
+        }
+        ros.flush();
+        if (out.size() > 0) {
+            outbound = ByteBuffer.wrap(out.buffer(), 0, out.size());
+        }
+    }
+
+    private void write() throws IOException {
+        if (outbound != null) {
+            channel.write(outbound);
+            if (!outbound.hasRemaining()) {
+                outbound = null;
+            }
+        }
+        int ops = outbound == null ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE;
+        if (key.interestOps() != ops) {
+            key.interestOps(ops);
+        }
+    }
+
+    private void read() throws IOException {
+        if (channel.read(readBuffer) < 0) {
+            throw new RedisException("Connection closed by server.");
+        }
+        byte[] b = readBuffer.array();
+        int pos = 0;
+        int limit = readBuffer.position();
+        while (pos < limit) {
+            RedisReply reply = decoder.decode(b, pos, limit);
+            pos = decoder.position();
+            if (reply == null) {
+                break;
+            }
+            CompletableFuture<RedisReply> future = inflight.poll();
+            if (future == null) {
+                throw new RedisException("Unexpected reply " + reply);
+            }
+            future.complete(reply);
+        }
+        readBuffer.clear();
+    }
+
+    private void failSubmitted(RedisException cause) {
+        Request request;
+        while ((request = submitted.poll()) != null) {
+            request.future.completeExceptionally(cause);
+        }
+    }
+
+    private static class Request {
+        final byte[] command;
+        final byte[][] args;
+        final CompletableFuture<RedisReply> future;
+
+        Request(byte[] command, byte[][] args, CompletableFuture<RedisReply> future) {
+            this.command = command;
+            this.args = args;
+            this.future = future;
+        }
+    }
+
+    /**
+     * 可以直接访问内部数组的ByteArrayOutputStream，避免写入前再复制一次
+     */
+    private static class CommandBuffer extends ByteArrayOutputStream {
+        byte[] buffer() {
+            return buf;
+        }
+    }
+}
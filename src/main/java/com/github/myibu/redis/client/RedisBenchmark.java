@@ -0,0 +1,447 @@
+package com.github.myibu.redis.client;
+
+import com.github.myibu.redis.client.RedisClient.RedisCommand;
+import com.github.myibu.redis.client.RedisClient.RedisException;
+import com.github.myibu.redis.client.RedisClient.RedisReply;
+import com.github.myibu.redis.client.RedisClient.RedisReplyType;
+
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 类似redis-benchmark的压测工具，命令通过RedisClient自身的编码和解析执行，结果包含客户端的开销。
+ * <pre>
+ * java -cp simple-redisclient.jar com.github.myibu.redis.client.RedisBenchmark -c 50 -n 1000000 -P 16 -t set:1,get:9
+ * </pre>
+ * @author myibu
+ * Create on 2026/10/18
+ */
+public class RedisBenchmark {
+    private static final RedisCommand[] SUPPORTED = {
+            RedisCommand.GET, RedisCommand.SET, RedisCommand.INCR, RedisCommand.LPUSH, RedisCommand.LRANGE
+    };
+
+    private final Config config;
+    private final byte[] value;
+    private final byte[][] keys;
+    private final byte[][] listKeys;
+    // INCR使用单独的key，与SET写入的值不冲突
+    private final byte[][] counterKeys;
+    private final byte[] rangeStop;
+    // 按权重展开的命令，随机选取
+    private final RedisCommand[] mix;
+
+    public RedisBenchmark(Config config) {
+        if (config.getConnections() <= 0 || config.getRequests() <= 0 || config.getPipeline() <= 0
+                || config.getKeyspace() <= 0 || config.getRangeSize() <= 0 || config.getValueSize() < 0) {
+            throw new RedisException("Connections, requests, pipeline, keyspace and range size must be positive, value size must not be negative.");
+        }
+        this.config = config;
+        this.value = new byte[config.getValueSize()];
+        Arrays.fill(value, (byte) 'x');
+        this.keys = new byte[config.getKeyspace()][];
+        this.listKeys = new byte[config.getKeyspace()][];
+        this.counterKeys = new byte[config.getKeyspace()][];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = (config.getKeyPrefix() + i).getBytes(StandardCharsets.UTF_8);
+            listKeys[i] = (config.getKeyPrefix() + "list:" + i).getBytes(StandardCharsets.UTF_8);
+            counterKeys[i] = (config.getKeyPrefix() + "counter:" + i).getBytes(StandardCharsets.UTF_8);
+        }
+        this.rangeStop = String.valueOf(config.getRangeSize() - 1).getBytes(StandardCharsets.US_ASCII);
+        List<RedisCommand> commands = new ArrayList<>();
+        for (Map.Entry<RedisCommand, Integer> entry : config.getMix().entrySet()) {
+            if (!Arrays.asList(SUPPORTED).contains(entry.getKey())) {
+                throw new RedisException("Unsupported command " + entry.getKey());
+            }
+            for (int i = 0; i < entry.getValue(); i++) {
+                commands.add(entry.getKey());
+            }
+        }
+        if (commands.isEmpty()) {
+            throw new RedisException("Command mix is empty.");
+        }
+        this.mix = commands.toArray(new RedisCommand[0]);
+    }
+
+    /**
+     * 执行压测，每个连接一个线程，直到完成{@link Config#getRequests()}个请求
+     * @return 压测结果
+     */
+    public Result run() throws InterruptedException {
+        Result result = new Result();
+        for (RedisCommand command : mix) {
+            result.latencies.putIfAbsent(command, new RedisLatencyHistogram());
+        }
+        AtomicLong remaining = new AtomicLong(config.getRequests());
+        List<Thread> threads = new ArrayList<>();
+        Queue<RuntimeException> failures = new ConcurrentLinkedQueue<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < config.getConnections(); i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    runConnection(remaining, result);
+                } catch (RuntimeException e) {
+                    failures.add(e);
+                }
+            }, "redis-benchmark-" + i);
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        result.elapsedNanos = System.nanoTime() - start;
+        if (!failures.isEmpty()) {
+            throw failures.peek();
+        }
+        return result;
+    }
+
+    private void runConnection(AtomicLong remaining, Result result) {
+        RedisClient client = new RedisClient(config.getAddress());
+        int depth = config.getPipeline();
+        RedisCommand[] batch = new RedisCommand[depth];
+        try {
+            while (true) {
+                long left = remaining.getAndAdd(-depth);
+                if (left <= 0) {
+                    return;
+                }
+                int size = (int) Math.min(depth, left);
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < size; i++) {
+                    batch[i] = mix[random.nextInt(mix.length)];
+                    send(client, batch[i], random.nextInt(keys.length));
+                }
+                long sent = System.nanoTime();
+                client.flush();
+                // 管道中每个命令的延迟为从发送到读取到其响应的时间
+                for (int i = 0; i < size; i++) {
+                    RedisReply reply = client.readReply();
+                    // 错误响应不计入延迟和吞吐量
+                    if (reply.getType() == RedisReplyType.ERRORS) {
+                        result.errors.increment();
+                    } else {
+                        result.latencies.get(batch[i]).record(System.nanoTime() - sent);
+                    }
+                }
+            }
+        } catch (RedisException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RedisException("Benchmark failed.", e);
+        } finally {
+            client.close();
+        }
+    }
+
+    private void send(RedisClient client, RedisCommand command, int key) throws Exception {
+        switch (command) {
+            case GET:
+                client.sendCommand(command.raw, new byte[][]{keys[key]});
+                break;
+            case INCR:
+                client.sendCommand(command.raw, new byte[][]{counterKeys[key]});
+                break;
+            case SET:
+                client.sendCommand(command.raw, new byte[][]{keys[key], value});
+                break;
+            case LPUSH:
+                client.sendCommand(command.raw, new byte[][]{listKeys[key], value});
+                break;
+            case LRANGE:
+                client.sendCommand(command.raw, new byte[][]{listKeys[key], new byte[]{'0'}, rangeStop});
+                break;
+            default:
+                throw new RedisException("Unsupported command " + command);
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        Config config;
+        try {
+            config = Config.parse(args);
+        } catch (RuntimeException e) {
+            System.err.println(e.getMessage());
+            System.err.println(Config.USAGE);
+            System.exit(1);
+            return;
+        }
+        if (config == null) {
+            System.out.println(Config.USAGE);
+            return;
+        }
+        new RedisBenchmark(config).run().print(System.out);
+    }
+
+    /**
+     * 压测配置
+     */
+    public static class Config {
+        static final String USAGE = "Usage: RedisBenchmark [-h host] [-p port] [-c connections] [-n requests] [-P pipeline]\n" +
+                "                     [-d valueSize] [-r keyspace] [-l rangeSize] [-t command:weight,...]\n" +
+                "  -t  command mix of get, set, incr, lpush and lrange, e.g. set:1,get:9 (default set,get)";
+
+        private InetSocketAddress address = new InetSocketAddress("127.0.0.1", 6379);
+        private int connections = 50;
+        private long requests = 100000;
+        private int pipeline = 1;
+        private int valueSize = 3;
+        private int keyspace = 1;
+        private int rangeSize = 100;
+        private String keyPrefix = "benchmark:";
+        private Map<RedisCommand, Integer> mix = new LinkedHashMap<>();
+
+        public Config() {
+            mix.put(RedisCommand.SET, 1);
+            mix.put(RedisCommand.GET, 1);
+        }
+
+        /**
+         * @return 配置，参数为--help时返回null
+         */
+        static Config parse(String[] args) {
+            Config config = new Config();
+            String host = "127.0.0.1";
+            int port = 6379;
+            for (int i = 0; i < args.length; i++) {
+                String option = args[i];
+                if ("--help".equals(option)) {
+                    return null;
+                }
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("Missing value for " + option);
+                }
+                String value = args[++i];
+                switch (option) {
+                    case "-h":
+                        host = value;
+                        break;
+                    case "-p":
+                        port = Integer.parseInt(value);
+                        break;
+                    case "-c":
+                        config.setConnections(positiveInt(option, value));
+                        break;
+                    case "-n":
+                        config.setRequests(positiveLong(option, value));
+                        break;
+                    case "-P":
+                        config.setPipeline(positiveInt(option, value));
+                        break;
+                    case "-d":
+                        config.setValueSize(nonNegativeInt(option, value));
+                        break;
+                    case "-r":
+                        config.setKeyspace(positiveInt(option, value));
+                        break;
+                    case "-l":
+                        config.setRangeSize(positiveInt(option, value));
+                        break;
+                    case "-t":
+                        config.setMix(parseMix(value));
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option " + option);
+                }
+            }
+            config.setAddress(new InetSocketAddress(host, port));
+            return config;
+        }
+
+        private static int positiveInt(String option, String value) {
+            int n = Integer.parseInt(value);
+            if (n <= 0) {
+                throw new IllegalArgumentException(option + " must be positive: " + value);
+            }
+            return n;
+        }
+
+        private static long positiveLong(String option, String value) {
+            long n = Long.parseLong(value);
+            if (n <= 0) {
+                throw new IllegalArgumentException(option + " must be positive: " + value);
+            }
+            return n;
+        }
+
+        private static int nonNegativeInt(String option, String value) {
+            int n = Integer.parseInt(value);
+            if (n < 0) {
+                throw new IllegalArgumentException(option + " must not be negative: " + value);
+            }
+            return n;
+        }
+
+        private static Map<RedisCommand, Integer> parseMix(String value) {
+            Map<RedisCommand, Integer> mix = new LinkedHashMap<>();
+            for (String item : value.split(",")) {
+                String[] parts = item.trim().split(":");
+                RedisCommand command = RedisCommand.valueOf(parts[0].toUpperCase());
+                mix.put(command, parts.length > 1 ? nonNegativeInt("-t " + command.name().toLowerCase(), parts[1]) : 1);
+            }
+            return mix;
+        }
+
+        public InetSocketAddress getAddress() {
+            return address;
+        }
+
+        public void setAddress(InetSocketAddress address) {
+            this.address = address;
+        }
+
+        /**
+         * @return 连接数，每个连接一个线程
+         */
+        public int getConnections() {
+            return connections;
+        }
+
+        public void setConnections(int connections) {
+            this.connections = connections;
+        }
+
+        /**
+         * @return 所有连接的请求总数
+         */
+        public long getRequests() {
+            return requests;
+        }
+
+        public void setRequests(long requests) {
+            this.requests = requests;
+        }
+
+        /**
+         * @return 每个连接一次发送的请求数
+         */
+        public int getPipeline() {
+            return pipeline;
+        }
+
+        public void setPipeline(int pipeline) {
+            this.pipeline = pipeline;
+        }
+
+        /**
+         * @return SET和LPUSH的值的字节数
+         */
+        public int getValueSize() {
+            return valueSize;
+        }
+
+        public void setValueSize(int valueSize) {
+            this.valueSize = valueSize;
+        }
+
+        /**
+         * @return 随机选取的key的个数
+         */
+        public int getKeyspace() {
+            return keyspace;
+        }
+
+        public void setKeyspace(int keyspace) {
+            this.keyspace = keyspace;
+        }
+
+        /**
+         * @return LRANGE读取的元素个数
+         */
+        public int getRangeSize() {
+            return rangeSize;
+        }
+
+        public void setRangeSize(int rangeSize) {
+            this.rangeSize = rangeSize;
+        }
+
+        public String getKeyPrefix() {
+            return keyPrefix;
+        }
+
+        public void setKeyPrefix(String keyPrefix) {
+            this.keyPrefix = keyPrefix;
+        }
+
+        /**
+         * @return 命令及其权重
+         */
+        public Map<RedisCommand, Integer> getMix() {
+            return mix;
+        }
+
+        public void setMix(Map<RedisCommand, Integer> mix) {
+            this.mix = mix;
+        }
+    }
+
+    /**
+     * 压测结果
+     */
+    public static class Result {
+        private final Map<RedisCommand, RedisLatencyHistogram> latencies = new EnumMap<>(RedisCommand.class);
+        private final LongAdder errors = new LongAdder();
+        private long elapsedNanos;
+
+        /**
+         * @return 每个命令的延迟，单位纳秒
+         */
+        public Map<RedisCommand, RedisLatencyHistogram> getLatencies() {
+            return latencies;
+        }
+
+        /**
+         * @return 成功的请求数，不包括错误响应
+         */
+        public long getRequests() {
+            long count = 0;
+            for (RedisLatencyHistogram histogram : latencies.values()) {
+                count += histogram.getCount();
+            }
+            return count;
+        }
+
+        /**
+         * @return 错误响应数
+         */
+        public long getErrors() {
+            return errors.sum();
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public double getOpsPerSecond() {
+            return elapsedNanos == 0 ? 0 : getRequests() * 1e9 / elapsedNanos;
+        }
+
+        public void print(PrintStream out) {
+            out.printf("%d requests completed in %.2f seconds, %.0f requests per second, %d errors%n",
+                    getRequests(), elapsedNanos / 1e9, getOpsPerSecond(), getErrors());
+            out.printf("%-8s %10s %12s %10s %10s %10s %10s %10s%n",
+                    "command", "requests", "ops/s", "avg(us)", "p50(us)", "p99(us)", "p99.9(us)", "max(us)");
+            for (Map.Entry<RedisCommand, RedisLatencyHistogram> entry : latencies.entrySet()) {
+                RedisLatencyHistogram h = entry.getValue();
+                out.printf("%-8s %10d %12.0f %10.1f %10.1f %10.1f %10.1f %10.1f%n",
+                        entry.getKey(), h.getCount(), elapsedNanos == 0 ? 0 : h.getCount() * 1e9 / elapsedNanos,
+                        h.getMean() / 1000, h.getValueAtPercentile(50) / 1000.0, h.getValueAtPercentile(99) / 1000.0,
+                        h.getValueAtPercentile(99.9) / 1000.0, h.getMax() / 1000.0);
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.github.myibu.redis.client;
+
+import com.github.myibu.redis.client.RedisClient.RedisOutputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 长度已知的命令参数，发送时从数据源分段写入连接，不需要把完整的值读入内存
+ * <pre>
+ * try (FileChannel channel = FileChannel.open(path)) {
+ *     redisClient.execAndReturn(RedisCommand.SET, RedisBulkValue.of("report"), RedisBulkValue.of(channel));
+ * }
+ * </pre>
+ * @author myibu
+ * Create on 2026/10/18
+ */
+public abstract class RedisBulkValue {
+
+    /**
+     * @return 值的字节数
+     */
+    public abstract long length();
+
+    abstract void writeTo(RedisOutputStream out) throws IOException;
+
+    public static RedisBulkValue of(String value) {
+        return of(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static RedisBulkValue of(byte[] value) {
+        return new RedisBulkValue() {
+            @Override
+            public long length() {
+                return value.length;
+            }
+
+            @Override
+            void writeTo(RedisOutputStream out) throws IOException {
+                out.write(value);
+            }
+        };
+    }
+
+    /**
+     * 从输入流读取length个字节，输入流不会被关闭
+     * @param in 输入流
+     * @param length 值的字节数，输入流提前结束时命令发送失败
+     * @return 参数
+     */
+    public static RedisBulkValue of(InputStream in, long length) {
+        return new RedisBulkValue() {
+            @Override
+            public long length() {
+                return length;
+            }
+
+            @Override
+            void writeTo(RedisOutputStream out) throws IOException {
+                out.transferFrom(in, length);
+            }
+        };
+    }
+
+    /**
+     * 从文件的当前位置读取到文件末尾，不会改变文件的位置
+     * @param channel 文件
+     * @return 参数
+     */
+    public static RedisBulkValue of(FileChannel channel) throws IOException {
+        long position = channel.position();
+        return of(channel, position, channel.size() - position);
+    }
+
+    /**
+     * 从文件的指定位置读取length个字节，不会改变文件的位置
+     * @param channel 文件
+     * @param position 开始位置
+     * @param length 值的字节数
+     * @return 参数
+     */
+    public static RedisBulkValue of(FileChannel channel, long position, long length) {
+        return new RedisBulkValue() {
+            @Override
+            public long length() {
+                return length;
+            }
+
+            @Override
+            void writeTo(RedisOutputStream out) throws IOException {
+                out.transferFrom(channel, position, length);
+            }
+        };
+    }
+}
@@ -0,0 +1,198 @@
+package com.github.myibu.redis.client;
+
+import com.github.myibu.redis.client.RedisClient.RedisException;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 熔断器，连续超时或连接失败达到阈值后打开，打开期间的请求立即失败，不再等待超时。
+ * 打开一段时间后放行一个试探请求，成功则关闭，失败则重新打开。
+ * 同一个服务端的所有连接应共享一个熔断器，线程安全。
+ * <pre>
+ * RedisCircuitBreaker breaker = new RedisCircuitBreaker(new RedisCircuitBreaker.Config());
+ * RedisClientPool.Config config = new RedisClientPool.Config();
+ * config.setCircuitBreaker(breaker);
+ * </pre>
+ * @author myibu
+ * Create on 2026/10/18
+ */
+public class RedisCircuitBreaker {
+    /**
+     * 熔断器状态
+     */
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final Config config;
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    // 进入当前状态的时间
+    private volatile long stateSince = System.nanoTime();
+    private final AtomicLong failureCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong openedCount = new AtomicLong();
+
+    public RedisCircuitBreaker(Config config) {
+        this.config = config;
+    }
+
+    /**
+     * 检查是否允许发送请求，打开状态超过{@link Config#getOpenMillis()}后当前调用作为试探请求
+     * @throws RedisException 熔断器打开
+     */
+    public void acquire() {
+        State current = state.get();
+        if (current == State.CLOSED) {
+            return;
+        }
+        if (elapsed() >= TimeUnit.MILLISECONDS.toNanos(config.getOpenMillis())) {
+            // 试探请求没有结果时，下一个周期再放行一个
+            if (state.compareAndSet(current, State.HALF_OPEN)) {
+                stateSince = System.nanoTime();
+                return;
+            }
+        }
+        rejectedCount.incrementAndGet();
+        throw new RedisException("Circuit breaker is open after " + config.getFailureThreshold() + " consecutive failures.");
+    }
+
+    /**
+     * 检查是否允许发送请求，不改变状态，用于借出连接之前快速失败
+     * @throws RedisException 熔断器打开且未到试探时间
+     */
+    public void check() {
+        if (state.get() == State.OPEN && elapsed() < TimeUnit.MILLISECONDS.toNanos(config.getOpenMillis())) {
+            rejectedCount.incrementAndGet();
+            throw new RedisException("Circuit breaker is open after " + config.getFailureThreshold() + " consecutive failures.");
+        }
+    }
+
+    /**
+     * 收到服务端的响应
+     */
+    public void onSuccess() {
+        // 每个响应都会调用，先读取再写入，避免多个连接争用同一缓存行
+        if (consecutiveFailures.get() != 0) {
+            consecutiveFailures.set(0);
+        }
+        if (state.get() != State.CLOSED) {
+            state.set(State.CLOSED);
+            stateSince = System.nanoTime();
+        }
+    }
+
+    /**
+     * 读取超时或连接失败
+     */
+    public void onFailure() {
+        failureCount.incrementAndGet();
+        int failures = consecutiveFailures.incrementAndGet();
+        State current = state.get();
+        if (current == State.HALF_OPEN || (current == State.CLOSED && failures >= config.getFailureThreshold())) {
+            if (state.compareAndSet(current, State.OPEN)) {
+                stateSince = System.nanoTime();
+                openedCount.incrementAndGet();
+            }
+        }
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    public Config getConfig() {
+        return config;
+    }
+
+    /**
+     * @return 熔断器统计信息
+     */
+    public Stats getStats() {
+        Stats stats = new Stats();
+        stats.state = state.get();
+        stats.failureCount = failureCount.get();
+        stats.rejectedCount = rejectedCount.get();
+        stats.openedCount = openedCount.get();
+        return stats;
+    }
+
+    private long elapsed() {
+        return System.nanoTime() - stateSince;
+    }
+
+    /**
+     * 熔断器配置
+     */
+    public static class Config {
+        private int failureThreshold = 5;
+        private long openMillis = 1000;
+
+        /**
+         * @return 打开熔断器的连续失败次数
+         */
+        public int getFailureThreshold() {
+            return failureThreshold;
+        }
+
+        public void setFailureThreshold(int failureThreshold) {
+            this.failureThreshold = failureThreshold;
+        }
+
+        /**
+         * @return 打开后放行试探请求之前的时间
+         */
+        public long getOpenMillis() {
+            return openMillis;
+        }
+
+        public void setOpenMillis(long openMillis) {
+            this.openMillis = openMillis;
+        }
+    }
+
+    /**
+     * 熔断器统计信息
+     */
+    public static class Stats {
+        private State state;
+        private long failureCount;
+        private long rejectedCount;
+        private long openedCount;
+
+        public State getState() {
+            return state;
+        }
+
+        /**
+         * @return 超时和连接失败的总次数
+         */
+        public long getFailureCount() {
+            return failureCount;
+        }
+
+        /**
+         * @return 因熔断器打开而立即失败的请求数
+         */
+        public long getRejectedCount() {
+            return rejectedCount;
+        }
+
+        public long getOpenedCount() {
+            return openedCount;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{" +
+                    "state=" + state +
+                    ", failureCount=" + failureCount +
+                    ", rejectedCount=" + rejectedCount +
+                    ", openedCount=" + openedCount +
+                    '}';
+        }
+    }
+}
@@ -1,11 +1,24 @@
 package com.github.myibu.redis.client;
 
 import java.io.*;
+import java.math.BigInteger;
 import java.net.InetSocketAddress;
 import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * Redis客户端
@@ -37,14 +50,32 @@ public class RedisClient {
         GEOSEARCH, GEOSEARCHSTORE, PFSELFTEST, PFADD, PFCOUNT, PFMERGE, PFDEBUG, XADD, XRANGE, XREVRANGE, XLEN, XREAD,
         XREADGROUP, XGROUP, XSETID, XACK, XPENDING, XCLAIM, XAUTOCLAIM, XINFO, XDEL, XTRIM, POST, LATENCY, LOLWUT, ACL,
         STRALGO, RESET, FAILOVER;
+
+        /**
+         * 预先编码好的命令名：$len\r\nNAME\r\n
+         */
+        final byte[] raw;
+
+        RedisCommand() {
+            raw = encodeCommand(name().getBytes(StandardCharsets.UTF_8));
+        }
     }
     /**
      * Redis响应
+     * 解析得到的响应只记录其在原始数据中的位置，data和raw在首次访问时才会生成，
+     * 数组中的元素同样是指向同一份原始数据的视图。
      */
     public static class RedisReply {
         private RedisReplyType type;
         private Object data;
         private byte[] raw;
+        private boolean decoded;
+        // 响应在frame中的位置
+        private byte[] frame;
+        private int offset;
+        private int length;
+        // RESP3 Attribute
+        private RedisReply attributes;
 
         public RedisReplyType getType() {
             return type;
@@ -55,19 +86,151 @@ public class RedisClient {
         }
 
         public Object getData() {
+            if (!decoded) {
+                data = decode();
+                decoded = true;
+            }
             return data;
         }
 
         public void setData(Object data) {
             this.data = data;
+            this.decoded = true;
         }
 
         public byte[] getRaw() {
+            if (raw == null && frame != null) {
+                raw = offset == 0 && length == frame.length ? frame : Arrays.copyOfRange(frame, offset, offset + length);
+            }
             return raw;
         }
 
         public void setRaw(byte[] raw) {
             this.raw = raw;
+            this.frame = raw;
+            this.offset = 0;
+            this.length = raw == null ? 0 : raw.length;
+        }
+
+        /**
+         * @return 响应内容的原始数据，如Bulk Strings的内容，数组和Null Bulk String返回null
+         */
+        public byte[] getBytes() {
+            int len = payloadLength();
+            if (len < 0) {
+                return null;
+            }
+            int pos = payloadOffset(len);
+            return Arrays.copyOfRange(frame, pos, pos + len);
+        }
+
+        /**
+         * @return 响应内容的只读视图，不复制数据，数组和Null Bulk String返回null
+         */
+        public ByteBuffer getByteBuffer() {
+            int len = payloadLength();
+            if (len < 0) {
+                return null;
+            }
+            return ByteBuffer.wrap(frame, payloadOffset(len), len).slice().asReadOnlyBuffer();
+        }
+
+        /**
+         * @return 是否为Null Bulk String、Null Array或RESP3 Null
+         */
+        public boolean isNull() {
+            if (frame == null || type == null) {
+                return false;
+            }
+            if (type == RedisReplyType.NULLS) {
+                return true;
+            }
+            return type.kind != RedisReplyType.Kind.LINE && parseLong(frame, offset + TYPE_BYTE_LENGTH) < 0;
+        }
+
+        /**
+         * 直接从原始数据解析整数，不创建包装对象
+         * @return Integers的值，或内容为整数的Bulk Strings的值
+         */
+        public long getLong() {
+            if (type == RedisReplyType.INTEGERS) {
+                return parseLong(frame, offset + TYPE_BYTE_LENGTH);
+            }
+            if (type == RedisReplyType.BULK_STRINGS && !isNull()) {
+                return parseLong(frame, payloadOffset(payloadLength()));
+            }
+            throw new RedisException("Not an integer: " + this);
+        }
+
+        /**
+         * @return Doubles的值，或内容为浮点数的Bulk Strings的值，如：ZSCORE、INCRBYFLOAT的结果
+         */
+        public double getDouble() {
+            switch (type) {
+                case INTEGERS:
+                    return parseLong(frame, offset + TYPE_BYTE_LENGTH);
+                case DOUBLES:
+                    return (Double) getData();
+                case BULK_STRINGS:
+                    if (isNull()) {
+                        throw new RedisException("Not a double: " + this);
+                    }
+                    int len = payloadLength();
+                    return parseDouble(new String(frame, payloadOffset(len), len, StandardCharsets.US_ASCII));
+                default:
+                    throw new RedisException("Not a double: " + this);
+            }
+        }
+
+        /**
+         * @return Booleans的值，或Integers是否不为0，如：SISMEMBER、EXPIRE的结果
+         */
+        public boolean getBoolean() {
+            if (type == RedisReplyType.BOOLEANS) {
+                return frame[offset + TYPE_BYTE_LENGTH] == 't';
+            }
+            if (type == RedisReplyType.INTEGERS) {
+                return parseLong(frame, offset + TYPE_BYTE_LENGTH) != 0;
+            }
+            throw new RedisException("Not a boolean: " + this);
+        }
+
+        /**
+         * @return RESP3中附加在响应上的Attribute，没有时返回null
+         */
+        @SuppressWarnings("unchecked")
+        public Map<Object, RedisReply> getAttributes() {
+            return attributes == null ? null : (Map<Object, RedisReply>) attributes.getData();
+        }
+
+        /**
+         * @return 响应原始数据的字节数
+         */
+        int size() {
+            return length;
+        }
+
+        private int payloadLength() {
+            if (frame == null || type == null) {
+                return -1;
+            }
+            switch (type.kind) {
+                case LINE:
+                    return type == RedisReplyType.NULLS ? -1 : length - TYPE_BYTE_LENGTH - CRLF_LENGTH;
+                case BULK:
+                    int len = (int) parseLong(frame, offset + TYPE_BYTE_LENGTH);
+                    // Verbatim string的内容以3个字符的格式和冒号开头，如：txt:
+                    return type == RedisReplyType.VERBATIM_STRINGS && len >= VERBATIM_PREFIX_LENGTH ? len - VERBATIM_PREFIX_LENGTH : len;
+                default:
+                    return -1;
+            }
+        }
+
+        private int payloadOffset(int len) {
+            if (type.kind == RedisReplyType.Kind.BULK) {
+                return offset + length - CRLF_LENGTH - len;
+            }
+            return offset + TYPE_BYTE_LENGTH;
         }
 
         public static RedisReply create(byte[] buf, int pos, int len, RedisReplyType type) {
@@ -78,14 +241,166 @@ public class RedisClient {
             reply.setType(type);
             return reply;
         }
+
+        /**
+         * 创建指向frame[pos, pos + len)的响应，不复制数据，调用方不能再修改这部分数据
+         */
+        static RedisReply wrap(byte[] frame, int pos, int len) {
+            if (frame[pos] == PIPE_BYTE) {
+                // Attribute之后是实际的响应
+                int end = skipAggregate(frame, pos, RedisReplyType.MAPS);
+                RedisReply reply = wrap(frame, end, pos + len - end);
+                reply.attributes = new RedisReply();
+                reply.attributes.frame = frame;
+                reply.attributes.offset = pos;
+                reply.attributes.length = end - pos;
+                reply.attributes.type = RedisReplyType.ATTRIBUTES;
+                return reply;
+            }
+            RedisReply reply = new RedisReply();
+            reply.frame = frame;
+            reply.offset = pos;
+            reply.length = len;
+            reply.type = RedisReplyType.of(frame[pos]);
+            return reply;
+        }
+
+        private Object decode() {
+            if (frame == null) {
+                return null;
+            }
+            int len;
+            switch (type) {
+                case SIMPLE_STRINGS:
+                case ERRORS:
+                    return new String(frame, offset + TYPE_BYTE_LENGTH, length - TYPE_BYTE_LENGTH - CRLF_LENGTH, StandardCharsets.UTF_8);
+                case INTEGERS:
+                    long value = parseLong(frame, offset + TYPE_BYTE_LENGTH);
+                    // 超出int范围时返回Long，需要整数时使用getLong()
+                    if (value == (int) value) {
+                        return (int) value;
+                    }
+                    return value;
+                case NULLS:
+                    return null;
+                case DOUBLES:
+                    return parseDouble(new String(frame, offset + TYPE_BYTE_LENGTH, length - TYPE_BYTE_LENGTH - CRLF_LENGTH, StandardCharsets.US_ASCII));
+                case BOOLEANS:
+                    return frame[offset + TYPE_BYTE_LENGTH] == 't';
+                case BIG_NUMBERS:
+                    return new BigInteger(new String(frame, offset + TYPE_BYTE_LENGTH, length - TYPE_BYTE_LENGTH - CRLF_LENGTH, StandardCharsets.US_ASCII));
+                case BULK_STRINGS:
+                case BLOB_ERRORS:
+                case VERBATIM_STRINGS:
+                    len = payloadLength();
+                    if (len <= 0) {
+                        return "";
+                    }
+                    return new String(frame, payloadOffset(len), len, StandardCharsets.UTF_8);
+                case ARRAYS:
+                case SETS:
+                case PUSHES:
+                    int size = (int) parseLong(frame, offset + TYPE_BYTE_LENGTH);
+                    List<RedisReply> replies = new ArrayList<>(Math.max(size, 0));
+                    int pos = skipLine(frame, offset);
+                    for (int i = 0; i < size; i++) {
+                        int end = skipValue(frame, pos);
+                        replies.add(wrap(frame, pos, end - pos));
+                        pos = end;
+                    }
+                    return replies;
+                case MAPS:
+                case ATTRIBUTES:
+                    int pairs = (int) parseLong(frame, offset + TYPE_BYTE_LENGTH);
+                    Map<Object, RedisReply> map = new LinkedHashMap<>(Math.max(pairs, 0) * 4 / 3 + 1);
+                    int p = skipLine(frame, offset);
+                    for (int i = 0; i < pairs; i++) {
+                        int keyEnd = skipValue(frame, p);
+                        int valueEnd = skipValue(frame, keyEnd);
+                        map.put(wrap(frame, p, keyEnd - p).getData(), wrap(frame, keyEnd, valueEnd - keyEnd));
+                        p = valueEnd;
+                    }
+                    return map;
+                default:
+                    return null;
+            }
+        }
+
+        private static double parseDouble(String value) {
+            switch (value) {
+                case "inf":
+                    return Double.POSITIVE_INFINITY;
+                case "-inf":
+                    return Double.NEGATIVE_INFINITY;
+                case "nan":
+                    return Double.NaN;
+                default:
+                    return Double.parseDouble(value);
+            }
+        }
+
+        /**
+         * 解析从pos开始、以CRLF结尾的整数
+         */
+        static long parseLong(byte[] b, int pos) {
+            long value = 0;
+            boolean isNegative = false;
+            if (b[pos] == '-') {
+                pos++;
+                isNegative = true;
+            }
+            byte c;
+            while ((c = b[pos++]) != CR) {
+                value = value * 10 + c - '0';
+            }
+            return isNegative ? -value : value;
+        }
+
+        /**
+         * @return pos所在行CRLF之后的位置
+         */
+        private static int skipLine(byte[] b, int pos) {
+            while (b[pos] != CR) {
+                pos++;
+            }
+            return pos + CRLF_LENGTH;
+        }
+
+        /**
+         * @return 从pos开始的响应结束后的位置
+         */
+        private static int skipValue(byte[] b, int pos) {
+            RedisReplyType type = RedisReplyType.of(b[pos]);
+            switch (type.kind) {
+                case BULK:
+                    int end = skipLine(b, pos);
+                    long len = parseLong(b, pos + TYPE_BYTE_LENGTH);
+                    return len < 0 ? end : end + (int) len + CRLF_LENGTH;
+                case AGGREGATE:
+                    return skipAggregate(b, pos, type);
+                default:
+                    return skipLine(b, pos);
+            }
+        }
+
+        private static int skipAggregate(byte[] b, int pos, RedisReplyType type) {
+            int end = skipLine(b, pos);
+            long size = parseLong(b, pos + TYPE_BYTE_LENGTH);
+            long elements = size < 0 ? 0 : type.elements(size);
+            for (long i = 0; i < elements; i++) {
+                end = skipValue(b, end);
+            }
+            return end;
+        }
+
         @Override
         public String toString() {
-            String rawString = new String(raw);
+            String rawString = new String(getRaw(), StandardCharsets.UTF_8);
             rawString = rawString.replaceAll("\r", "\\\\r");
             rawString = rawString.replaceAll("\n", "\\\\n");
             return "RedisReply{" +
                     "type=" + type +
-                    ", data=" + data +
+                    ", data=" + getData() +
                     ", raw=" + rawString +
                     '}';
         }
@@ -98,27 +413,128 @@ public class RedisClient {
         /**
          * Simple Strings: +OK\r\n
          */
-        SIMPLE_STRINGS(PLUS_BYTE),
+        SIMPLE_STRINGS(PLUS_BYTE, Kind.LINE),
         /**
          * Errors:  -ERR unknown command 'hello'
          */
-        ERRORS(MINUS_BYTE),
+        ERRORS(MINUS_BYTE, Kind.LINE),
         /**
          * Integers:  :2
          */
-        INTEGERS(COLON_BYTE),
+        INTEGERS(COLON_BYTE, Kind.LINE),
         /**
          * Bulk Strings:  $6\r\nfoobar\r\n
          */
-        BULK_STRINGS(DOLLAR_BYTE),
+        BULK_STRINGS(DOLLAR_BYTE, Kind.BULK),
         /**
          * Arrays:  *2\r\n$3\r\nfoo\r\n$3\r\nbar\r\n
          */
-        ARRAYS(ASTERISK_BYTE);
+        ARRAYS(ASTERISK_BYTE, Kind.AGGREGATE),
+        /**
+         * RESP3 Null:  _\r\n
+         */
+        NULLS(UNDERSCORE_BYTE, Kind.LINE),
+        /**
+         * RESP3 Double:  ,1.23\r\n
+         */
+        DOUBLES(COMMA_BYTE, Kind.LINE),
+        /**
+         * RESP3 Boolean:  #t\r\n
+         */
+        BOOLEANS(HASH_BYTE, Kind.LINE),
+        /**
+         * RESP3 Big number:  (3492890328409238509324850943850943825024385\r\n
+         */
+        BIG_NUMBERS(LEFT_PAREN_BYTE, Kind.LINE),
+        /**
+         * RESP3 Blob error:  !21\r\nSYNTAX invalid syntax\r\n
+         */
+        BLOB_ERRORS(EXCLAMATION_BYTE, Kind.BULK),
+        /**
+         * RESP3 Verbatim string:  =15\r\ntxt:Some string\r\n
+         */
+        VERBATIM_STRINGS(EQUALS_BYTE, Kind.BULK),
+        /**
+         * RESP3 Map:  %1\r\n+first\r\n:1\r\n
+         */
+        MAPS(PERCENT_BYTE, Kind.AGGREGATE),
+        /**
+         * RESP3 Set:  ~2\r\n+orange\r\n+apple\r\n
+         */
+        SETS(TILDE_BYTE, Kind.AGGREGATE),
+        /**
+         * RESP3 Attribute，后面紧跟实际的响应:  |1\r\n+ttl\r\n:3600\r\n$3\r\nbar\r\n
+         */
+        ATTRIBUTES(PIPE_BYTE, Kind.AGGREGATE),
+        /**
+         * RESP3 Push:  >3\r\n$7\r\nmessage\r\n$3\r\nfoo\r\n$3\r\nbar\r\n
+         */
+        PUSHES(GREATER_THAN_BYTE, Kind.AGGREGATE);
 
         final byte first;
-        RedisReplyType(byte first) {
+        final Kind kind;
+        RedisReplyType(byte first, Kind kind) {
             this.first = first;
+            this.kind = kind;
+        }
+
+        /**
+         * 聚合类型包含的元素个数，Attribute之后还有一个实际的响应
+         * @param size 协议中声明的个数
+         */
+        long elements(long size) {
+            switch (this) {
+                case MAPS:
+                    return size * 2;
+                case ATTRIBUTES:
+                    return size * 2 + 1;
+                default:
+                    return size;
+            }
+        }
+
+        static RedisReplyType of(byte first) {
+            switch (first) {
+                case PLUS_BYTE:
+                    return SIMPLE_STRINGS;
+                case MINUS_BYTE:
+                    return ERRORS;
+                case COLON_BYTE:
+                    return INTEGERS;
+                case DOLLAR_BYTE:
+                    return BULK_STRINGS;
+                case ASTERISK_BYTE:
+                    return ARRAYS;
+                case UNDERSCORE_BYTE:
+                    return NULLS;
+                case COMMA_BYTE:
+                    return DOUBLES;
+                case HASH_BYTE:
+                    return BOOLEANS;
+                case LEFT_PAREN_BYTE:
+                    return BIG_NUMBERS;
+                case EXCLAMATION_BYTE:
+                    return BLOB_ERRORS;
+                case EQUALS_BYTE:
+                    return VERBATIM_STRINGS;
+                case PERCENT_BYTE:
+                    return MAPS;
+                case TILDE_BYTE:
+                    return SETS;
+                case PIPE_BYTE:
+                    return ATTRIBUTES;
+                case GREATER_THAN_BYTE:
+                    return PUSHES;
+                default:
+                    throw new RedisException("Unknown protocol begin with byte " + first);
+            }
+        }
+
+        /**
+         * 响应的格式：单行、带长度的字符串、聚合类型
+         */
+        enum Kind {
+            LINE, BULK, AGGREGATE
         }
     }
 
@@ -128,14 +544,27 @@ public class RedisClient {
     public static final byte COLON_BYTE = ':';
     public static final byte DOLLAR_BYTE = '$';
     public static final byte ASTERISK_BYTE = '*';
+    // RESP3 first byte
+    public static final byte UNDERSCORE_BYTE = '_';
+    public static final byte COMMA_BYTE = ',';
+    public static final byte HASH_BYTE = '#';
+    public static final byte LEFT_PAREN_BYTE = '(';
+    public static final byte EXCLAMATION_BYTE = '!';
+    public static final byte EQUALS_BYTE = '=';
+    public static final byte PERCENT_BYTE = '%';
+    public static final byte TILDE_BYTE = '~';
+    public static final byte PIPE_BYTE = '|';
+    public static final byte GREATER_THAN_BYTE = '>';
 
     // length
-    private static final int PLUS_BYTE_LENGTH = 1;
-    private static final int MINUS_BYTE_LENGTH = 1;
-    private static final int COLON_BYTE_LENGTH = 1;
+    private static final int TYPE_BYTE_LENGTH = 1;
     private static final int DOLLAR_BYTE_LENGTH = 1;
-    private static final int ASTERISK_BYTE_LENGTH = 1;
+    private static final int VERBATIM_PREFIX_LENGTH = 4;
+    // long类型十进制表示的最大长度（含符号）
+    private static final int MAX_LONG_LENGTH = 20;
     private static final int CRLF_LENGTH = 2;
+    // 编码字符串时每次复制的字符个数
+    private static final int CHAR_CHUNK_SIZE = 1024;
 
     // constants
     public static final String DEFAULT_CHARSET = "UTF-8";
@@ -143,11 +572,26 @@ public class RedisClient {
     public static final byte CR = '\r';
     public static final byte LF = '\n';
     public static final int MAX_SIZE = 8192;
+    public static final int DEFAULT_CONNECT_TIMEOUT = 2000;
 
     private Socket socket;
     private final InetSocketAddress address;
     private RedisOutputStream ros;
     private RedisInputStream ris;
+    private int protocol = 2;
+    private Consumer<RedisReply> pushListener;
+    // 通过beginCommand写入中的命令开始时已发送的字节数，没有时为-1
+    private long commandStartBytes = -1;
+    private RedisNearCache nearCache;
+    private RedisMetricsListener metricsListener;
+    private final int connectTimeoutMillis;
+    private int readTimeoutMillis;
+    // withDeadline设置的截止时间，0表示没有
+    private long deadlineNanos;
+    private RedisCircuitBreaker circuitBreaker;
+    // 正在等待响应的命令，只在设置了指标监听器时记录
+    private RedisCommand pendingCommand;
+    private long pendingStart;
 
     public RedisClient(){
         this("127.0.0.1", 6379);
@@ -158,32 +602,278 @@ public class RedisClient {
     }
 
     public RedisClient(InetSocketAddress socketAddress) {
+        this(socketAddress, DEFAULT_CONNECT_TIMEOUT, 0);
+    }
+
+    /**
+     * @param socketAddress 服务端地址
+     * @param connectTimeoutMillis 连接超时，0表示不超时
+     * @param readTimeoutMillis 读取超时，0表示不超时，超时后连接会被关闭，下次执行命令时重新连接
+     */
+    public RedisClient(InetSocketAddress socketAddress, int connectTimeoutMillis, int readTimeoutMillis) {
         address = socketAddress;
+        this.connectTimeoutMillis = connectTimeoutMillis;
+        this.readTimeoutMillis = readTimeoutMillis;
         try {
-            socket = createSocket(socketAddress);
-            ros = new RedisOutputStream(socket.getOutputStream());
-            ris = new RedisInputStream(socket.getInputStream());
+            connect();
+        } catch (RedisException e) {
+            throw e;
         } catch (Exception e) {
             throw new RedisException("Create redis client failed.", e);
         }
     }
 
-    private Socket createSocket(InetSocketAddress socketAddress) throws IOException {
+    private void connect() throws IOException {
+        int timeout = connectTimeoutMillis;
+        if (deadlineNanos != 0) {
+            long remaining = TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+            if (remaining <= 0) {
+                throw new RedisTimeoutException("Deadline exceeded before connecting to " + address);
+            }
+            timeout = timeout == 0 ? (int) Math.min(remaining, Integer.MAX_VALUE) : (int) Math.min(remaining, timeout);
+        }
         Socket socket = new Socket();
-        socket.setReuseAddress(true);
-        socket.setKeepAlive(true);
-        socket.setTcpNoDelay(true);
-        socket.setSoLinger(true, 0);
+        try {
+            socket.setReuseAddress(true);
+            socket.setKeepAlive(true);
+            socket.setTcpNoDelay(true);
+            socket.setSoLinger(true, 0);
+            socket.setSoTimeout(readTimeoutMillis);
+            socket.connect(address, timeout);
+        } catch (IOException e) {
+            socket.close();
+            if (circuitBreaker != null) {
+                circuitBreaker.onFailure();
+            }
+            if (e instanceof SocketTimeoutException) {
+                throw new RedisTimeoutException("Connect to " + address + " timed out after " + timeout + "ms.", e);
+            }
+            throw e;
+        }
+        this.socket = socket;
+        ros = new RedisOutputStream(socket.getOutputStream());
+        ris = new RedisInputStream(socket.getInputStream());
+        ris.bind(socket, readTimeoutMillis, circuitBreaker);
+        ris.setDeadline(deadlineNanos);
+    }
 
-        socket.connect(socketAddress);
-        return socket;
+    /**
+     * 连接已断开时重新连接，调用方据此区分命令发送前和发送后的失败
+     */
+    void ensureConnected() {
+        try {
+            checkConnectState();
+        } catch (RedisException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new RedisException("Connect failed.", e);
+        }
     }
 
     private void checkConnectState() throws IOException {
+        if (deadlineNanos != 0 && deadlineNanos - System.nanoTime() <= 0) {
+            throw new RedisTimeoutException("Deadline exceeded before sending command.");
+        }
         if (socket == null || socket.isClosed() || !socket.isConnected()) {
-            socket = createSocket(address);
-            ros = new RedisOutputStream(socket.getOutputStream());
-            ris = new RedisInputStream(socket.getInputStream());
+            // 超时后连接已被关闭，熔断器打开期间在这里立即失败
+            if (circuitBreaker != null) {
+                circuitBreaker.acquire();
+            }
+            connect();
+            ris.setPushListener(pushHandler());
+            ros.setMetricsListener(metricsListener);
+            ris.setMetricsListener(metricsListener);
+            if (metricsListener != null) {
+                metricsListener.onReconnect(address);
+            }
+            if (protocol != 2) {
+                // 重新连接后恢复协议版本
+                ros.writeCommand(RedisCommand.HELLO.raw, encodeArgs(String.valueOf(protocol)));
+                ros.flush();
+                ris.readReply();
+            }
+            if (nearCache != null) {
+                // 断开期间的失效通知已经丢失
+                nearCache.clear();
+                ros.writeCommand(RedisCommand.CLIENT.raw, encodeArgs(nearCache.trackingArgs()));
+                ros.flush();
+                ris.readReply();
+            }
+        }
+    }
+
+    private Consumer<RedisReply> pushHandler() {
+        if (nearCache == null) {
+            return pushListener;
+        }
+        RedisNearCache cache = nearCache;
+        Consumer<RedisReply> listener = pushListener;
+        return reply -> {
+            if (!cache.onPush(reply) && listener != null) {
+                listener.accept(reply);
+            }
+        };
+    }
+
+    /**
+     * 切换协议版本，切换成功后断线重连时会自动重新切换
+     * @param protocol 协议版本，2或3
+     * @return 服务端信息，失败时为错误响应
+     */
+    public RedisReply hello(int protocol) {
+        RedisReply reply = execAndReturn(RedisCommand.HELLO, String.valueOf(protocol));
+        if (reply.getType() != RedisReplyType.ERRORS && reply.getType() != RedisReplyType.BLOB_ERRORS) {
+            this.protocol = protocol;
+        }
+        return reply;
+    }
+
+    /**
+     * @return 当前使用的协议版本
+     */
+    public int getProtocol() {
+        return protocol;
+    }
+
+    /**
+     * 设置RESP3 Push消息的监听器，如：客户端缓存的失效通知。
+     * Push消息不会作为命令的响应返回，没有设置监听器时被丢弃，订阅和取消订阅的确认除外。
+     * @param pushListener 监听器，在读取响应的线程中执行，为null时丢弃Push消息
+     */
+    public void setPushListener(Consumer<RedisReply> pushListener) {
+        this.pushListener = pushListener;
+        if (ris != null) {
+            ris.setPushListener(pushHandler());
+        }
+    }
+
+    /**
+     * 设置指标监听器，为null时不统计
+     * @param metricsListener 监听器，如：{@link RedisMetrics}
+     */
+    public void setMetricsListener(RedisMetricsListener metricsListener) {
+        this.metricsListener = metricsListener;
+        this.pendingCommand = null;
+        ros.setMetricsListener(metricsListener);
+        ris.setMetricsListener(metricsListener);
+    }
+
+    public RedisMetricsListener getMetricsListener() {
+        return metricsListener;
+    }
+
+    /**
+     * 设置读取超时，超时后连接会被关闭并抛出{@link RedisTimeoutException}，下次执行命令时重新连接
+     * @param readTimeoutMillis 读取超时，0表示不超时，订阅和阻塞命令需要不超时或足够长的超时
+     */
+    public void setReadTimeout(int readTimeoutMillis) {
+        this.readTimeoutMillis = readTimeoutMillis;
+        try {
+            ris.setReadTimeout(readTimeoutMillis);
+        } catch (IOException e) {
+            throw new RedisException("Set read timeout failed.", e);
+        }
+    }
+
+    public int getReadTimeout() {
+        return readTimeoutMillis;
+    }
+
+    /**
+     * 设置熔断器，连接失败和读取超时计为失败，熔断器打开期间重新连接立即失败
+     * @param circuitBreaker 熔断器，为null时不使用
+     */
+    public void setCircuitBreaker(RedisCircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+        ris.bind(socket, readTimeoutMillis, circuitBreaker);
+    }
+
+    public RedisCircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    /**
+     * 在截止时间内执行操作，包括其中的重新连接、发送命令和读取响应。
+     * 超过截止时间抛出{@link RedisTimeoutException}，正在读取的响应无法继续读取，连接会被关闭。
+     * 嵌套调用时使用较早的截止时间。
+     * <pre>
+     * RedisReply reply = redisClient.withDeadline(50, client -&gt; client.execAndReturn(RedisCommand.GET, "key"));
+     * </pre>
+     * @param timeoutMillis 从现在开始的超时时间
+     * @param action 操作
+     * @return 操作的结果
+     */
+    public <T> T withDeadline(long timeoutMillis, Function<RedisClient, T> action) {
+        long previous = deadlineNanos;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        if (previous != 0 && previous - deadline < 0) {
+            deadline = previous;
+        }
+        setDeadline(deadline);
+        try {
+            return action.apply(this);
+        } finally {
+            setDeadline(previous);
+        }
+    }
+
+    private void setDeadline(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+        try {
+            ris.setDeadline(deadlineNanos);
+        } catch (IOException e) {
+            throw new RedisException("Set deadline failed.", e);
+        }
+    }
+
+    /**
+     * 开启客户端缓存，之后GET、HGET和HGETALL的结果会缓存在本地，直到服务端通知失效。
+     * 非重定向模式需要服务端支持RESP3，会自动切换到RESP3。缓存的响应会被多次返回，不要修改。
+     * @param config 缓存配置
+     * @return 客户端缓存
+     */
+    public RedisNearCache enableNearCache(RedisNearCache.Config config) {
+        if (nearCache != null) {
+            throw new RedisException("Near cache is already enabled.");
+        }
+        if (!config.isRedirect() && protocol != 3) {
+            RedisReply hello = hello(3);
+            if (protocol != 3) {
+                throw new RedisException("RESP3 is required by near cache: " + hello.getData());
+            }
+        }
+        RedisNearCache cache = new RedisNearCache(address, config);
+        RedisReply reply = execAndReturn(RedisCommand.CLIENT, cache.trackingArgs());
+        if (reply.getType() == RedisReplyType.ERRORS) {
+            cache.close();
+            throw new RedisException("Enable client tracking failed: " + reply.getData());
+        }
+        nearCache = cache;
+        ris.setPushListener(pushHandler());
+        return cache;
+    }
+
+    /**
+     * @return 客户端缓存，未开启时为null
+     */
+    public RedisNearCache getNearCache() {
+        return nearCache;
+    }
+
+    /**
+     * 关闭客户端缓存
+     */
+    public void disableNearCache() {
+        if (nearCache == null) {
+            return;
+        }
+        RedisNearCache cache = nearCache;
+        nearCache = null;
+        ris.setPushListener(pushHandler());
+        try {
+            exec(RedisCommand.CLIENT, "TRACKING", "off");
+        } finally {
+            cache.close();
         }
     }
 
@@ -204,7 +894,9 @@ public class RedisClient {
         }
         execCommand(command, strings.toArray(new String[0]));
         try {
-            return ris.readReply();
+            return receive();
+        } catch (RedisException e) {
+            throw e;
         } catch (Exception e) {
             throw new RedisException("Execute command failed.", e);
         }
@@ -226,7 +918,9 @@ public class RedisClient {
         }
         execCommand(command, strings.toArray(new String[0]));
         try {
-            return ris.readReplies();
+            return receiveAll();
+        } catch (RedisException e) {
+            throw e;
         } catch (Exception e) {
             throw new RedisException("Execute command failed.", e);
         }
@@ -240,18 +934,33 @@ public class RedisClient {
      */
     @Deprecated
     public RedisReply execAndReturn(RedisCommand command, String ...args) {
-        execCommand(command.name(), args);
+        if (nearCache != null) {
+            try {
+                return execAndReturn(command, encodeArgs(args));
+            } catch (RedisException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new RedisException("Execute command failed.", e);
+            }
+        }
+        begin(command);
+        execCommand(command.raw, args);
         try {
-            return ris.readReply();
+            return receive();
+        } catch (RedisException e) {
+            throw e;
         } catch (Exception e) {
             throw new RedisException("Execute command failed.", e);
         }
     }
 
     public List<RedisReply> execAndReturnMore(RedisCommand command, String ...args) {
-        execCommand(command.name(), args);
+        begin(command);
+        execCommand(command.raw, args);
         try {
-            return ris.readReplies();
+            return receiveAll();
+        } catch (RedisException e) {
+            throw e;
         } catch (Exception e) {
             throw new RedisException("Execute command failed.", e);
         }
@@ -272,7 +981,9 @@ public class RedisClient {
         }
         try {
             execCommand(command, strings.toArray(new String[0]));
-            ris.readReply();
+            receive();
+        } catch (RedisException e) {
+            throw e;
         } catch (Exception e) {
             throw new RedisException("Execute command failed.", e);
         }
@@ -285,50 +996,550 @@ public class RedisClient {
      */
     public void exec(RedisCommand command, String ...args) {
         try {
-            execCommand(command.name(), args);
-            ris.readReply();
+            begin(command);
+            execCommand(command.raw, args);
+            receive();
+        } catch (RedisException e) {
+            throw e;
         } catch (Exception e) {
             throw new RedisException("Execute command failed.", e);
         }
     }
 
-    private void execCommand(String command, String ...args) {
-        try {
-            byte[] commandBytes = command.getBytes(DEFAULT_CHARSET);
-            byte[][] argBytes = new byte[args.length][];
-            for (int i = 0; i < args.length; i++) {
-                argBytes[i] = args[i].getBytes(DEFAULT_CHARSET);
-            }
-            doExecCommand(commandBytes, argBytes);
-        } catch (Exception e) {
-            throw new RedisException("Execute command failed.", e);
-        }
+    /**
+     * 执行无参数的命令
+     * @param command redis命令，如：ping
+     */
+    public void exec(RedisCommand command) {
+        exec(command, new byte[0][]);
     }
 
-    private void doExecCommand(byte[] command, byte[][] args) {
+    /**
+     * 执行命令，参数按原样发送，不做字符集转换
+     * @param command redis命令，如：set
+     * @param args redis命令参数
+     */
+    public void exec(RedisCommand command, byte[] ...args) {
         try {
-            ros.reset();
-            checkConnectState();
-            ros.write(ASTERISK_BYTE);
-            ros.writeIntCrLf(args.length + 1);
-            ros.write(DOLLAR_BYTE);
-            ros.writeIntCrLf(command.length);
-            ros.write(command);
-            ros.writeCrLf();
-
-            for (final byte[] arg : args) {
-                ros.write(DOLLAR_BYTE);
-                ros.writeIntCrLf(arg.length);
-                ros.write(arg);
-                ros.writeCrLf();
-            }
-            ros.flush();
+            doExecCommand(command, args);
+            receive();
+        } catch (RedisException e) {
+            throw e;
         } catch (Exception e) {
             throw new RedisException("Execute command failed.", e);
         }
     }
 
+    /**
+     * 执行命令，发送每个参数position到limit之间的数据，不会改变参数的position
+     * @param command redis命令，如：set
+     * @param args redis命令参数
+     */
+    public void exec(RedisCommand command, ByteBuffer ...args) {
+        try {
+            doExecCommand(command, args);
+            receive();
+        } catch (RedisException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RedisException("Execute command failed.", e);
+        }
+    }
+
+    /**
+     * 执行无参数的命令并返回结果
+     * @param command redis命令，如：ping
+     * @return 执行结果
+     */
+    public RedisReply execAndReturn(RedisCommand command) {
+        return execAndReturn(command, new byte[0][]);
+    }
+
+    /**
+     * 执行命令并返回结果，参数按原样发送，不做字符集转换
+     * @param command redis命令，如：get
+     * @param args redis命令参数
+     * @return 执行结果，可通过{@link RedisReply#getBytes()}获取原始数据
+     */
+    public RedisReply execAndReturn(RedisCommand command, byte[] ...args) {
+        if (nearCache != null && RedisNearCache.isCacheable(command, args)) {
+            return execAndReturnCached(command, args);
+        }
+        doExecCommand(command, args);
+        try {
+            return receive();
+        } catch (RedisException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RedisException("Execute command failed.", e);
+        }
+    }
+
+    private RedisReply execAndReturnCached(RedisCommand command, byte[][] args) {
+        RedisNearCache cache = nearCache;
+        try {
+            checkConnectState();
+            // 先处理已经到达的失效通知，不会等待服务端
+            ris.drainPushes();
+            RedisReply reply = cache.get(command, args);
+            if (reply != null) {
+                return reply;
+            }
+            long stamp = cache.stamp();
+            doExecCommand(command, args);
+            reply = receive();
+            cache.put(command, args, reply, stamp);
+            return reply;
+        } catch (RedisException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RedisException("Execute command failed.", e);
+        }
+    }
+
+    /**
+     * 执行命令并返回结果，发送每个参数position到limit之间的数据，不会改变参数的position
+     * @param command redis命令，如：get
+     * @param args redis命令参数
+     * @return 执行结果，可通过{@link RedisReply#getByteBuffer()}获取原始数据
+     */
+    public RedisReply execAndReturn(RedisCommand command, ByteBuffer ...args) {
+        doExecCommand(command, args);
+        try {
+            return receive();
+        } catch (RedisException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RedisException("Execute command failed.", e);
+        }
+    }
+
+    /**
+     * 执行命令并返回结果，参数从数据源分段发送，适用于很大的值
+     * @param command redis命令，如：set
+     * @param args redis命令参数
+     * @return 执行结果
+     */
+    public RedisReply execAndReturn(RedisCommand command, RedisBulkValue ...args) {
+        try {
+            checkConnectState();
+            begin(command);
+            ros.reset();
+            ros.writeCommand(command.raw, args);
+            ros.flush();
+        } catch (Exception e) {
+            // 命令只发送了一部分，连接无法继续使用
+            closeSocket();
+            throw e instanceof RedisException ? (RedisException) e : new RedisException("Execute command failed.", e);
+        }
+        try {
+            return receive();
+        } catch (RedisException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RedisException("Execute command failed.", e);
+        }
+    }
+
+    /**
+     * 执行返回Bulk Strings的命令，如：get，把值分段写入out，不在内存中保存完整的值
+     * @param command redis命令，如：get
+     * @param out 输出流，不会被关闭，写入失败时抛出异常，连接仍然可以继续使用
+     * @param args redis命令参数
+     * @return 值的长度，key不存在时为-1
+     */
+    public long execAndTransfer(RedisCommand command, OutputStream out, String ...args) {
+        try {
+            return execAndTransfer(command, out, encodeArgs(args));
+        } catch (RedisException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RedisException("Execute command failed.", e);
+        }
+    }
+
+    public long execAndTransfer(RedisCommand command, OutputStream out, byte[] ...args) {
+        doExecCommand(command, args);
+        try {
+            long len = ris.readBulkTo(out);
+            if (metricsListener != null) {
+                complete(len < 0 ? RedisReplyType.NULLS : RedisReplyType.BULK_STRINGS);
+            }
+            return len;
+        } catch (RedisException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RedisException("Execute command failed.", e);
+        }
+    }
+
+    public long execAndTransfer(RedisCommand command, WritableByteChannel out, String ...args) {
+        return execAndTransfer(command, Channels.newOutputStream(out), args);
+    }
+
+    public long execAndTransfer(RedisCommand command, WritableByteChannel out, byte[] ...args) {
+        return execAndTransfer(command, Channels.newOutputStream(out), args);
+    }
+
+    void closeSocket() {
+        try {
+            if (socket != null) {
+                socket.close();
+            }
+        } catch (IOException ignored) {
+        }
+    }
+
+    public List<RedisReply> execAndReturnMore(RedisCommand command) {
+        return execAndReturnMore(command, new byte[0][]);
+    }
+
+    public List<RedisReply> execAndReturnMore(RedisCommand command, byte[] ...args) {
+        doExecCommand(command, args);
+        try {
+            return receiveAll();
+        } catch (RedisException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RedisException("Execute command failed.", e);
+        }
+    }
+
+    private void execCommand(String command, String ...args) {
+        try {
+            execCommand(encodeCommand(command.getBytes(DEFAULT_CHARSET)), args);
+        } catch (RedisException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RedisException("Execute command failed.", e);
+        }
+    }
+
+    private void execCommand(byte[] command, String ...args) {
+        try {
+            doExecCommand(command, encodeArgs(args));
+        } catch (RedisException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RedisException("Execute command failed.", e);
+        }
+    }
+
+    static byte[][] encodeArgs(String ...args) throws UnsupportedEncodingException {
+        byte[][] argBytes = new byte[args.length][];
+        for (int i = 0; i < args.length; i++) {
+            argBytes[i] = args[i].getBytes(DEFAULT_CHARSET);
+        }
+        return argBytes;
+    }
+
+    /**
+     * 编码命令名
+     * @param name 命令名，如：SET
+     * @return $len\r\nNAME\r\n
+     */
+    static byte[] encodeCommand(byte[] name) {
+        byte[] len = Integer.toString(name.length).getBytes(StandardCharsets.US_ASCII);
+        byte[] raw = new byte[DOLLAR_BYTE_LENGTH + len.length + CRLF_LENGTH + name.length + CRLF_LENGTH];
+        int pos = 0;
+        raw[pos++] = DOLLAR_BYTE;
+        System.arraycopy(len, 0, raw, pos, len.length);
+        pos += len.length;
+        raw[pos++] = CR;
+        raw[pos++] = LF;
+        System.arraycopy(name, 0, raw, pos, name.length);
+        pos += name.length;
+        raw[pos++] = CR;
+        raw[pos] = LF;
+        return raw;
+    }
+
+    private void doExecCommand(RedisCommand command, byte[][] args) {
+        begin(command);
+        doExecCommand(command.raw, args);
+    }
+
+    private void doExecCommand(RedisCommand command, ByteBuffer[] args) {
+        begin(command);
+        doExecCommand(command.raw, args);
+    }
+
+    private void begin(RedisCommand command) {
+        if (metricsListener != null) {
+            pendingCommand = command;
+            pendingStart = System.nanoTime();
+            ris.resetIoWaitNanos();
+        }
+    }
+
+    private RedisReply receive() throws IOException {
+        RedisReply reply = ris.readReply();
+        if (metricsListener != null) {
+            complete(reply.getType());
+        }
+        return reply;
+    }
+
+    private List<RedisReply> receiveAll() throws IOException {
+        List<RedisReply> replies = ris.readReplies();
+        if (metricsListener != null) {
+            for (RedisReply reply : replies) {
+                complete(reply.getType());
+            }
+        }
+        return replies;
+    }
+
+    private void complete(RedisReplyType type) {
+        metricsListener.onReply(type);
+        if (pendingCommand != null) {
+            metricsListener.onCommand(pendingCommand, System.nanoTime() - pendingStart, ris.getIoWaitNanos());
+            pendingCommand = null;
+        }
+    }
+
+    private void doExecCommand(byte[] command, byte[][] args) {
+        try {
+            ros.reset();
+            sendCommand(command, args);
+            ros.flush();
+        } catch (RedisException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RedisException("Execute command failed.", e);
+        }
+    }
+
+    private void doExecCommand(byte[] command, ByteBuffer[] args) {
+        try {
+            ros.reset();
+            sendCommand(command, args);
+            ros.flush();
+        } catch (RedisException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RedisException("Execute command failed.", e);
+        }
+    }
+
+    /**
+     * 写入命令但不发送，用于管道等批量发送的场景
+     * @param command 编码后的命令名，见{@link #encodeCommand(byte[])}
+     * @param args 命令参数
+     */
+    void sendCommand(byte[] command, byte[][] args) throws IOException {
+        checkConnectState();
+        ros.writeCommand(command, args);
+    }
+
+    void sendCommand(byte[] command, ByteBuffer[] args) throws IOException {
+        checkConnectState();
+        ros.writeCommand(command, args);
+    }
+
+    /**
+     * @return 当前连接已经发送的字节数
+     */
+    long sentBytes() {
+        return ros.getWrittenBytes();
+    }
+
+    /**
+     * 开始写入一条命令，由调用方直接写入argc个参数，之后调用{@link #flush()}发送
+     * @return 输出流
+     */
+    RedisOutputStream beginCommand(RedisCommand command, int argc) throws IOException {
+        checkConnectState();
+        begin(command);
+        ros.reset();
+        commandStartBytes = ros.getWrittenBytes();
+        ros.writeCommandHeader(command.raw, argc);
+        return ros;
+    }
+
+    /**
+     * 放弃通过{@link #beginCommand}写入、还没有调用{@link #flush()}的命令。
+     * 部分数据已经发出时服务端仍在等待剩余的参数，只能关闭连接。
+     */
+    void abortCommand() {
+        if (commandStartBytes < 0) {
+            return;
+        }
+        if (ros.getWrittenBytes() != commandStartBytes) {
+            closeSocket();
+        } else {
+            ros.reset();
+        }
+        commandStartBytes = -1;
+    }
+
+    /**
+     * 发送已写入的命令
+     */
+    void flush() throws IOException {
+        ros.flush();
+        commandStartBytes = -1;
+    }
+
+    /**
+     * 读取一个响应
+     */
+    RedisReply readReply() throws IOException {
+        return receive();
+    }
+
+    /**
+     * 读取一个响应，以及已经到达客户端的后续响应
+     */
+    List<RedisReply> readReplies() throws IOException {
+        return receiveAll();
+    }
+
+    /**
+     * 创建管道，命令会先写入缓冲区，调用{@link RedisPipeline#sync()}时一次发送并按顺序读取所有响应。
+     * 管道使用期间不要通过当前客户端执行其他命令。
+     * @return 管道
+     */
+    public RedisPipeline pipelined() {
+        ros.reset();
+        return new RedisPipeline(this);
+    }
+
+    /**
+     * 执行Lua脚本，先使用EVALSHA，服务端返回NOSCRIPT时使用EVAL，同时会把脚本缓存到服务端
+     * @param script 脚本
+     * @param keys 脚本中的KEYS
+     * @param args 脚本中的ARGV
+     * @return 执行结果
+     */
+    public RedisReply eval(RedisScript script, String[] keys, String ...args) {
+        try {
+            return eval(script, encodeArgs(keys), encodeArgs(args));
+        } catch (RedisException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RedisException("Execute command failed.", e);
+        }
+    }
+
+    public RedisReply eval(RedisScript script, byte[][] keys, byte[] ...args) {
+        byte[][] evalArgs = new byte[2 + keys.length + args.length][];
+        evalArgs[0] = script.sha1Bytes();
+        evalArgs[1] = Integer.toString(keys.length).getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(keys, 0, evalArgs, 2, keys.length);
+        System.arraycopy(args, 0, evalArgs, 2 + keys.length, args.length);
+        RedisReply reply = execAndReturn(RedisCommand.EVALSHA, evalArgs);
+        if (reply.getType() == RedisReplyType.ERRORS && ((String) reply.getData()).startsWith("NOSCRIPT")) {
+            evalArgs[0] = script.body();
+            reply = execAndReturn(RedisCommand.EVAL, evalArgs);
+        }
+        return reply;
+    }
+
+    /**
+     * 开始事务，MULTI、命令和EXEC会在{@link RedisTransaction#commit()}时一次发送。
+     * 事务提交之前不要通过当前客户端执行其他命令。
+     * @return 事务
+     */
+    public RedisTransaction multi() {
+        ros.reset();
+        return new RedisTransaction(this);
+    }
+
+    /**
+     * 使用SCAN遍历当前数据库中的key，迭代结束或关闭之前不要通过当前客户端执行其他命令
+     * @param params 扫描参数
+     * @return key的迭代器
+     */
+    public RedisScanIterator<RedisReply> scan(RedisScanIterator.Params params) {
+        ros.reset();
+        return new RedisScanIterator<>(this, RedisCommand.SCAN, null, params, RedisScanIterator::elements);
+    }
+
+    /**
+     * 使用HSCAN遍历hash
+     * @param key hash的key
+     * @param params 扫描参数，TYPE不生效
+     * @return field和value的迭代器
+     */
+    public RedisScanIterator<Map.Entry<RedisReply, RedisReply>> hscan(String key, RedisScanIterator.Params params) {
+        ros.reset();
+        return new RedisScanIterator<>(this, RedisCommand.HSCAN, key.getBytes(StandardCharsets.UTF_8), params, RedisScanIterator::pairs);
+    }
+
+    /**
+     * 使用SSCAN遍历set
+     * @param key set的key
+     * @param params 扫描参数，TYPE不生效
+     * @return member的迭代器
+     */
+    public RedisScanIterator<RedisReply> sscan(String key, RedisScanIterator.Params params) {
+        ros.reset();
+        return new RedisScanIterator<>(this, RedisCommand.SSCAN, key.getBytes(StandardCharsets.UTF_8), params, RedisScanIterator::elements);
+    }
+
+    /**
+     * 使用ZSCAN遍历sorted set
+     * @param key sorted set的key
+     * @param params 扫描参数，TYPE不生效
+     * @return member和score的迭代器
+     */
+    public RedisScanIterator<Map.Entry<RedisReply, RedisReply>> zscan(String key, RedisScanIterator.Params params) {
+        ros.reset();
+        return new RedisScanIterator<>(this, RedisCommand.ZSCAN, key.getBytes(StandardCharsets.UTF_8), params, RedisScanIterator::pairs);
+    }
+
+    /**
+     * WATCH指定的key后执行事务，key被其他客户端修改导致事务未执行时重试，最多重试5次
+     * @param fn 读取当前数据并创建事务，返回null时放弃
+     * @param keys 需要WATCH的key
+     * @return 事务中每个命令的响应，放弃时为null
+     */
+    public List<RedisReply> watchAndRetry(Function<RedisClient, RedisTransaction> fn, String ...keys) {
+        return watchAndRetry(5, 10, fn, keys);
+    }
+
+    /**
+     * WATCH指定的key后执行事务，key被其他客户端修改导致事务未执行时重试
+     * @param maxRetries 最多重试次数
+     * @param backoffMillis 第一次重试前的等待时间，之后每次加倍并加入随机值
+     * @param fn 读取当前数据并创建事务，返回null时放弃
+     * @param keys 需要WATCH的key
+     * @return 事务中每个命令的响应，放弃时为null
+     */
+    public List<RedisReply> watchAndRetry(int maxRetries, long backoffMillis, Function<RedisClient, RedisTransaction> fn, String ...keys) {
+        for (int attempt = 0; ; attempt++) {
+            RedisReply watch = execAndReturn(RedisCommand.WATCH, keys);
+            if (watch.getType() == RedisReplyType.ERRORS) {
+                throw new RedisException("Watch failed: " + watch.getData());
+            }
+            RedisTransaction transaction = fn.apply(this);
+            if (transaction == null) {
+                exec(RedisCommand.UNWATCH);
+                return null;
+            }
+            List<RedisReply> replies = transaction.commit();
+            if (replies != null) {
+                return replies;
+            }
+            if (attempt >= maxRetries) {
+                throw new RedisException("Transaction aborted after " + maxRetries + " retries, keys: " + Arrays.toString(keys));
+            }
+            long backoff = backoffMillis << Math.min(attempt, 10);
+            try {
+                Thread.sleep(backoff + ThreadLocalRandom.current().nextLong(backoff + 1));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RedisException("Transaction interrupted.", e);
+            }
+        }
+    }
+
     public void close() {
+        if (nearCache != null) {
+            nearCache.close();
+            nearCache = null;
+        }
         try {
             if (socket != null) {
                 socket.close();
@@ -350,6 +1561,10 @@ public class RedisClient {
         protected OutputStream fos;
         protected byte[] buf;
         protected int count = 0;
+        private RedisMetricsListener metricsListener;
+        private char[] chars;
+        // 已经写入底层输出流的字节数
+        private long written;
 
         public RedisOutputStream(OutputStream fos) {
             this(fos, MAX_SIZE);
@@ -360,40 +1575,317 @@ public class RedisClient {
             this.buf = new byte[size];
         }
 
-        public synchronized void write(byte b) throws IOException {
-            if (count + 1 >= buf.length) {
-                fos.write(buf, 0, count);
-                fos.flush();
-                count = 0;
+        public void setMetricsListener(RedisMetricsListener metricsListener) {
+            this.metricsListener = metricsListener;
+        }
+
+        public void write(byte b) throws IOException {
+            if (count + 1 >= buf.length) {
+                flush();
+            }
+            buf[count++] = b;
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            if (len >= buf.length) {
+                flush();
+                fos.write(b, off, len);
+                written += len;
+                if (metricsListener != null) {
+                    metricsListener.onBytesWritten(len);
+                }
+            } else {
+                if (len >= buf.length - count) {
+                    flush();
+                }
+                System.arraycopy(b, off, buf, count, len);
+                count += len;
+            }
+        }
+
+        /**
+         * 以十进制写入整数
+         */
+        @Override
+        public void write(int b) throws IOException {
+            writeLong(b);
+        }
+
+        /**
+         * 以十进制写入整数，直接写入缓冲区，不产生临时对象
+         */
+        public void writeLong(long value) throws IOException {
+            if (count + MAX_LONG_LENGTH >= buf.length) {
+                flush();
+            }
+            if (value < 0) {
+                buf[count++] = '-';
+            } else {
+                value = -value;
+            }
+            // 使用负数计算，避免Long.MIN_VALUE溢出
+            int size = 1;
+            for (long v = value / 10; v != 0; v /= 10) {
+                size++;
+            }
+            int p = count + size;
+            count = p;
+            do {
+                buf[--p] = (byte) ('0' - value % 10);
+                value /= 10;
+            } while (value != 0);
+        }
+
+        /**
+         * 写入一条命令：*N\r\n$len\r\nNAME\r\n$len\r\narg\r\n...
+         * @param command 编码后的命令名，见{@link #encodeCommand(byte[])}
+         * @param args 命令参数
+         */
+        public void writeCommand(byte[] command, byte[][] args) throws IOException {
+            write(ASTERISK_BYTE);
+            writeIntCrLf(args.length + 1);
+            write(command);
+            for (final byte[] arg : args) {
+                write(DOLLAR_BYTE);
+                writeIntCrLf(arg.length);
+                write(arg);
+                writeCrLf();
+            }
+        }
+
+        public void writeCommand(byte[] command, ByteBuffer[] args) throws IOException {
+            write(ASTERISK_BYTE);
+            writeIntCrLf(args.length + 1);
+            write(command);
+            for (final ByteBuffer arg : args) {
+                write(DOLLAR_BYTE);
+                writeIntCrLf(arg.remaining());
+                write(arg);
+                writeCrLf();
+            }
+        }
+
+        public void writeCommand(byte[] command, RedisBulkValue[] args) throws IOException {
+            write(ASTERISK_BYTE);
+            writeIntCrLf(args.length + 1);
+            write(command);
+            for (final RedisBulkValue arg : args) {
+                write(DOLLAR_BYTE);
+                writeLongCrLf(arg.length());
+                arg.writeTo(this);
+                writeCrLf();
+            }
+        }
+
+        /**
+         * 写入命令头：*N\r\n$len\r\nNAME\r\n，之后需要写入argc个参数
+         */
+        public void writeCommandHeader(byte[] command, int argc) throws IOException {
+            write(ASTERISK_BYTE);
+            writeIntCrLf(argc + 1);
+            write(command);
+        }
+
+        /**
+         * 写入一个Bulk Strings参数：$len\r\ndata\r\n
+         */
+        public void writeBulk(byte[] b) throws IOException {
+            writeBulk(b, 0, b.length);
+        }
+
+        /**
+         * 写入b中off开始的len个字节作为一个Bulk Strings参数
+         */
+        public void writeBulk(byte[] b, int off, int len) throws IOException {
+            write(DOLLAR_BYTE);
+            writeIntCrLf(len);
+            write(b, off, len);
+            writeCrLf();
+        }
+
+        /**
+         * 以UTF-8写入一个Bulk Strings参数，字符直接编码到缓冲区，不产生临时的byte数组
+         */
+        public void writeBulk(String s) throws IOException {
+            int len = s.length();
+            if (chars == null) {
+                chars = new char[CHAR_CHUNK_SIZE];
+            }
+            // 先按块复制到char数组，计算长度和编码都只访问数组
+            if (len <= CHAR_CHUNK_SIZE) {
+                s.getChars(0, len, chars, 0);
+                write(DOLLAR_BYTE);
+                writeIntCrLf(utf8Length(chars, 0, len));
+                writeUtf8(chars, 0, len);
+            } else {
+                int size = 0;
+                for (int i = 0, end; i < len; i = end) {
+                    end = chunkEnd(s, i);
+                    s.getChars(i, end, chars, 0);
+                    size += utf8Length(chars, 0, end - i);
+                }
+                write(DOLLAR_BYTE);
+                writeIntCrLf(size);
+                for (int i = 0, end; i < len; i = end) {
+                    end = chunkEnd(s, i);
+                    s.getChars(i, end, chars, 0);
+                    writeUtf8(chars, 0, end - i);
+                }
+            }
+            writeCrLf();
+        }
+
+        /**
+         * @return 从from开始的一块字符的结束位置，代理对不会被拆开
+         */
+        private static int chunkEnd(String s, int from) {
+            int end = Math.min(s.length(), from + CHAR_CHUNK_SIZE);
+            if (end < s.length() && Character.isHighSurrogate(s.charAt(end - 1))) {
+                end--;
+            }
+            return end;
+        }
+
+        private void writeUtf8(char[] cs, int from, int to) throws IOException {
+            int i = from;
+            while (i < to) {
+                if (buf.length - count < 4) {
+                    flush();
+                }
+                // 每个char最多3个字节，代理对4个字节，按剩余空间分段编码，段内不需要检查缓冲区
+                int end = Math.min(to, i + (buf.length - count - 1) / 3);
+                byte[] b = buf;
+                int p = count;
+                while (i < end && cs[i] < 0x80) {
+                    b[p++] = (byte) cs[i++];
+                }
+                for (; i < end; i++) {
+                    char c = cs[i];
+                    if (c < 0x80) {
+                        b[p++] = (byte) c;
+                    } else if (c < 0x800) {
+                        b[p++] = (byte) (0xc0 | (c >> 6));
+                        b[p++] = (byte) (0x80 | (c & 0x3f));
+                    } else if (Character.isHighSurrogate(c) && i + 1 < to && Character.isLowSurrogate(cs[i + 1])) {
+                        int cp = Character.toCodePoint(c, cs[++i]);
+                        b[p++] = (byte) (0xf0 | (cp >> 18));
+                        b[p++] = (byte) (0x80 | ((cp >> 12) & 0x3f));
+                        b[p++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+                        b[p++] = (byte) (0x80 | (cp & 0x3f));
+                    } else if (Character.isSurrogate(c)) {
+                        // 与String#getBytes相同，不成对的代理字符替换为?
+                        b[p++] = '?';
+                    } else {
+                        b[p++] = (byte) (0xe0 | (c >> 12));
+                        b[p++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                        b[p++] = (byte) (0x80 | (c & 0x3f));
+                    }
+                }
+                count = p;
+            }
+        }
+
+        /**
+         * 以十进制写入一个Bulk Strings参数
+         */
+        public void writeBulk(long value) throws IOException {
+            int size = value < 0 ? 2 : 1;
+            for (long v = value / 10; v != 0; v /= 10) {
+                size++;
+            }
+            write(DOLLAR_BYTE);
+            writeIntCrLf(size);
+            writeLongCrLf(value);
+        }
+
+        public void writeBulk(double value) throws IOException {
+            if (value == (long) value && Math.abs(value) < 1e15) {
+                writeBulk((long) value);
+            } else if (Double.isInfinite(value)) {
+                writeBulk(value > 0 ? "inf" : "-inf");
+            } else {
+                writeBulk(Double.toString(value));
+            }
+        }
+
+        private static int utf8Length(char[] cs, int from, int to) {
+            int size = to - from;
+            for (int i = from; i < to; i++) {
+                char c = cs[i];
+                if (c < 0x80) {
+                    continue;
+                }
+                if (c < 0x800) {
+                    size += 1;
+                } else if (Character.isHighSurrogate(c) && i + 1 < to && Character.isLowSurrogate(cs[i + 1])) {
+                    // 4个字节对应2个char
+                    size += 2;
+                    i++;
+                } else if (!Character.isSurrogate(c)) {
+                    size += 2;
+                }
+            }
+            return size;
+        }
+
+        /**
+         * 从输入流读取len个字节，直接读入缓冲区，缓冲区满时发送
+         */
+        public void transferFrom(InputStream in, long len) throws IOException {
+            long remaining = len;
+            while (remaining > 0) {
+                if (count == buf.length) {
+                    flush();
+                }
+                int n = in.read(buf, count, (int) Math.min(buf.length - count, remaining));
+                if (n < 0) {
+                    throw new RedisException("Unexpected end of stream, " + remaining + " of " + len + " bytes missing.");
+                }
+                count += n;
+                remaining -= n;
             }
-            buf[count++] = b;
         }
 
-        @Override
-        public synchronized void write(final byte[] b, final int off, final int len) throws IOException {
-            if (len >= buf.length) {
-                flush();
-                fos.write(b, off, len);
-            } else {
-                if (len >= buf.length - count) {
+        /**
+         * 从文件的指定位置读取len个字节，直接读入缓冲区，缓冲区满时发送，不会改变文件的位置
+         */
+        public void transferFrom(FileChannel channel, long position, long len) throws IOException {
+            long remaining = len;
+            while (remaining > 0) {
+                if (count == buf.length) {
                     flush();
                 }
-                System.arraycopy(b, off, buf, count, len);
-                count += len;
+                ByteBuffer dst = ByteBuffer.wrap(buf, count, (int) Math.min(buf.length - count, remaining));
+                int n = channel.read(dst, position + len - remaining);
+                if (n < 0) {
+                    throw new RedisException("Unexpected end of file, " + remaining + " of " + len + " bytes missing.");
+                }
+                count += n;
+                remaining -= n;
             }
         }
 
-        @Override
-        public synchronized void write(int b) throws IOException {
-            byte[] bytes = Integer.valueOf(b).toString().getBytes(DEFAULT_CHARSET);
-            if (count + bytes.length >= buf.length) {
-                flush();
+        /**
+         * 写入b中position到limit之间的数据，不会改变b的position
+         */
+        public void write(final ByteBuffer b) throws IOException {
+            if (b.hasArray()) {
+                write(b.array(), b.arrayOffset() + b.position(), b.remaining());
+                return;
+            }
+            ByteBuffer src = b.duplicate();
+            while (src.hasRemaining()) {
+                if (count == buf.length) {
+                    flush();
+                }
+                int len = Math.min(src.remaining(), buf.length - count);
+                src.get(buf, count, len);
+                count += len;
             }
-            System.arraycopy(bytes, 0, buf, count, bytes.length);
-            count += bytes.length;
         }
 
-        public synchronized void writeCrLf() throws IOException {
+        public void writeCrLf() throws IOException {
             if (count + CRLF.length() >= buf.length) {
                 flush();
             }
@@ -401,31 +1893,304 @@ public class RedisClient {
             buf[count++] = LF;
         }
 
-        public synchronized void writeIntCrLf(int value) throws IOException {
-            write(value);
+        public void writeIntCrLf(int value) throws IOException {
+            writeLong(value);
+            writeCrLf();
+        }
+
+        public void writeLongCrLf(long value) throws IOException {
+            writeLong(value);
             writeCrLf();
         }
 
         @Override
         public void flush() throws IOException {
             fos.write(buf, 0, count);
+            written += count;
             super.flush();
+            if (metricsListener != null && count > 0) {
+                metricsListener.onBytesWritten(count);
+            }
             count = 0;
         }
 
         public void reset() {
             count = 0;
         }
+
+        /**
+         * @return 已经写入底层输出流的字节数，缓冲区满时会自动写入，不包括缓冲区中的数据
+         */
+        public long getWrittenBytes() {
+            return written;
+        }
+    }
+
+    /**
+     * RESP响应扫描器，逐字节识别一个完整响应的边界。
+     * 扫描状态在多次调用之间保留，因此响应可以跨越任意多次读取，并从上次中断的位置继续。
+     */
+    static final class RedisReplyScanner {
+        private static final int STATE_TYPE = 0;
+        private static final int STATE_LINE = 1;
+        private static final int STATE_LINE_LF = 2;
+        private static final int STATE_BULK = 3;
+        private static final int STATE_BULK_CR = 4;
+        private static final int STATE_BULK_LF = 5;
+
+        private int state = STATE_TYPE;
+        private RedisReplyType type;
+        private long number;
+        private boolean negative;
+        private long bulkRemaining;
+        // 每一层聚合类型尚未读取的元素个数
+        private int[] pending = new int[8];
+        private int depth = 0;
+
+        /**
+         * 扫描 b[from, to) 中的数据
+         * @return 当前响应结束后的下一个位置，数据不足时返回-1
+         */
+        int scan(byte[] b, int from, int to) {
+            int i = from;
+            while (i < to) {
+                switch (state) {
+                    case STATE_TYPE:
+                        try {
+                            type = RedisReplyType.of(b[i++]);
+                        } catch (RedisException e) {
+                            reset();
+                            throw e;
+                        }
+                        number = 0;
+                        negative = false;
+                        state = STATE_LINE;
+                        break;
+                    case STATE_LINE:
+                        final byte c = b[i++];
+                        if (c == CR) {
+                            state = STATE_LINE_LF;
+                        } else if (type.kind != RedisReplyType.Kind.LINE) {
+                            if (c == '-') {
+                                negative = true;
+                            } else {
+                                number = number * 10 + c - '0';
+                            }
+                        }
+                        break;
+                    case STATE_LINE_LF:
+                        expect(b[i++], LF);
+                        if (lineEnd()) {
+                            return i;
+                        }
+                        break;
+                    case STATE_BULK:
+                        int n = (int) Math.min(bulkRemaining, to - i);
+                        i += n;
+                        bulkRemaining -= n;
+                        if (bulkRemaining == 0) {
+                            state = STATE_BULK_CR;
+                        }
+                        break;
+                    case STATE_BULK_CR:
+                        expect(b[i++], CR);
+                        state = STATE_BULK_LF;
+                        break;
+                    case STATE_BULK_LF:
+                        expect(b[i++], LF);
+                        if (valueEnd()) {
+                            return i;
+                        }
+                        break;
+                    default:
+                        throw new IllegalStateException("state " + state);
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * @return 当前正在读取的Bulk Strings剩余的数据长度
+         */
+        long bulkRemaining() {
+            return state == STATE_BULK ? bulkRemaining : 0;
+        }
+
+        /**
+         * 跳过已由调用方直接读取的Bulk Strings数据
+         */
+        void bulkConsumed(long n) {
+            bulkRemaining -= n;
+            if (bulkRemaining == 0) {
+                state = STATE_BULK_CR;
+            }
+        }
+
+        void reset() {
+            state = STATE_TYPE;
+            depth = 0;
+        }
+
+        private void expect(byte actual, byte expected) {
+            if (actual != expected) {
+                reset();
+                throw new RedisException("Unexpected byte " + actual + ", expected " + expected);
+            }
+        }
+
+        private boolean lineEnd() {
+            long value = negative ? -number : number;
+            if (type.kind == RedisReplyType.Kind.BULK) {
+                if (value < 0) {
+                    return valueEnd();
+                }
+                if (value > Integer.MAX_VALUE) {
+                    reset();
+                    throw new RedisException("Bulk string too large: " + value);
+                }
+                bulkRemaining = value;
+                state = value == 0 ? STATE_BULK_CR : STATE_BULK;
+                return false;
+            }
+            if (type.kind == RedisReplyType.Kind.AGGREGATE) {
+                long elements = value < 0 ? 0 : type.elements(value);
+                if (elements == 0) {
+                    return valueEnd();
+                }
+                if (elements > Integer.MAX_VALUE) {
+                    reset();
+                    throw new RedisException("Aggregate too large: " + value);
+                }
+                if (depth == pending.length) {
+                    pending = Arrays.copyOf(pending, depth * 2);
+                }
+                pending[depth++] = (int) elements;
+                state = STATE_TYPE;
+                return false;
+            }
+            return valueEnd();
+        }
+
+        private boolean valueEnd() {
+            state = STATE_TYPE;
+            while (depth > 0) {
+                if (--pending[depth - 1] > 0) {
+                    return false;
+                }
+                depth--;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * RESP响应解码器，从任意分段到达的数据中解码出完整的响应。
+     * 数据不足时保存已读取的部分，下次调用时继续解码，阻塞和非阻塞的读取方式都可以使用。
+     */
+    static final class RedisReplyDecoder {
+        private final RedisReplyScanner scanner = new RedisReplyScanner();
+        // 跨越多段数据的响应会被拼接到frame中
+        private byte[] frame = new byte[0];
+        private int frameLen = 0;
+        private int pos;
+
+        /**
+         * 从b[from, to)中解码一个响应
+         * @return 完整的响应，数据不足时返回null，此时b[from, to)已全部被保存
+         */
+        RedisReply decode(byte[] b, int from, int to) {
+            int end;
+            try {
+                end = scanner.scan(b, from, to);
+            } catch (RuntimeException e) {
+                reset();
+                throw e;
+            }
+            if (end < 0) {
+                appendFrame(b, from, to - from);
+                pos = to;
+                return null;
+            }
+            pos = end;
+            if (frameLen == 0) {
+                return RedisReply.wrap(Arrays.copyOfRange(b, from, end), 0, end - from);
+            }
+            appendFrame(b, from, end - from);
+            // 拼接好的frame直接交给响应，下次重新分配
+            RedisReply reply = RedisReply.wrap(frame, 0, frameLen);
+            frame = new byte[0];
+            frameLen = 0;
+            return reply;
+        }
+
+        /**
+         * @return 上次解码结束的位置
+         */
+        int position() {
+            return pos;
+        }
+
+        /**
+         * @return 当前正在读取的Bulk Strings剩余的数据长度
+         */
+        long bulkRemaining() {
+            return scanner.bulkRemaining();
+        }
+
+        /**
+         * 从输入流直接读取Bulk Strings剩余的数据，不经过调用方的缓冲区
+         */
+        void readBulk(InputStream in, int len) throws IOException {
+            ensureFrame(len);
+            int remaining = len;
+            while (remaining > 0) {
+                int n = in.read(frame, frameLen, remaining);
+                if (n < 0) {
+                    reset();
+                    throw new RedisException("Unexpected end of stream.");
+                }
+                frameLen += n;
+                remaining -= n;
+            }
+            scanner.bulkConsumed(len);
+        }
+
+        void reset() {
+            scanner.reset();
+            frame = new byte[0];
+            frameLen = 0;
+        }
+
+        private void appendFrame(byte[] b, int off, int len) {
+            ensureFrame(len);
+            System.arraycopy(b, off, frame, frameLen, len);
+            frameLen += len;
+        }
+
+        private void ensureFrame(int len) {
+            if (frameLen + len > frame.length) {
+                frame = Arrays.copyOf(frame, Math.max(frame.length * 2, frameLen + len));
+            }
+        }
     }
 
     /**
      * Redis输入流，用于客户端从服务端读取数据
+     * 使用固定大小的缓冲区按需从服务端读取，一个响应可以跨越多次读取。
      */
     public static class RedisInputStream extends InputStream {
         protected InputStream fis;
         protected byte[] buf;
         protected int count = 0, pos = 0;
-        private final ByteArrayOutputStream bos;
+        private final RedisReplyDecoder decoder = new RedisReplyDecoder();
+        private Consumer<RedisReply> pushListener;
+        private RedisMetricsListener metricsListener;
+        // 设置了指标监听器时累计阻塞读取的时间
+        private long ioWaitNanos;
+        private Socket socket;
+        private int readTimeoutMillis;
+        private long deadlineNanos;
+        private RedisCircuitBreaker circuitBreaker;
 
         public RedisInputStream(InputStream fis) {
             this(fis, MAX_SIZE);
@@ -434,230 +2199,337 @@ public class RedisClient {
         public RedisInputStream(InputStream fis, int size) {
             this.fis = fis;
             this.buf = new byte[size];
-            this.bos = new ByteArrayOutputStream();
         }
 
         public RedisInputStream(String rawStr) {
-            byte[] rawBytes = rawStr.getBytes(StandardCharsets.UTF_8);
-            this.fis = new ByteArrayInputStream(rawBytes);
-            this.buf = new byte[rawBytes.length];
-            this.bos = new ByteArrayOutputStream();
+            this(new ByteArrayInputStream(rawStr.getBytes(StandardCharsets.UTF_8)));
+        }
+
+        public void setPushListener(Consumer<RedisReply> pushListener) {
+            this.pushListener = pushListener;
+        }
+
+        public void setMetricsListener(RedisMetricsListener metricsListener) {
+            this.metricsListener = metricsListener;
+        }
+
+        /**
+         * @return 上次重置之后阻塞读取网络数据的时间，只在设置了指标监听器时统计
+         */
+        public long getIoWaitNanos() {
+            return ioWaitNanos;
+        }
+
+        public void resetIoWaitNanos() {
+            ioWaitNanos = 0;
         }
 
+        /**
+         * 绑定读取数据的连接，读取超时后关闭连接并抛出{@link RedisTimeoutException}
+         * @param socket 连接
+         * @param readTimeoutMillis 读取超时，0表示不超时
+         * @param circuitBreaker 熔断器，可以为null
+         */
+        void bind(Socket socket, int readTimeoutMillis, RedisCircuitBreaker circuitBreaker) {
+            this.socket = socket;
+            this.readTimeoutMillis = readTimeoutMillis;
+            this.circuitBreaker = circuitBreaker;
+        }
+
+        /**
+         * @param deadlineNanos 截止时间，{@link System#nanoTime()}的值，0表示没有
+         */
+        void setDeadline(long deadlineNanos) throws IOException {
+            if (this.deadlineNanos != 0 && deadlineNanos == 0 && socket != null && !socket.isClosed()) {
+                socket.setSoTimeout(readTimeoutMillis);
+            }
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        void setReadTimeout(int readTimeoutMillis) throws IOException {
+            this.readTimeoutMillis = readTimeoutMillis;
+            if (socket != null && !socket.isClosed()) {
+                socket.setSoTimeout(readTimeoutMillis);
+            }
+        }
+
+        /**
+         * 读取一个响应，以及已经到达客户端的后续响应
+         */
         public List<RedisReply> readReplies() throws IOException {
-            count = 0;
-            pos = 0;
             List<RedisReply> replies = new ArrayList<>();
-            while (pos < buf.length) {
-                byte firstByte = (byte) read();
-                RedisReply reply;
-                switch (firstByte) {
-                    case PLUS_BYTE:
-                        reply = readSimpleStringsReply();
-                        break;
-                    case MINUS_BYTE:
-                        reply = readErrorsReply();
-                        break;
-                    case COLON_BYTE:
-                        reply = readIntegersReply();
-                        break;
-                    case DOLLAR_BYTE:
-                        reply = readBulkStringsReply();
-                        break;
-                    case ASTERISK_BYTE:
-                        reply = readArraysReply();
-                        break;
-                    default:
-                        throw new RedisException("Unknown protocol begin with byte " + firstByte);
-                }
-                replies.add(reply);
-            }
+            do {
+                replies.add(readReply());
+            } while (available() > 0);
             return replies;
         }
 
+        /**
+         * 读取一个完整的响应，响应只复制一次原始数据，其内容在访问时才解析。
+         * Push消息不是命令的响应，交给Push监听器处理，没有监听器时丢弃，继续读取下一个响应。
+         */
         public RedisReply readReply() throws IOException {
-            count = 0;
-            pos = 0;
-            byte firstByte = (byte) read();
-            RedisReply reply;
-            switch (firstByte) {
-                case PLUS_BYTE:
-                    reply = readSimpleStringsReply();
-                    break;
-                case MINUS_BYTE:
-                    reply = readErrorsReply();
-                    break;
-                case COLON_BYTE:
-                    reply = readIntegersReply();
-                    break;
-                case DOLLAR_BYTE:
-                    reply = readBulkStringsReply();
-                    break;
-                case ASTERISK_BYTE:
-                    reply = readArraysReply();
-                    break;
-                default:
-                    throw new RedisException("Unknown protocol begin with byte " + firstByte);
+            while (true) {
+                RedisReply reply = readFrame();
+                if (!isPush(reply)) {
+                    return reply;
+                }
+                onPush(reply);
             }
-            return reply;
         }
 
-        private String readStringCrlf() {
-            bos.reset();
-            int pre = pos;
-            while (pos < count) {
-                final byte b = buf[pos++];
-                if (b == CR) {
-                    if (buf[pos++] == LF) {
-                        break;
-                    }
+        private void onPush(RedisReply reply) {
+            if (pushListener != null) {
+                pushListener.accept(reply);
+            }
+        }
+
+        /**
+         * 处理已经到达客户端的Push消息，没有数据时立即返回
+         */
+        public void drainPushes() throws IOException {
+            while (pushListener != null && available() > 0) {
+                RedisReply reply = readFrame();
+                if (!isPush(reply)) {
+                    throw new RedisException("Unexpected reply " + reply);
                 }
+                pushListener.accept(reply);
             }
-            bos.write(buf, pre, (pos - 2) - pre);
-            return bos.toString();
         }
 
-        private int readIntegerCrlf() {
-            int value = 0;
-            boolean isNegative = false;
-            if (buf[pos] == '-') {
-                pos++;
-                isNegative = true;
+        /**
+         * 读取一个Bulk Strings响应，数据经过缓冲区分段写入out，不在内存中保存完整的值。
+         * out写入失败时仍会读完剩余的数据，连接可以继续使用。
+         * @param out 输出流，不会被关闭
+         * @return 值的长度，空响应时为-1
+         */
+        public long readBulkTo(OutputStream out) throws IOException {
+            while (true) {
+                if (pos >= count) {
+                    fill();
+                }
+                if (buf[pos] == DOLLAR_BYTE) {
+                    pos++;
+                    return transferBulk(readLongCrLf(), out);
+                }
+                // 其他类型的响应较小，按完整响应读取
+                RedisReply reply = readFrame();
+                if (isPush(reply)) {
+                    onPush(reply);
+                    continue;
+                }
+                if (reply.getType() == RedisReplyType.ERRORS || reply.getType() == RedisReplyType.BLOB_ERRORS) {
+                    throw new RedisException(String.valueOf(reply.getData()));
+                }
+                if (reply.isNull()) {
+                    return -1;
+                }
+                if (reply.getType().kind != RedisReplyType.Kind.BULK) {
+                    throw new RedisException("Unexpected reply " + reply);
+                }
+                byte[] bytes = reply.getBytes();
+                out.write(bytes);
+                return bytes.length;
             }
-            while (pos < count) {
-                final byte b = buf[pos++];
-                if (b == CR) {
-                    if (buf[pos++] == LF) {
-                        break;
+        }
+
+        private long transferBulk(long len, OutputStream out) throws IOException {
+            if (len < 0) {
+                return -1;
+            }
+            IOException failure = null;
+            long remaining = len;
+            while (remaining > 0) {
+                if (pos >= count) {
+                    fill();
+                }
+                int n = (int) Math.min(count - pos, remaining);
+                if (failure == null) {
+                    try {
+                        out.write(buf, pos, n);
+                    } catch (IOException e) {
+                        failure = e;
                     }
-                } else {
-                    value = value * 10 + b - '0';
                 }
+                pos += n;
+                remaining -= n;
             }
-            return isNegative ? -value : value;
+            if (read() != CR || read() != LF) {
+                throw new RedisException("Bulk string not terminated by CRLF.");
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            return len;
+        }
+
+        private long readLongCrLf() throws IOException {
+            boolean negative = false;
+            long value = 0;
+            int b = read();
+            if (b == '-') {
+                negative = true;
+                b = read();
+            }
+            while (b != CR) {
+                if (b < '0' || b > '9') {
+                    throw new RedisException("Unexpected byte " + b + " in length.");
+                }
+                value = value * 10 + (b - '0');
+                b = read();
+            }
+            if (read() != LF) {
+                throw new RedisException("Length not terminated by CRLF.");
+            }
+            return negative ? -value : value;
         }
 
+        private static boolean isPush(RedisReply reply) {
+            if (reply.getType() != RedisReplyType.PUSHES) {
+                return false;
+            }
+            @SuppressWarnings("unchecked")
+            List<RedisReply> elements = (List<RedisReply>) reply.getData();
+            if (elements.isEmpty()) {
+                return true;
+            }
+            // 订阅和取消订阅的确认是命令的响应
+            String kind = String.valueOf(elements.get(0).getData());
+            return !kind.endsWith("subscribe");
+        }
 
-        /**
-         * Simple Strings:  +OK\r\n
-         * @return RedisReply
-         */
-        private RedisReply readSimpleStringsReply() {
-            int current = pos;
-            String data = readStringCrlf();
-            int dataLen = data.length() + CRLF_LENGTH;
-            RedisReply reply = RedisReply.create(buf, current - PLUS_BYTE_LENGTH, PLUS_BYTE_LENGTH + dataLen, RedisReplyType.SIMPLE_STRINGS);
-            reply.setData(data);
-            return reply;
+        private RedisReply readFrame() throws IOException {
+            if (pos >= count) {
+                fill();
+            }
+            try {
+                while (true) {
+                    RedisReply reply = decoder.decode(buf, pos, count);
+                    pos = decoder.position();
+                    if (reply != null) {
+                        if (circuitBreaker != null) {
+                            circuitBreaker.onSuccess();
+                        }
+                        return reply;
+                    }
+                    long remaining = decoder.bulkRemaining();
+                    if (remaining >= buf.length) {
+                        // 大的Bulk Strings直接读取，不经过缓冲区
+                        long start = metricsListener == null ? 0 : System.nanoTime();
+                        try {
+                            applyDeadline();
+                            decoder.readBulk(fis, (int) remaining);
+                        } catch (SocketTimeoutException e) {
+                            throw timeout(e);
+                        }
+                        if (metricsListener != null) {
+                            ioWaitNanos += System.nanoTime() - start;
+                            metricsListener.onBytesRead(remaining);
+                        }
+                    }
+                    fill();
+                }
+            } catch (IOException | RuntimeException e) {
+                decoder.reset();
+                throw e;
+            }
         }
 
-        /**
-         * Errors:  -ERR unknown command 'hello'
-         * @return RedisReply
-         */
-        private RedisReply readErrorsReply() {
-            int current = pos;
-            String data = readStringCrlf();
-            int dataLen = data.length() + CRLF_LENGTH;
-            RedisReply reply = RedisReply.create(buf, current - MINUS_BYTE_LENGTH, MINUS_BYTE_LENGTH + dataLen, RedisReplyType.ERRORS);
-            reply.setData(data);
-            return reply;
+        private void fill() throws IOException {
+            count = readSource();
+            pos = 0;
+            if (count < 0) {
+                count = 0;
+                throw new RedisException("Unexpected end of stream.");
+            }
         }
 
-        /**
-         * Integers:  :2
-         * @return RedisReply
-         */
-        private RedisReply readIntegersReply() {
-            int current = pos;
-            String data = readStringCrlf();
-            int dataLen = data.length() + CRLF_LENGTH;
-            RedisReply reply = RedisReply.create(buf, current - COLON_BYTE_LENGTH, COLON_BYTE_LENGTH + dataLen, RedisReplyType.INTEGERS);
-            reply.setData(Integer.valueOf(data));
-            return reply;
+        @Override
+        public int read() throws IOException {
+            if (pos >= count) {
+                count = readSource();
+                pos = 0;
+                if (count <= 0) {
+                    count = 0;
+                    return -1;
+                }
+            }
+            return buf[pos++] & 0xff;
+        }
+
+        private int readSource() throws IOException {
+            try {
+                applyDeadline();
+                if (metricsListener == null) {
+                    return fis.read(buf, 0, buf.length);
+                }
+                long start = System.nanoTime();
+                int n = fis.read(buf, 0, buf.length);
+                ioWaitNanos += System.nanoTime() - start;
+                if (n > 0) {
+                    metricsListener.onBytesRead(n);
+                }
+                return n;
+            } catch (SocketTimeoutException e) {
+                throw timeout(e);
+            }
         }
 
         /**
-         * Bulk Strings:  $6\r\nfoobar\r\n
-         * @return RedisReply
-         */
-        private RedisReply readBulkStringsReply() {
-            int current = pos;
-            String stringLen = readStringCrlf();
-            int value = Integer.parseInt(stringLen);
-            bos.reset();
-            int dataLen = stringLen.length() + CRLF_LENGTH;
-            if (value >  0) {
-                bos.write(buf, pos, value);
-                pos = pos + value + CRLF_LENGTH;
-                dataLen = stringLen.length() + CRLF_LENGTH + value + CRLF_LENGTH;
-            }
-            RedisReply reply = RedisReply.create(buf, current - DOLLAR_BYTE_LENGTH, DOLLAR_BYTE_LENGTH + dataLen, RedisReplyType.BULK_STRINGS);
-            reply.setData(bos.toString());
-            return reply;
+         * 有截止时间时，本次读取的超时为剩余时间和读取超时中较小的一个
+         */
+        private void applyDeadline() throws IOException {
+            if (deadlineNanos == 0 || socket == null) {
+                return;
+            }
+            long remaining = TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+            if (remaining <= 0) {
+                throw timeout(null);
+            }
+            int timeout = (int) Math.min(remaining, Integer.MAX_VALUE);
+            if (readTimeoutMillis > 0) {
+                timeout = Math.min(timeout, readTimeoutMillis);
+            }
+            socket.setSoTimeout(timeout);
         }
 
         /**
-         * Arrays:  *2\r\n$3\r\nfoo\r\n$3\r\nbar\r\n
-         * @return RedisReply
-         */
-        private RedisReply readArraysReply() {
-            int current = pos;
-            String stringLen = readStringCrlf();
-            int value = Integer.parseInt(stringLen);
-            int dataLen = 0;
-            List<RedisReply> replies = new ArrayList<>(value);
-            for (int i = 0; i < value; i++) {
-                byte firstByte = buf[pos++];
-                RedisReply innerReply;
-                switch (firstByte) {
-                    case PLUS_BYTE:
-                        innerReply = readSimpleStringsReply();
-                        break;
-                    case MINUS_BYTE:
-                        innerReply = readErrorsReply();
-                        break;
-                    case COLON_BYTE:
-                        innerReply = readIntegersReply();
-                        break;
-                    case DOLLAR_BYTE:
-                        innerReply = readBulkStringsReply();
-                        break;
-                    case ASTERISK_BYTE:
-                        innerReply = readArraysReply();
-                        break;
-                    default:
-                        throw new RedisException("Unknown protocol begin with byte " + firstByte);
-                }
-                dataLen = dataLen + innerReply.raw.length;
-                replies.add(innerReply);
+         * 响应只读取了一部分，连接上剩余的数据无法和后续命令对应，关闭连接，下次执行命令时重新连接
+         */
+        private RedisTimeoutException timeout(SocketTimeoutException cause) throws IOException {
+            decoder.reset();
+            pos = count = 0;
+            if (socket != null) {
+                socket.close();
             }
-            dataLen = stringLen.length() + CRLF_LENGTH + dataLen;
-            RedisReply reply = RedisReply.create(buf, current - ASTERISK_BYTE_LENGTH, ASTERISK_BYTE_LENGTH + dataLen, RedisReplyType.ARRAYS);
-            reply.setData(replies);
-            return reply;
+            if (circuitBreaker != null) {
+                circuitBreaker.onFailure();
+            }
+            String message = cause == null ? "Deadline exceeded while reading reply." : "Read timed out.";
+            return new RedisTimeoutException(message, cause);
         }
 
+        /**
+         * @return 已经到达客户端但尚未读取的字节数
+         */
         @Override
-        public int read() throws IOException {
-            bos.reset();
-            if (pos == 0) {
-                int firstByte = fis.read();
-                bos.write(firstByte);
-                count += 1;
-                int available;
-                while ((available = fis.available()) > 0) {
-                    count += available;
-                    byte[] by = new byte[available];
-                    fis.read(by, 0, available);
-                    bos.write(by, 0, available);
-                }
-                byte[] src = bos.toByteArray();
-                buf = new byte[count];
-                System.arraycopy(src, 0, buf, 0, count);
-                return buf[pos++];
-            }
-            return buf[pos++];
+        public int available() throws IOException {
+            return (count - pos) + fis.available();
+        }
+    }
+
+    /**
+     * 连接、读取超时或超过截止时间，发生在读取响应期间时连接已被关闭
+     */
+    public static class RedisTimeoutException extends RedisException {
+        private static final long serialVersionUID = 1L;
+
+        public RedisTimeoutException(String message) {
+            super(message);
+        }
+
+        public RedisTimeoutException(String message, Throwable cause) {
+            super(message, cause);
         }
     }
 
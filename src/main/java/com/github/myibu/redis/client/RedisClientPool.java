@@ -0,0 +1,581 @@
+package com.github.myibu.redis.client;
+
+import com.github.myibu.redis.client.RedisClient.RedisCommand;
+import com.github.myibu.redis.client.RedisClient.RedisException;
+
+import java.net.InetSocketAddress;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Redis客户端连接池，线程安全
+ * <pre>
+ * RedisClientPool pool = new RedisClientPool("127.0.0.1", 6379);
+ * RedisClient client = pool.borrow();
+ * try {
+ *     client.exec(RedisCommand.SET, "foo", "bar");
+ * } finally {
+ *     pool.release(client);
+ * }
+ * </pre>
+ * @author myibu
+ * Create on 2026/10/18
+ */
+public class RedisClientPool {
+    private static final long WAIT_SLICE_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private final InetSocketAddress address;
+    private final Config config;
+    // 空闲连接，头部为最近归还的连接
+    private final LinkedBlockingDeque<PooledClient> idle = new LinkedBlockingDeque<>();
+    private final Set<RedisClient> borrowed = ConcurrentHashMap.newKeySet();
+    // 每个借出的连接占用一个许可，公平模式保证先等待的线程先借到连接
+    private final Semaphore permits;
+    // 已创建的连接数
+    private final AtomicInteger total = new AtomicInteger();
+    private final ScheduledExecutorService evictor;
+    private volatile boolean closed = false;
+
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong destroyedCount = new AtomicLong();
+    private final AtomicLong borrowedCount = new AtomicLong();
+    private final AtomicLong returnedCount = new AtomicLong();
+    private final AtomicLong validationFailedCount = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    public RedisClientPool() {
+        this("127.0.0.1", 6379);
+    }
+
+    public RedisClientPool(String hostname, int port) {
+        this(new InetSocketAddress(hostname, port), new Config());
+    }
+
+    public RedisClientPool(InetSocketAddress address, Config config) {
+        if (config.getMaxTotal() <= 0 || config.getMinIdle() < 0 || config.getMinIdle() > config.getMaxTotal()) {
+            throw new IllegalArgumentException("Invalid pool size, minIdle=" + config.getMinIdle() + ", maxTotal=" + config.getMaxTotal());
+        }
+        this.address = address;
+        this.config = config;
+        this.permits = new Semaphore(config.getMaxTotal(), true);
+        ensureMinIdle();
+        if (config.getTimeBetweenEvictionRunsMillis() > 0) {
+            evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "redis-client-pool-evictor");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long period = config.getTimeBetweenEvictionRunsMillis();
+            evictor.scheduleWithFixedDelay(this::evict, period, period, TimeUnit.MILLISECONDS);
+        } else {
+            evictor = null;
+        }
+    }
+
+    /**
+     * 借出一个客户端，使用完毕后需要调用{@link #release(RedisClient)}归还
+     * @return 客户端
+     * @throws RedisException 等待超过{@link Config#getMaxWaitMillis()}、创建连接失败或熔断器打开
+     */
+    public RedisClient borrow() {
+        if (closed) {
+            throw new RedisException("Pool is closed.");
+        }
+        if (config.getCircuitBreaker() != null) {
+            // 熔断器打开时不等待空闲连接
+            config.getCircuitBreaker().check();
+        }
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(config.getMaxWaitMillis(), TimeUnit.MILLISECONDS)) {
+                timeoutCount.incrementAndGet();
+                throw new RedisException("Borrow client timeout after " + config.getMaxWaitMillis() + "ms.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RedisException("Borrow client interrupted.", e);
+        }
+        RedisClient client;
+        try {
+            client = take();
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+        long wait = System.nanoTime() - start;
+        totalWaitNanos.addAndGet(wait);
+        maxWaitNanos.accumulateAndGet(wait, Math::max);
+        if (config.getMetricsListener() != null) {
+            config.getMetricsListener().onPoolWait(wait);
+        }
+        borrowedCount.incrementAndGet();
+        borrowed.add(client);
+        return client;
+    }
+
+    /**
+     * 取出一个空闲连接，没有空闲连接时创建新连接
+     */
+    private RedisClient take() {
+        while (true) {
+            PooledClient pooled = idle.pollFirst();
+            if (pooled == null) {
+                RedisClient client = tryCreate();
+                if (client != null) {
+                    return client;
+                }
+                // 连接数已达上限，剩余的空闲连接正在被后台检查
+                try {
+                    pooled = idle.pollFirst(WAIT_SLICE_NANOS, TimeUnit.NANOSECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RedisException("Borrow client interrupted.", e);
+                }
+                if (pooled == null) {
+                    continue;
+                }
+            }
+            if (config.isTestOnBorrow() && !validate(pooled.client)) {
+                destroy(pooled.client);
+                continue;
+            }
+            return pooled.client;
+        }
+    }
+
+    /**
+     * 归还客户端
+     * @param client 通过{@link #borrow()}借出的客户端
+     */
+    public void release(RedisClient client) {
+        if (!borrowed.remove(client)) {
+            throw new RedisException("Client does not belong to this pool.");
+        }
+        returnedCount.incrementAndGet();
+        if (closed) {
+            destroy(client);
+        } else {
+            idle.offerFirst(new PooledClient(client));
+        }
+        permits.release();
+    }
+
+    /**
+     * 销毁已损坏的客户端，如执行命令时发生网络异常
+     * @param client 通过{@link #borrow()}借出的客户端
+     */
+    public void invalidate(RedisClient client) {
+        if (!borrowed.remove(client)) {
+            throw new RedisException("Client does not belong to this pool.");
+        }
+        returnedCount.incrementAndGet();
+        destroy(client);
+        permits.release();
+    }
+
+    /**
+     * 借出一个客户端执行操作，执行完毕后自动归还，执行失败时销毁该客户端
+     * @param action 操作
+     * @return 操作结果
+     */
+    public <T> T execute(Function<RedisClient, T> action) {
+        RedisClient client = borrow();
+        T result;
+        try {
+            result = action.apply(client);
+        } catch (RuntimeException e) {
+            invalidate(client);
+            throw e;
+        }
+        release(client);
+        return result;
+    }
+
+    /**
+     * @return 连接池统计信息
+     */
+    public Stats getStats() {
+        Stats stats = new Stats();
+        stats.active = borrowed.size();
+        stats.idle = idle.size();
+        stats.createdCount = createdCount.get();
+        stats.destroyedCount = destroyedCount.get();
+        stats.borrowedCount = borrowedCount.get();
+        stats.returnedCount = returnedCount.get();
+        stats.validationFailedCount = validationFailedCount.get();
+        stats.timeoutCount = timeoutCount.get();
+        stats.totalWaitNanos = totalWaitNanos.get();
+        stats.maxWaitNanos = maxWaitNanos.get();
+        return stats;
+    }
+
+    public Config getConfig() {
+        return config;
+    }
+
+    /**
+     * 关闭连接池，空闲连接立即关闭，借出的连接在归还时关闭
+     */
+    public void close() {
+        closed = true;
+        if (evictor != null) {
+            evictor.shutdownNow();
+        }
+        PooledClient pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            destroy(pooled.client);
+        }
+    }
+
+    /**
+     * @return 新创建的连接，连接数已达上限时返回null
+     */
+    private RedisClient tryCreate() {
+        int current;
+        do {
+            current = total.get();
+            if (current >= config.getMaxTotal()) {
+                return null;
+            }
+        } while (!total.compareAndSet(current, current + 1));
+        try {
+            RedisCircuitBreaker breaker = config.getCircuitBreaker();
+            RedisClient client;
+            if (breaker == null) {
+                client = new RedisClient(address, config.getConnectTimeoutMillis(), config.getReadTimeoutMillis());
+            } else {
+                breaker.acquire();
+                try {
+                    client = new RedisClient(address, config.getConnectTimeoutMillis(), config.getReadTimeoutMillis());
+                } catch (RuntimeException e) {
+                    breaker.onFailure();
+                    throw e;
+                }
+                client.setCircuitBreaker(breaker);
+            }
+            client.setMetricsListener(config.getMetricsListener());
+            if (config.getInitializer() != null) {
+                try {
+                    config.getInitializer().accept(client);
+                } catch (RuntimeException e) {
+                    client.close();
+                    throw e;
+                }
+            }
+            createdCount.incrementAndGet();
+            return client;
+        } catch (RuntimeException e) {
+            total.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private void destroy(RedisClient client) {
+        try {
+            client.close();
+        } catch (RedisException e) {
+            // ignore
+        } finally {
+            destroyedCount.incrementAndGet();
+            total.decrementAndGet();
+        }
+    }
+
+    private boolean validate(RedisClient client) {
+        try {
+            if ("PONG".equals(client.execAndReturn(RedisCommand.PING).getData())) {
+                return true;
+            }
+        } catch (RedisException e) {
+            // 连接不可用
+        }
+        validationFailedCount.incrementAndGet();
+        return false;
+    }
+
+    private void ensureMinIdle() {
+        while (!closed && idle.size() < config.getMinIdle()) {
+            RedisClient client = tryCreate();
+            if (client == null) {
+                return;
+            }
+            idle.offerLast(new PooledClient(client));
+        }
+    }
+
+    /**
+     * 清理空闲时间过长的连接，并检查空闲连接是否可用
+     */
+    void evict() {
+        long now = System.currentTimeMillis();
+        int toCheck = idle.size();
+        Iterator<PooledClient> it = idle.descendingIterator();
+        while (toCheck-- > 0 && it.hasNext()) {
+            PooledClient pooled = it.next();
+            boolean expired = config.getMinEvictableIdleTimeMillis() > 0
+                    && now - pooled.idleSince > config.getMinEvictableIdleTimeMillis()
+                    && idle.size() > config.getMinIdle();
+            if (!expired && !config.isTestWhileIdle()) {
+                continue;
+            }
+            // 已被其他线程借出
+            if (!idle.removeLastOccurrence(pooled)) {
+                continue;
+            }
+            if (expired || !validate(pooled.client)) {
+                destroy(pooled.client);
+            } else {
+                idle.offerLast(pooled);
+            }
+        }
+        try {
+            ensureMinIdle();
+        } catch (RedisException e) {
+            // 下次清理时重试
+        }
+    }
+
+    private static class PooledClient {
+        final RedisClient client;
+        final long idleSince;
+
+        PooledClient(RedisClient client) {
+            this.client = client;
+            this.idleSince = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * 连接池配置
+     */
+    public static class Config {
+        private int maxTotal = 8;
+        private int minIdle = 0;
+        private long maxWaitMillis = 3000;
+        private boolean testOnBorrow = false;
+        private boolean testWhileIdle = true;
+        private long timeBetweenEvictionRunsMillis = 30000;
+        private long minEvictableIdleTimeMillis = 60000;
+        private Consumer<RedisClient> initializer;
+        private RedisMetricsListener metricsListener;
+        private int connectTimeoutMillis = RedisClient.DEFAULT_CONNECT_TIMEOUT;
+        private int readTimeoutMillis = 0;
+        private RedisCircuitBreaker circuitBreaker;
+
+        /**
+         * @return 最大连接数
+         */
+        public int getMaxTotal() {
+            return maxTotal;
+        }
+
+        public void setMaxTotal(int maxTotal) {
+            this.maxTotal = maxTotal;
+        }
+
+        /**
+         * @return 最小空闲连接数，创建连接池时会预先创建
+         */
+        public int getMinIdle() {
+            return minIdle;
+        }
+
+        public void setMinIdle(int minIdle) {
+            this.minIdle = minIdle;
+        }
+
+        /**
+         * @return 借出连接的最长等待时间
+         */
+        public long getMaxWaitMillis() {
+            return maxWaitMillis;
+        }
+
+        public void setMaxWaitMillis(long maxWaitMillis) {
+            this.maxWaitMillis = maxWaitMillis;
+        }
+
+        /**
+         * @return 借出连接时是否使用PING检查连接
+         */
+        public boolean isTestOnBorrow() {
+            return testOnBorrow;
+        }
+
+        public void setTestOnBorrow(boolean testOnBorrow) {
+            this.testOnBorrow = testOnBorrow;
+        }
+
+        /**
+         * @return 后台清理时是否使用PING检查空闲连接
+         */
+        public boolean isTestWhileIdle() {
+            return testWhileIdle;
+        }
+
+        public void setTestWhileIdle(boolean testWhileIdle) {
+            this.testWhileIdle = testWhileIdle;
+        }
+
+        /**
+         * @return 后台清理的间隔，小于等于0时不启动后台清理
+         */
+        public long getTimeBetweenEvictionRunsMillis() {
+            return timeBetweenEvictionRunsMillis;
+        }
+
+        public void setTimeBetweenEvictionRunsMillis(long timeBetweenEvictionRunsMillis) {
+            this.timeBetweenEvictionRunsMillis = timeBetweenEvictionRunsMillis;
+        }
+
+        /**
+         * @return 连接空闲超过该时间后会被关闭，小于等于0时不关闭
+         */
+        public long getMinEvictableIdleTimeMillis() {
+            return minEvictableIdleTimeMillis;
+        }
+
+        public void setMinEvictableIdleTimeMillis(long minEvictableIdleTimeMillis) {
+            this.minEvictableIdleTimeMillis = minEvictableIdleTimeMillis;
+        }
+
+        /**
+         * @return 新建连接后执行的初始化，如：预加载脚本
+         */
+        public Consumer<RedisClient> getInitializer() {
+            return initializer;
+        }
+
+        public void setInitializer(Consumer<RedisClient> initializer) {
+            this.initializer = initializer;
+        }
+
+        /**
+         * @return 指标监听器，会设置到每个连接上，并统计借出连接的等待时间
+         */
+        public RedisMetricsListener getMetricsListener() {
+            return metricsListener;
+        }
+
+        public void setMetricsListener(RedisMetricsListener metricsListener) {
+            this.metricsListener = metricsListener;
+        }
+
+        /**
+         * @return 连接超时，0表示不超时
+         */
+        public int getConnectTimeoutMillis() {
+            return connectTimeoutMillis;
+        }
+
+        public void setConnectTimeoutMillis(int connectTimeoutMillis) {
+            this.connectTimeoutMillis = connectTimeoutMillis;
+        }
+
+        /**
+         * @return 读取超时，0表示不超时，超时的连接会被关闭
+         */
+        public int getReadTimeoutMillis() {
+            return readTimeoutMillis;
+        }
+
+        public void setReadTimeoutMillis(int readTimeoutMillis) {
+            this.readTimeoutMillis = readTimeoutMillis;
+        }
+
+        /**
+         * @return 熔断器，所有连接共享，打开时借出连接立即失败
+         */
+        public RedisCircuitBreaker getCircuitBreaker() {
+            return circuitBreaker;
+        }
+
+        public void setCircuitBreaker(RedisCircuitBreaker circuitBreaker) {
+            this.circuitBreaker = circuitBreaker;
+        }
+    }
+
+    /**
+     * 连接池统计信息
+     */
+    public static class Stats {
+        private int active;
+        private int idle;
+        private long createdCount;
+        private long destroyedCount;
+        private long borrowedCount;
+        private long returnedCount;
+        private long validationFailedCount;
+        private long timeoutCount;
+        private long totalWaitNanos;
+        private long maxWaitNanos;
+
+        public int getActive() {
+            return active;
+        }
+
+        public int getIdle() {
+            return idle;
+        }
+
+        public long getCreatedCount() {
+            return createdCount;
+        }
+
+        public long getDestroyedCount() {
+            return destroyedCount;
+        }
+
+        public long getBorrowedCount() {
+            return borrowedCount;
+        }
+
+        public long getReturnedCount() {
+            return returnedCount;
+        }
+
+        public long getValidationFailedCount() {
+            return validationFailedCount;
+        }
+
+        public long getTimeoutCount() {
+            return timeoutCount;
+        }
+
+        public long getTotalWaitNanos() {
+            return totalWaitNanos;
+        }
+
+        public long getMaxWaitNanos() {
+            return maxWaitNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{" +
+                    "active=" + active +
+                    ", idle=" + idle +
+                    ", createdCount=" + createdCount +
+                    ", destroyedCount=" + destroyedCount +
+                    ", borrowedCount=" + borrowedCount +
+                    ", returnedCount=" + returnedCount +
+                    ", validationFailedCount=" + validationFailedCount +
+                    ", timeoutCount=" + timeoutCount +
+                    ", totalWaitNanos=" + totalWaitNanos +
+                    ", maxWaitNanos=" + maxWaitNanos +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,697 @@
+package com.github.myibu.redis.client;
+
+import com.github.myibu.redis.client.RedisClient.RedisCommand;
+import com.github.myibu.redis.client.RedisClient.RedisException;
+import com.github.myibu.redis.client.RedisClient.RedisReply;
+import com.github.myibu.redis.client.RedisClient.RedisReplyType;
+
+import java.io.ByteArrayOutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Redis集群客户端，线程安全
+ * 按key的slot把命令发送到对应的节点，每个节点使用一个连接池。
+ * 收到MOVED时更新slot映射并重新发送，收到ASK时先发送ASKING再发送到目标节点。
+ * MGET、MSET、DEL、UNLINK、EXISTS、TOUCH会按slot拆分，不同节点的部分并行执行后合并结果。
+ * <pre>
+ * RedisClusterClient client = new RedisClusterClient("127.0.0.1", 7000);
+ * client.exec(RedisCommand.SET, "foo", "bar");
+ * client.execAndReturn(RedisCommand.MGET, "foo", "{user}.name", "{user}.age");
+ * </pre>
+ * @author myibu
+ * Create on 2026/10/18
+ */
+public class RedisClusterClient {
+    public static final int SLOT_COUNT = 16384;
+    private static final String MOVED = "MOVED ";
+    private static final String ASK = "ASK ";
+    private static final String TRYAGAIN = "TRYAGAIN";
+    private static final byte[][] SLOTS_ARGS = {"SLOTS".getBytes(StandardCharsets.US_ASCII)};
+    private static final int[] CRC16_TABLE = new int[256];
+
+    static {
+        // CRC16-CCITT (XMODEM)
+        for (int i = 0; i < 256; i++) {
+            int crc = i << 8;
+            for (int j = 0; j < 8; j++) {
+                crc = (crc & 0x8000) != 0 ? (crc << 1) ^ 0x1021 : crc << 1;
+            }
+            CRC16_TABLE[i] = crc & 0xffff;
+        }
+    }
+
+    private final Config config;
+    private final List<InetSocketAddress> seeds;
+    private final Map<InetSocketAddress, RedisClientPool> nodes = new ConcurrentHashMap<>();
+    private final AtomicReferenceArray<InetSocketAddress> slots = new AtomicReferenceArray<>(SLOT_COUNT);
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private final ExecutorService executor;
+    private volatile boolean closed = false;
+
+    public RedisClusterClient() {
+        this("127.0.0.1", 7000);
+    }
+
+    public RedisClusterClient(String hostname, int port) {
+        this(Collections.singletonList(new InetSocketAddress(hostname, port)), new Config());
+    }
+
+    /**
+     * @param seeds 集群中的部分节点，用于获取slot映射
+     * @param config 配置
+     */
+    public RedisClusterClient(List<InetSocketAddress> seeds, Config config) {
+        if (seeds.isEmpty()) {
+            throw new IllegalArgumentException("No seed nodes.");
+        }
+        this.seeds = new ArrayList<>(seeds);
+        this.config = config;
+        this.executor = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "redis-cluster-client");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            refreshSlots();
+        } catch (RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * 计算key所在的slot，key中包含非空的{...}时只计算第一个{和之后第一个}之间的部分
+     * @param key key
+     * @return slot，0到16383
+     */
+    public static int slot(byte[] key) {
+        int from = 0;
+        int to = key.length;
+        for (int i = 0; i < key.length; i++) {
+            if (key[i] == '{') {
+                for (int j = i + 1; j < key.length; j++) {
+                    if (key[j] == '}') {
+                        if (j > i + 1) {
+                            from = i + 1;
+                            to = j;
+                        }
+                        break;
+                    }
+                }
+                break;
+            }
+        }
+        int crc = 0;
+        for (int i = from; i < to; i++) {
+            crc = ((crc << 8) ^ CRC16_TABLE[((crc >>> 8) ^ key[i]) & 0xff]) & 0xffff;
+        }
+        return crc & (SLOT_COUNT - 1);
+    }
+
+    public static int slot(String key) {
+        return slot(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 执行无参数的命令，发送到任意一个节点
+     * @param command redis命令，如：ping
+     * @return 执行结果
+     */
+    public RedisReply execAndReturn(RedisCommand command) {
+        return execAndReturn(command, new byte[0][]);
+    }
+
+    /**
+     * 执行命令并返回结果
+     * @param command redis命令，如：set
+     * @param args redis命令参数： 如： [foo bar]
+     * @return 执行结果
+     */
+    public RedisReply execAndReturn(RedisCommand command, String ...args) {
+        try {
+            return execAndReturn(command, RedisClient.encodeArgs(args));
+        } catch (RedisException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RedisException("Execute command failed.", e);
+        }
+    }
+
+    /**
+     * 执行命令并返回结果，参数按原样发送
+     * @param command redis命令，如：set
+     * @param args redis命令参数
+     * @return 执行结果
+     */
+    public RedisReply execAndReturn(RedisCommand command, byte[] ...args) {
+        if (closed) {
+            throw new RedisException("Client is closed.");
+        }
+        switch (command) {
+            case MGET:
+            case DEL:
+            case UNLINK:
+            case EXISTS:
+            case TOUCH:
+                return execMultiKey(command, args, 1);
+            case MSET:
+                return execMultiKey(command, args, 2);
+            default:
+                int index = keyIndex(command, args);
+                return execute(index < 0 ? -1 : slot(args[index]), command, args);
+        }
+    }
+
+    /**
+     * 执行无参数的命令
+     * @param command redis命令，如：ping
+     */
+    public void exec(RedisCommand command) {
+        execAndReturn(command);
+    }
+
+    /**
+     * 执行命令
+     * @param command redis命令，如：set
+     * @param args redis命令参数： 如： [foo bar]
+     */
+    public void exec(RedisCommand command, String ...args) {
+        execAndReturn(command, args);
+    }
+
+    /**
+     * 执行命令，参数按原样发送
+     * @param command redis命令，如：set
+     * @param args redis命令参数
+     */
+    public void exec(RedisCommand command, byte[] ...args) {
+        execAndReturn(command, args);
+    }
+
+    /**
+     * 从已知节点中获取最新的slot映射
+     */
+    public void refreshSlots() {
+        refreshLock.lock();
+        try {
+            doRefreshSlots();
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    /**
+     * @param slot slot
+     * @return 负责该slot的节点，未知时为null
+     */
+    public InetSocketAddress getNode(int slot) {
+        return slots.get(slot);
+    }
+
+    /**
+     * @return 已连接的节点及其连接池
+     */
+    public Map<InetSocketAddress, RedisClientPool> getNodes() {
+        return Collections.unmodifiableMap(nodes);
+    }
+
+    public Config getConfig() {
+        return config;
+    }
+
+    /**
+     * 关闭所有节点的连接池
+     */
+    public void close() {
+        closed = true;
+        executor.shutdownNow();
+        for (RedisClientPool pool : nodes.values()) {
+            pool.close();
+        }
+        nodes.clear();
+    }
+
+    /**
+     * @return 第一个key在参数中的位置，没有key时为-1
+     */
+    private static int keyIndex(RedisCommand command, byte[][] args) {
+        switch (command) {
+            case PING:
+            case ECHO:
+            case INFO:
+            case TIME:
+            case DBSIZE:
+            case RANDOMKEY:
+            case KEYS:
+            case SCAN:
+            case FLUSHDB:
+            case FLUSHALL:
+            case CLUSTER:
+            case CLIENT:
+            case CONFIG:
+            case COMMAND:
+            case SCRIPT:
+            case PUBLISH:
+            case PUBSUB:
+            case HELLO:
+            case AUTH:
+            case ROLE:
+            case SLOWLOG:
+            case LASTSAVE:
+                return -1;
+            case EVAL:
+            case EVALSHA:
+                // EVAL script numkeys key [key ...] arg [arg ...]
+                return args.length > 2 && !"0".equals(new String(args[1], StandardCharsets.US_ASCII)) ? 2 : -1;
+            default:
+                return args.length > 0 ? 0 : -1;
+        }
+    }
+
+    /**
+     * 发送命令到slot所在的节点，并处理重定向
+     * @param slot slot，为-1时发送到任意节点
+     */
+    private RedisReply execute(int slot, RedisCommand command, byte[][] args) {
+        InetSocketAddress address = slot < 0 ? anyNode() : nodeOf(slot);
+        boolean asking = false;
+        RedisReply reply = null;
+        RedisException failure = null;
+        for (int i = 0; i <= config.getMaxRedirects(); i++) {
+            try {
+                reply = send(address, asking, command, args);
+                failure = null;
+            } catch (NotSentException e) {
+                // 节点不可用，可能发生了故障转移，命令没有发送，可以安全地重试
+                failure = (RedisException) e.getCause();
+                tryRefreshSlots();
+                address = slot < 0 ? anyNode() : nodeOf(slot);
+                asking = false;
+                continue;
+            }
+            asking = false;
+            if (reply.getType() != RedisReplyType.ERRORS) {
+                return reply;
+            }
+            String error = (String) reply.getData();
+            if (error.startsWith(MOVED)) {
+                Redirect redirect = new Redirect(error.substring(MOVED.length()), address);
+                slots.set(redirect.slot, redirect.address);
+                tryRefreshSlots();
+                address = redirect.address;
+            } else if (error.startsWith(ASK)) {
+                // 只有下一个命令重定向，不更新slot映射
+                address = new Redirect(error.substring(ASK.length()), address).address;
+                asking = true;
+            } else if (error.startsWith(TRYAGAIN)) {
+                // 迁移过程中多个key不在同一个节点，稍后重试
+                sleep(config.getRetryIntervalMillis());
+            } else {
+                return reply;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        throw new RedisException("Too many cluster redirections: " + reply.getData());
+    }
+
+    /**
+     * @throws NotSentException 借出连接或重新连接失败，命令没有发送
+     * @throws RedisException 命令发送之后失败，如：读取超时，命令可能已经执行，不能重试
+     */
+    private RedisReply send(InetSocketAddress address, boolean asking, RedisCommand command, byte[][] args) {
+        return sendOnce(address, client -> {
+            if (!asking) {
+                return client.execAndReturn(command, args);
+            }
+            RedisPipeline pipeline = client.pipelined();
+            pipeline.exec(RedisCommand.ASKING);
+            RedisPipeline.Response response = pipeline.exec(command, args);
+            pipeline.sync();
+            return response.get();
+        });
+    }
+
+    /**
+     * 借出连接并在连接可用后执行操作，执行失败时销毁连接
+     * @throws NotSentException 借出连接或重新连接失败，命令没有发送
+     */
+    private <T> T sendOnce(InetSocketAddress address, Function<RedisClient, T> action) {
+        RedisClientPool pool = pool(address);
+        RedisClient client;
+        try {
+            client = pool.borrow();
+        } catch (RedisException e) {
+            throw new NotSentException(e);
+        }
+        T result;
+        try {
+            try {
+                client.ensureConnected();
+            } catch (RedisException e) {
+                throw new NotSentException(e);
+            }
+            result = action.apply(client);
+        } catch (RuntimeException e) {
+            pool.invalidate(client);
+            throw e;
+        }
+        pool.release(client);
+        return result;
+    }
+
+    /**
+     * 按slot拆分多key命令，同一节点上的各个slot通过管道一次发送，不同节点并行执行
+     * @param step 每个key占用的参数个数，如：MSET为2
+     */
+    private RedisReply execMultiKey(RedisCommand command, byte[][] args, int step) {
+        Map<Integer, List<Integer>> bySlot = new LinkedHashMap<>();
+        for (int i = 0; i + step <= args.length; i += step) {
+            bySlot.computeIfAbsent(slot(args[i]), k -> new ArrayList<>()).add(i);
+        }
+        if (bySlot.size() <= 1) {
+            return execute(bySlot.isEmpty() ? -1 : bySlot.keySet().iterator().next(), command, args);
+        }
+        Map<InetSocketAddress, List<SlotCommand>> byNode = new LinkedHashMap<>();
+        for (Map.Entry<Integer, List<Integer>> entry : bySlot.entrySet()) {
+            List<Integer> positions = entry.getValue();
+            byte[][] slotArgs = new byte[positions.size() * step][];
+            for (int i = 0; i < positions.size(); i++) {
+                System.arraycopy(args, positions.get(i), slotArgs, i * step, step);
+            }
+            SlotCommand slotCommand = new SlotCommand(entry.getKey(), positions, slotArgs);
+            byNode.computeIfAbsent(nodeOf(entry.getKey()), k -> new ArrayList<>()).add(slotCommand);
+        }
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        List<Map.Entry<InetSocketAddress, List<SlotCommand>>> groups = new ArrayList<>(byNode.entrySet());
+        for (int i = 1; i < groups.size(); i++) {
+            Map.Entry<InetSocketAddress, List<SlotCommand>> group = groups.get(i);
+            futures.add(CompletableFuture.runAsync(() -> execOnNode(group.getKey(), command, group.getValue()), executor));
+        }
+        // 第一个节点在当前线程执行
+        execOnNode(groups.get(0).getKey(), command, groups.get(0).getValue());
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RedisException("Execute command interrupted.", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RedisException ? (RedisException) e.getCause() : new RedisException("Execute command failed.", e.getCause());
+        }
+        List<SlotCommand> commands = new ArrayList<>();
+        for (List<SlotCommand> group : byNode.values()) {
+            commands.addAll(group);
+        }
+        return merge(command, args.length / step, commands);
+    }
+
+    private void execOnNode(InetSocketAddress address, RedisCommand command, List<SlotCommand> commands) {
+        List<RedisReply> replies;
+        try {
+            replies = sendOnce(address, client -> {
+                RedisPipeline pipeline = client.pipelined();
+                for (SlotCommand slotCommand : commands) {
+                    pipeline.exec(command, slotCommand.args);
+                }
+                return pipeline.syncAndReturnAll();
+            });
+        } catch (NotSentException e) {
+            // 命令没有发送，逐个slot重试；发送之后的失败直接抛出，避免重复执行
+            replies = null;
+        }
+        for (int i = 0; i < commands.size(); i++) {
+            SlotCommand slotCommand = commands.get(i);
+            RedisReply reply = replies == null ? null : replies.get(i);
+            if (reply == null || isRedirect(reply)) {
+                // 单独执行，由execute处理重定向和故障
+                reply = execute(slotCommand.slot, command, slotCommand.args);
+            }
+            slotCommand.reply = reply;
+        }
+    }
+
+    private static boolean isRedirect(RedisReply reply) {
+        if (reply.getType() != RedisReplyType.ERRORS) {
+            return false;
+        }
+        String error = (String) reply.getData();
+        return error.startsWith(MOVED) || error.startsWith(ASK) || error.startsWith(TRYAGAIN);
+    }
+
+    /**
+     * 合并各个slot的结果，有错误时返回第一个错误
+     * @param keys key的个数
+     */
+    private static RedisReply merge(RedisCommand command, int keys, List<SlotCommand> commands) {
+        for (SlotCommand slotCommand : commands) {
+            if (slotCommand.reply.getType() == RedisReplyType.ERRORS) {
+                return slotCommand.reply;
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        switch (command) {
+            case MGET:
+                RedisReply[] values = new RedisReply[keys];
+                for (SlotCommand slotCommand : commands) {
+                    @SuppressWarnings("unchecked")
+                    List<RedisReply> elements = (List<RedisReply>) slotCommand.reply.getData();
+                    for (int i = 0; i < elements.size(); i++) {
+                        values[slotCommand.positions.get(i)] = elements.get(i);
+                    }
+                }
+                writeAscii(out, "*" + keys + RedisClient.CRLF);
+                for (RedisReply value : values) {
+                    byte[] raw = value.getRaw();
+                    out.write(raw, 0, raw.length);
+                }
+                break;
+            case MSET:
+                writeAscii(out, "+OK" + RedisClient.CRLF);
+                break;
+            default:
+                long sum = 0;
+                for (SlotCommand slotCommand : commands) {
+                    sum += ((Number) slotCommand.reply.getData()).longValue();
+                }
+                writeAscii(out, ":" + sum + RedisClient.CRLF);
+                break;
+        }
+        byte[] frame = out.toByteArray();
+        return RedisReply.wrap(frame, 0, frame.length);
+    }
+
+    private static void writeAscii(ByteArrayOutputStream out, String value) {
+        byte[] b = value.getBytes(StandardCharsets.US_ASCII);
+        out.write(b, 0, b.length);
+    }
+
+    private InetSocketAddress nodeOf(int slot) {
+        InetSocketAddress address = slots.get(slot);
+        if (address == null) {
+            tryRefreshSlots();
+            address = slots.get(slot);
+        }
+        return address == null ? anyNode() : address;
+    }
+
+    private InetSocketAddress anyNode() {
+        for (int i = 0; i < SLOT_COUNT; i += SLOT_COUNT / 16) {
+            InetSocketAddress address = slots.get(i);
+            if (address != null) {
+                return address;
+            }
+        }
+        return seeds.get(0);
+    }
+
+    private RedisClientPool pool(InetSocketAddress address) {
+        if (closed) {
+            throw new RedisException("Client is closed.");
+        }
+        return nodes.computeIfAbsent(address, a -> new RedisClientPool(a, config.getPoolConfig()));
+    }
+
+    /**
+     * 其他线程正在刷新时不等待
+     */
+    private void tryRefreshSlots() {
+        if (refreshLock.tryLock()) {
+            try {
+                doRefreshSlots();
+            } catch (RedisException e) {
+                // 下次重定向时再刷新
+            } finally {
+                refreshLock.unlock();
+            }
+        }
+    }
+
+    private void doRefreshSlots() {
+        Set<InetSocketAddress> candidates = new LinkedHashSet<>(nodes.keySet());
+        candidates.addAll(seeds);
+        RedisException failure = null;
+        for (InetSocketAddress candidate : candidates) {
+            try {
+                RedisReply reply = pool(candidate).execute(client -> client.execAndReturn(RedisCommand.CLUSTER, SLOTS_ARGS));
+                if (reply.getType() == RedisReplyType.ERRORS) {
+                    failure = new RedisException("Load cluster slots from " + candidate + " failed: " + reply.getData());
+                    continue;
+                }
+                updateSlots(candidate, reply);
+                return;
+            } catch (RedisException e) {
+                failure = e;
+            }
+        }
+        throw failure;
+    }
+
+    /**
+     * 解析CLUSTER SLOTS的结果：[[start, end, [host, port, id], [replica...]], ...]
+     */
+    @SuppressWarnings("unchecked")
+    private void updateSlots(InetSocketAddress from, RedisReply reply) {
+        InetSocketAddress[] table = new InetSocketAddress[SLOT_COUNT];
+        for (RedisReply range : (List<RedisReply>) reply.getData()) {
+            List<RedisReply> elements = (List<RedisReply>) range.getData();
+            int start = ((Number) elements.get(0).getData()).intValue();
+            int end = ((Number) elements.get(1).getData()).intValue();
+            InetSocketAddress master = address((List<RedisReply>) elements.get(2).getData(), from);
+            Arrays.fill(table, start, end + 1, master);
+        }
+        Set<InetSocketAddress> masters = new HashSet<>();
+        for (int i = 0; i < SLOT_COUNT; i++) {
+            slots.set(i, table[i]);
+            if (table[i] != null) {
+                masters.add(table[i]);
+            }
+        }
+        // 关闭已经不负责任何slot的节点，借出的连接在归还时关闭
+        for (InetSocketAddress address : new ArrayList<>(nodes.keySet())) {
+            if (!masters.contains(address) && !seeds.contains(address)) {
+                RedisClientPool pool = nodes.remove(address);
+                if (pool != null) {
+                    pool.close();
+                }
+            }
+        }
+    }
+
+    private static InetSocketAddress address(List<RedisReply> node, InetSocketAddress from) {
+        String host = (String) node.get(0).getData();
+        int port = ((Number) node.get(1).getData()).intValue();
+        // 节点未配置地址时返回空字符串，使用当前连接的地址
+        return new InetSocketAddress(host.isEmpty() ? from.getHostString() : host, port);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RedisException("Execute command interrupted.", e);
+        }
+    }
+
+    /**
+     * MOVED或ASK错误中的目标：slot host:port
+     */
+    private static class Redirect {
+        final int slot;
+        final InetSocketAddress address;
+
+        Redirect(String target, InetSocketAddress from) {
+            int space = target.indexOf(' ');
+            int colon = target.lastIndexOf(':');
+            this.slot = Integer.parseInt(target.substring(0, space));
+            String host = target.substring(space + 1, colon);
+            this.address = new InetSocketAddress(host.isEmpty() ? from.getHostString() : host, Integer.parseInt(target.substring(colon + 1)));
+        }
+    }
+
+    /**
+     * 命令没有发送到节点，cause为原始异常
+     */
+    private static class NotSentException extends RedisException {
+        private static final long serialVersionUID = 1L;
+
+        NotSentException(RedisException cause) {
+            super(cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * 多key命令拆分后单个slot上的命令
+     */
+    private static class SlotCommand {
+        final int slot;
+        // 各个key在原始参数中的位置
+        final List<Integer> positions;
+        final byte[][] args;
+        RedisReply reply;
+
+        SlotCommand(int slot, List<Integer> positions, byte[][] args) {
+            this.slot = slot;
+            this.positions = positions;
+            this.args = args;
+        }
+    }
+
+    public static class Config {
+        private int maxRedirects = 5;
+        private long retryIntervalMillis = 100;
+        private RedisClientPool.Config poolConfig = new RedisClientPool.Config();
+
+        /**
+         * @return 单个命令最多重定向或重试的次数
+         */
+        public int getMaxRedirects() {
+            return maxRedirects;
+        }
+
+        public void setMaxRedirects(int maxRedirects) {
+            this.maxRedirects = maxRedirects;
+        }
+
+        /**
+         * @return 收到TRYAGAIN后重试的间隔
+         */
+        public long getRetryIntervalMillis() {
+            return retryIntervalMillis;
+        }
+
+        public void setRetryIntervalMillis(long retryIntervalMillis) {
+            this.retryIntervalMillis = retryIntervalMillis;
+        }
+
+        /**
+         * @return 每个节点的连接池配置
+         */
+        public RedisClientPool.Config getPoolConfig() {
+            return poolConfig;
+        }
+
+        public void setPoolConfig(RedisClientPool.Config poolConfig) {
+            this.poolConfig = poolConfig;
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package com.github.myibu.redis.client;
+
+import com.github.myibu.redis.client.RedisClient.RedisCommand;
+import com.github.myibu.redis.client.RedisClient.RedisException;
+import com.github.myibu.redis.client.RedisClient.RedisReply;
+import com.github.myibu.redis.client.RedisClient.RedisReplyType;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 合并并发读取的客户端，线程安全
+ * 在很短的时间窗口内，多个线程发起的GET会合并为一个MGET，同一个hash的HGET会合并为一个HMGET，
+ * 每个调用方得到结果数组中对应的元素。窗口中第一个调用方负责等待并发送合并后的命令，
+ * 批次达到最大长度时立即发送。
+ * 合并后的MGET对不是字符串类型的key返回空值，不会像GET一样返回WRONGTYPE错误；
+ * HMGET的错误对同一个key的所有调用方相同，与HGET一致。
+ * <pre>
+ * RedisCoalescingClient client = new RedisCoalescingClient();
+ * // 任意线程
+ * client.get("foo");
+ * client.hget("user:1", "name");
+ * </pre>
+ * @author myibu
+ * Create on 2026/10/18
+ */
+public class RedisCoalescingClient {
+    private final RedisClientPool pool;
+    private final boolean ownPool;
+    private final Config config;
+    private final ReentrantLock lock = new ReentrantLock();
+    // 正在收集的批次，GET的批次key为null，HGET的批次key为hash的key
+    private final Map<String, Batch> batches = new HashMap<>();
+
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong batchCount = new AtomicLong();
+
+    public RedisCoalescingClient() {
+        this("127.0.0.1", 6379);
+    }
+
+    public RedisCoalescingClient(String hostname, int port) {
+        this(new InetSocketAddress(hostname, port), new RedisClientPool.Config(), new Config());
+    }
+
+    public RedisCoalescingClient(InetSocketAddress socketAddress, RedisClientPool.Config poolConfig, Config config) {
+        this.pool = new RedisClientPool(socketAddress, poolConfig);
+        this.ownPool = true;
+        this.config = config;
+    }
+
+    /**
+     * @param pool 使用已有的连接池，关闭客户端时不会关闭该连接池
+     * @param config 配置
+     */
+    public RedisCoalescingClient(RedisClientPool pool, Config config) {
+        this.pool = pool;
+        this.ownPool = false;
+        this.config = config;
+    }
+
+    /**
+     * 读取key的值，与其他线程的GET合并为MGET发送
+     * @param key key
+     * @return 执行结果，合并发送时key不是字符串类型也返回空值
+     */
+    public RedisReply get(String key) {
+        return get(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public RedisReply get(byte[] key) {
+        return submit(null, null, key);
+    }
+
+    /**
+     * 读取hash中field的值，与其他线程对同一个key的HGET合并为HMGET发送
+     * @param key key
+     * @param field field
+     * @return 执行结果
+     */
+    public RedisReply hget(String key, String field) {
+        return hget(key.getBytes(StandardCharsets.UTF_8), field.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public RedisReply hget(byte[] key, byte[] field) {
+        return submit(new String(key, StandardCharsets.ISO_8859_1), key, field);
+    }
+
+    public RedisClientPool getPool() {
+        return pool;
+    }
+
+    public Config getConfig() {
+        return config;
+    }
+
+    public Stats getStats() {
+        Stats stats = new Stats();
+        stats.requestCount = requestCount.get();
+        stats.batchCount = batchCount.get();
+        return stats;
+    }
+
+    public void close() {
+        if (ownPool) {
+            pool.close();
+        }
+    }
+
+    private RedisReply submit(String name, byte[] key, byte[] arg) {
+        requestCount.incrementAndGet();
+        Batch batch;
+        int index;
+        boolean leader = false;
+        lock.lock();
+        try {
+            batch = batches.get(name);
+            if (batch == null) {
+                batch = new Batch(key, Thread.currentThread());
+                batches.put(name, batch);
+                leader = true;
+            }
+            index = batch.args.size();
+            batch.args.add(arg);
+            if (batch.args.size() >= config.getMaxBatchSize()) {
+                // 批次已满，后续调用方开始新的批次
+                batches.remove(name);
+                batch.full = true;
+                if (!leader) {
+                    LockSupport.unpark(batch.leader);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (leader) {
+            await(batch);
+            lock.lock();
+            try {
+                batches.remove(name, batch);
+            } finally {
+                lock.unlock();
+            }
+            execute(batch);
+        }
+        try {
+            return batch.result.get().get(index);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RedisException("Execute command interrupted.", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RedisException ? (RedisException) e.getCause() : new RedisException("Execute command failed.", e.getCause());
+        }
+    }
+
+    /**
+     * 等待其他调用方加入批次，直到窗口结束或批次已满
+     */
+    private void await(Batch batch) {
+        long deadline = System.nanoTime() + TimeUnit.MICROSECONDS.toNanos(config.getWindowMicros());
+        long remaining;
+        while (!batch.full && (remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(this, remaining);
+        }
+    }
+
+    private void execute(Batch batch) {
+        byte[][] args;
+        lock.lock();
+        try {
+            args = batch.args.toArray(new byte[0][]);
+        } finally {
+            lock.unlock();
+        }
+        batchCount.incrementAndGet();
+        try {
+            batch.result.complete(split(pool.execute(client -> send(client, batch.key, args)), args.length));
+        } catch (RuntimeException e) {
+            batch.result.completeExceptionally(e);
+        }
+    }
+
+    private static RedisReply send(RedisClient client, byte[] key, byte[][] args) {
+        if (args.length == 1) {
+            // 只有一个调用方时不需要合并
+            return key == null ? client.execAndReturn(RedisCommand.GET, args[0])
+                    : client.execAndReturn(RedisCommand.HGET, key, args[0]);
+        }
+        if (key == null) {
+            return client.execAndReturn(RedisCommand.MGET, args);
+        }
+        byte[][] hmget = new byte[args.length + 1][];
+        hmget[0] = key;
+        System.arraycopy(args, 0, hmget, 1, args.length);
+        return client.execAndReturn(RedisCommand.HMGET, hmget);
+    }
+
+    /**
+     * @return 每个调用方的结果，出错时所有调用方都得到该错误
+     */
+    @SuppressWarnings("unchecked")
+    private static List<RedisReply> split(RedisReply reply, int size) {
+        List<RedisReply> replies = new ArrayList<>(size);
+        if (size > 1 && reply.getType() == RedisReplyType.ARRAYS) {
+            replies.addAll((List<RedisReply>) reply.getData());
+        } else {
+            for (int i = 0; i < size; i++) {
+                replies.add(reply);
+            }
+        }
+        return replies;
+    }
+
+    private static class Batch {
+        final byte[] key;
+        final Thread leader;
+        final List<byte[]> args = new ArrayList<>();
+        final CompletableFuture<List<RedisReply>> result = new CompletableFuture<>();
+        volatile boolean full;
+
+        Batch(byte[] key, Thread leader) {
+            this.key = key;
+            this.leader = leader;
+        }
+    }
+
+    public static class Config {
+        private long windowMicros = 50;
+        private int maxBatchSize = 128;
+
+        /**
+         * @return 收集一个批次的最长时间，单个调用方的延迟最多增加这么多
+         */
+        public long getWindowMicros() {
+            return windowMicros;
+        }
+
+        public void setWindowMicros(long windowMicros) {
+            this.windowMicros = windowMicros;
+        }
+
+        /**
+         * @return 一个批次最多合并的调用个数
+         */
+        public int getMaxBatchSize() {
+            return maxBatchSize;
+        }
+
+        public void setMaxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+        }
+    }
+
+    public static class Stats {
+        private long requestCount;
+        private long batchCount;
+
+        /**
+         * @return 调用次数
+         */
+        public long getRequestCount() {
+            return requestCount;
+        }
+
+        /**
+         * @return 实际发送的命令个数
+         */
+        public long getBatchCount() {
+            return batchCount;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{" +
+                    "requestCount=" + requestCount +
+                    ", batchCount=" + batchCount +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.github.myibu.redis.client;
+
+import com.github.myibu.redis.client.RedisClient.RedisOutputStream;
+import com.github.myibu.redis.client.RedisClient.RedisReply;
+
+import java.io.IOException;
+
+/**
+ * 值的编解码器，编码时直接写入输出流
+ * <pre>
+ * RedisCodec&lt;User&gt; codec = new RedisCodec&lt;User&gt;() {
+ *     public void write(RedisOutputStream out, User value) throws IOException {
+ *         out.writeBulk(mapper.writeValueAsBytes(value));
+ *     }
+ *     public User read(RedisReply reply) {
+ *         return mapper.readValue(reply.getBytes(), User.class);
+ *     }
+ * };
+ * </pre>
+ * @author myibu
+ * Create on 2026/10/18
+ */
+public interface RedisCodec<T> {
+
+    /**
+     * 写入一个Bulk Strings参数，可以使用{@link RedisOutputStream#writeBulk(byte[])}等方法
+     * @param out 输出流
+     * @param value 值，不为null
+     */
+    void write(RedisOutputStream out, T value) throws IOException;
+
+    /**
+     * @param reply Bulk Strings响应，不为空响应
+     * @return 值
+     */
+    T read(RedisReply reply);
+
+    /**
+     * @return 按原样读写byte数组的编解码器
+     */
+    static RedisCodec<byte[]> bytes() {
+        return Codecs.BYTES;
+    }
+
+    /**
+     * @return 以UTF-8读写字符串的编解码器
+     */
+    static RedisCodec<String> utf8() {
+        return Codecs.UTF8;
+    }
+
+    final class Codecs {
+        private static final RedisCodec<byte[]> BYTES = new RedisCodec<byte[]>() {
+            @Override
+            public void write(RedisOutputStream out, byte[] value) throws IOException {
+                out.writeBulk(value);
+            }
+
+            @Override
+            public byte[] read(RedisReply reply) {
+                return reply.getBytes();
+            }
+        };
+
+        private static final RedisCodec<String> UTF8 = new RedisCodec<String>() {
+            @Override
+            public void write(RedisOutputStream out, String value) throws IOException {
+                out.writeBulk(value);
+            }
+
+            @Override
+            public String read(RedisReply reply) {
+                return (String) reply.getData();
+            }
+        };
+
+        private Codecs() {
+        }
+    }
+}
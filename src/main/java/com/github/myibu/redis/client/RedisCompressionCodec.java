@@ -0,0 +1,320 @@
+package com.github.myibu.redis.client;
+
+import com.github.myibu.redis.client.RedisClient.RedisException;
+import com.github.myibu.redis.client.RedisClient.RedisOutputStream;
+import com.github.myibu.redis.client.RedisClient.RedisReply;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 压缩值的编解码器，包装另一个编解码器，超过阈值的值压缩后写入，读取时根据头部标记自动解压。
+ * 压缩后的值以7字节的头部开始：0x00 'z'、压缩算法id和4字节的原始长度，小于阈值或压缩后没有变小的值按原样写入。
+ * 原样写入的值恰好以0x00 'z'开头时，写入算法id为0的头部，保证读取时不会误判。
+ * 不经过该编解码器写入的旧数据可以直接读取，但以0x00 'z'开头且不少于7字节的二进制值会被当作压缩后的值，
+ * 读取失败或得到错误的结果，这类数据需要先通过该编解码器重新写入。
+ * 被包装的编解码器每次写入一个Bulk Strings，写入时先写入复用的缓冲区，压缩结果直接写入输出流。
+ * <pre>
+ * RedisCompressionCodec.Config config = new RedisCompressionCodec.Config();
+ * config.setThresholdBytes(4096);
+ * RedisTypedClient&lt;String&gt; client = new RedisTypedClient&lt;&gt;(redisClient, new RedisCompressionCodec&lt;&gt;(RedisCodec.utf8(), config));
+ * </pre>
+ * @author myibu
+ * Create on 2026/10/18
+ */
+public class RedisCompressionCodec<T> implements RedisCodec<T> {
+    static final byte MAGIC_0 = 0;
+    static final byte MAGIC_1 = 'z';
+    static final int HEADER_LENGTH = 7;
+    // 按原样保存的值
+    private static final int STORED = 0;
+    // 超过该大小的缓冲区用完后释放
+    private static final int MAX_RETAINED_SIZE = 1024 * 1024;
+    // 复用对象的上限，不随线程数增长
+    static final int POOL_SIZE = Math.max(2, Runtime.getRuntime().availableProcessors());
+    private static final BlockingQueue<Scratch> SCRATCH_POOL = new ArrayBlockingQueue<>(POOL_SIZE);
+
+    private final RedisCodec<T> delegate;
+    private final Config config;
+
+    public RedisCompressionCodec(RedisCodec<T> delegate, Config config) {
+        if (config.getCompressor().getId() <= STORED || config.getCompressor().getId() > 0xff) {
+            throw new RedisException("Compressor id must be between 1 and 255.");
+        }
+        this.delegate = delegate;
+        this.config = config;
+    }
+
+    @Override
+    public void write(RedisOutputStream out, T value) throws IOException {
+        Scratch scratch = SCRATCH_POOL.poll();
+        if (scratch == null) {
+            scratch = new Scratch();
+        }
+        try {
+            // 先由被包装的编解码器写入线程缓冲区，得到原始的Bulk Strings
+            scratch.raw.reset();
+            delegate.write(scratch.rawOut, value);
+            scratch.rawOut.flush();
+            byte[] raw = scratch.raw.buffer();
+            // 跳过$len\r\n
+            int len = 0;
+            int off = 1;
+            while (raw[off] != '\r') {
+                len = len * 10 + (raw[off++] - '0');
+            }
+            off += 2;
+            if (len >= config.getThresholdBytes()) {
+                ScratchBuffer packed = scratch.packed;
+                packed.reset();
+                writeHeader(packed, config.getCompressor().getId(), len);
+                config.getCompressor().compress(raw, off, len, packed);
+                if (packed.size() < len) {
+                    out.writeBulk(packed.buffer(), 0, packed.size());
+                    return;
+                }
+            }
+            if (len >= 2 && raw[off] == MAGIC_0 && raw[off + 1] == MAGIC_1) {
+                ScratchBuffer packed = scratch.packed;
+                packed.reset();
+                writeHeader(packed, STORED, len);
+                packed.write(raw, off, len);
+                out.writeBulk(packed.buffer(), 0, packed.size());
+                return;
+            }
+            out.write(raw, 0, scratch.raw.size());
+        } finally {
+            scratch.trim();
+            SCRATCH_POOL.offer(scratch);
+        }
+    }
+
+    @Override
+    public T read(RedisReply reply) {
+        ByteBuffer payload = reply.getByteBuffer();
+        if (payload == null || payload.remaining() < HEADER_LENGTH || payload.get(0) != MAGIC_0 || payload.get(1) != MAGIC_1) {
+            return delegate.read(reply);
+        }
+        int id = payload.get(2) & 0xff;
+        int len = payload.getInt(3);
+        // 长度来自头部，不可信，先检查再分配
+        if (len < 0 || len > Math.min(config.getMaxValueBytes(), Integer.MAX_VALUE - 32) || (id == STORED && len != payload.remaining() - HEADER_LENGTH)) {
+            throw new RedisException("Corrupted compressed value, length " + len + ".");
+        }
+        // 解压到新的Bulk Strings中，被包装的编解码器直接读取，不再复制
+        byte[] header = ("$" + len + "\r\n").getBytes(StandardCharsets.US_ASCII);
+        byte[] frame = new byte[header.length + len + 2];
+        System.arraycopy(header, 0, frame, 0, header.length);
+        frame[frame.length - 2] = '\r';
+        frame[frame.length - 1] = '\n';
+        if (id == STORED) {
+            payload.position(HEADER_LENGTH);
+            payload.get(frame, header.length, len);
+        } else if (id == config.getCompressor().getId()) {
+            byte[] compressed = new byte[payload.remaining() - HEADER_LENGTH];
+            payload.position(HEADER_LENGTH);
+            payload.get(compressed);
+            try {
+                config.getCompressor().decompress(compressed, 0, compressed.length, frame, header.length, len);
+            } catch (IOException e) {
+                throw new RedisException("Decompress value failed.", e);
+            }
+        } else {
+            throw new RedisException("Unknown compressor id " + id + ".");
+        }
+        return delegate.read(RedisReply.wrap(frame, 0, frame.length));
+    }
+
+    public RedisCodec<T> getDelegate() {
+        return delegate;
+    }
+
+    public Config getConfig() {
+        return config;
+    }
+
+    private static void writeHeader(ScratchBuffer out, int id, int len) {
+        out.write(MAGIC_0);
+        out.write(MAGIC_1);
+        out.write(id);
+        out.write(len >>> 24);
+        out.write(len >>> 16);
+        out.write(len >>> 8);
+        out.write(len);
+    }
+
+    /**
+     * 压缩算法，实现需要线程安全
+     */
+    public interface Compressor {
+
+        /**
+         * @return 写入头部的算法id，1到255
+         */
+        int getId();
+
+        /**
+         * 压缩b中off开始的len个字节，写入out
+         */
+        void compress(byte[] b, int off, int len, OutputStream out) throws IOException;
+
+        /**
+         * 解压b中off开始的len个字节，结果恰好填满dst中dstOff开始的dstLen个字节
+         */
+        void decompress(byte[] b, int off, int len, byte[] dst, int dstOff, int dstLen) throws IOException;
+
+        /**
+         * @param level 压缩级别，见{@link Deflater#BEST_SPEED}
+         * @return 使用JDK Deflater/Inflater的压缩算法，id为1
+         */
+        static Compressor deflate(int level) {
+            return new DeflateCompressor(level);
+        }
+    }
+
+    /**
+     * 通过有上限的池复用Deflater和Inflater，池满时归还的对象立即调用end()释放本地内存
+     */
+    static class DeflateCompressor implements Compressor {
+        private final int level;
+        private final BlockingQueue<Deflater> deflaters = new ArrayBlockingQueue<>(POOL_SIZE);
+        private final BlockingQueue<Inflater> inflaters = new ArrayBlockingQueue<>(POOL_SIZE);
+
+        DeflateCompressor(int level) {
+            this.level = level;
+        }
+
+        @Override
+        public int getId() {
+            return 1;
+        }
+
+        @Override
+        public void compress(byte[] b, int off, int len, OutputStream out) throws IOException {
+            Deflater deflater = deflaters.poll();
+            if (deflater == null) {
+                deflater = new Deflater(level);
+            }
+            try {
+                byte[] chunk = new byte[Math.min(8192, len + 64)];
+                deflater.setInput(b, off, len);
+                deflater.finish();
+                while (!deflater.finished()) {
+                    int n = deflater.deflate(chunk);
+                    out.write(chunk, 0, n);
+                }
+            } finally {
+                deflater.reset();
+                if (!deflaters.offer(deflater)) {
+                    deflater.end();
+                }
+            }
+        }
+
+        @Override
+        public void decompress(byte[] b, int off, int len, byte[] dst, int dstOff, int dstLen) throws IOException {
+            Inflater inflater = inflaters.poll();
+            if (inflater == null) {
+                inflater = new Inflater();
+            }
+            try {
+                inflater.setInput(b, off, len);
+                int total = 0;
+                try {
+                    while (!inflater.finished()) {
+                        int n = inflater.inflate(dst, dstOff + total, dstLen - total);
+                        if (n == 0 && (inflater.needsInput() || inflater.needsDictionary() || total == dstLen)) {
+                            break;
+                        }
+                        total += n;
+                    }
+                } catch (DataFormatException e) {
+                    throw new IOException("Corrupted compressed value.", e);
+                }
+                if (!inflater.finished() || total != dstLen) {
+                    throw new IOException("Corrupted compressed value, expected " + dstLen + " bytes but got " + total + ".");
+                }
+            } finally {
+                inflater.reset();
+                if (!inflaters.offer(inflater)) {
+                    inflater.end();
+                }
+            }
+        }
+    }
+
+    /**
+     * 复用的缓冲区，raw保存被包装的编解码器写入的Bulk Strings，packed保存压缩后的值
+     */
+    private static class Scratch {
+        ScratchBuffer raw = new ScratchBuffer();
+        RedisOutputStream rawOut = new RedisOutputStream(raw);
+        ScratchBuffer packed = new ScratchBuffer();
+
+        void trim() {
+            if (raw.buffer().length > MAX_RETAINED_SIZE) {
+                raw = new ScratchBuffer();
+                rawOut = new RedisOutputStream(raw);
+            }
+            if (packed.buffer().length > MAX_RETAINED_SIZE) {
+                packed = new ScratchBuffer();
+            }
+        }
+    }
+
+    /**
+     * 可以直接访问内部数组的ByteArrayOutputStream
+     */
+    private static class ScratchBuffer extends ByteArrayOutputStream {
+        byte[] buffer() {
+            return buf;
+        }
+    }
+
+    public static class Config {
+        private int thresholdBytes = 1024;
+        private Compressor compressor = Compressor.deflate(Deflater.BEST_SPEED);
+        private int maxValueBytes = 512 * 1024 * 1024;
+
+        /**
+         * @return 压缩的最小值长度，小于该长度的值按原样写入
+         */
+        public int getThresholdBytes() {
+            return thresholdBytes;
+        }
+
+        public void setThresholdBytes(int thresholdBytes) {
+            this.thresholdBytes = thresholdBytes;
+        }
+
+        /**
+         * @return 压缩算法，默认为最快级别的Deflate
+         */
+        public Compressor getCompressor() {
+            return compressor;
+        }
+
+        public void setCompressor(Compressor compressor) {
+            this.compressor = compressor;
+        }
+
+        /**
+         * @return 读取时允许的最大原始长度，默认为Redis字符串的上限512MB，超过时视为损坏的值
+         */
+        public int getMaxValueBytes() {
+            return maxValueBytes;
+        }
+
+        public void setMaxValueBytes(int maxValueBytes) {
+            this.maxValueBytes = maxValueBytes;
+        }
+    }
+}
@@ -0,0 +1,437 @@
+package com.github.myibu.redis.client;
+
+import com.github.myibu.redis.client.RedisClient.RedisCommand;
+import com.github.myibu.redis.client.RedisClient.RedisException;
+import com.github.myibu.redis.client.RedisClient.RedisReply;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 对冲读取的客户端，线程安全
+ * 只读命令超过延迟阈值仍未返回时，通过另一个连接或从节点再发送一次，使用先到达的响应。
+ * 每个节点使用一个{@link RedisAsyncClient}，未被使用的响应由该连接按顺序读取后丢弃，不影响后续命令。
+ * 延迟阈值取最近一批只读命令延迟的百分位，对冲请求数受预算限制，如：不超过只读命令数的5%。
+ * <pre>
+ * RedisHedgedClient client = new RedisHedgedClient(new InetSocketAddress("127.0.0.1", 6379), new RedisHedgedClient.Config());
+ * client.execAndReturn(RedisCommand.GET, "foo");
+ * </pre>
+ * @author myibu
+ * Create on 2026/10/18
+ */
+public class RedisHedgedClient {
+    private final Config config;
+    private final List<RedisAsyncClient> clients;
+    private final ScheduledThreadPoolExecutor timer;
+    private final AtomicInteger next = new AtomicInteger();
+    // 对冲预算，单位为百分之一个请求
+    private final AtomicLong budget = new AtomicLong();
+    private final long maxBudget;
+    private volatile RedisLatencyHistogram window = new RedisLatencyHistogram();
+    private final AtomicInteger windowCount = new AtomicInteger();
+    private volatile long delayNanos;
+    private final AtomicLong readCount = new AtomicLong();
+    private final AtomicLong hedgeCount = new AtomicLong();
+    private final AtomicLong hedgeWinCount = new AtomicLong();
+    private final AtomicLong budgetExhaustedCount = new AtomicLong();
+
+    /**
+     * 对冲请求通过同一节点的第二个连接发送
+     * @param address 节点地址
+     * @param config 配置
+     */
+    public RedisHedgedClient(InetSocketAddress address, Config config) {
+        this(Collections.nCopies(2, address), config);
+    }
+
+    /**
+     * 只读命令轮流发送到各个节点，对冲请求发送到下一个节点，其他命令只发送到第一个节点
+     * @param addresses 节点地址，如：主节点和从节点，至少两个
+     * @param config 配置
+     */
+    public RedisHedgedClient(List<InetSocketAddress> addresses, Config config) {
+        if (addresses.size() < 2) {
+            throw new RedisException("Hedged client needs at least two connections.");
+        }
+        this.config = config;
+        this.maxBudget = Math.max(config.getMaxBurst(), 1) * 100L;
+        this.budget.set(config.getMaxBurst() * 100L);
+        this.delayNanos = TimeUnit.MILLISECONDS.toNanos(config.getInitialDelayMillis());
+        List<RedisAsyncClient> clients = new ArrayList<>();
+        try {
+            for (InetSocketAddress address : addresses) {
+                clients.add(new RedisAsyncClient(address));
+            }
+        } catch (RuntimeException e) {
+            for (RedisAsyncClient client : clients) {
+                client.close();
+            }
+            throw e;
+        }
+        this.clients = Collections.unmodifiableList(clients);
+        this.timer = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "redis-hedged-client-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 先返回的请求会取消定时任务，不保留在队列中
+        this.timer.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * 执行无参数的命令
+     * @param command redis命令，如：ping
+     * @return 执行结果
+     */
+    public CompletableFuture<RedisReply> exec(RedisCommand command) {
+        return exec(command, new byte[0][]);
+    }
+
+    /**
+     * 执行命令
+     * @param command redis命令，如：get
+     * @param args redis命令参数： 如： [foo]
+     * @return 执行结果
+     */
+    public CompletableFuture<RedisReply> exec(RedisCommand command, String ...args) {
+        try {
+            return exec(command, RedisClient.encodeArgs(args));
+        } catch (Exception e) {
+            CompletableFuture<RedisReply> future = new CompletableFuture<>();
+            future.completeExceptionally(new RedisException("Execute command failed.", e));
+            return future;
+        }
+    }
+
+    /**
+     * 执行命令，参数按原样发送，只读命令超过延迟阈值后发送对冲请求
+     * @param command redis命令，如：get
+     * @param args redis命令参数
+     * @return 执行结果，先到达的响应
+     */
+    public CompletableFuture<RedisReply> exec(RedisCommand command, byte[] ...args) {
+        if (!RedisReplicatedClient.READ_ONLY_COMMANDS.contains(command)) {
+            return clients.get(0).exec(command, args);
+        }
+        readCount.incrementAndGet();
+        addBudget();
+        int index = Math.floorMod(next.getAndIncrement(), clients.size());
+        RedisAsyncClient primary = clients.get(index);
+        RedisAsyncClient secondary = clients.get((index + 1) % clients.size());
+        Call call = new Call();
+        long start = System.nanoTime();
+        primary.exec(command, args).whenComplete((reply, e) -> {
+            record(System.nanoTime() - start);
+            call.onComplete(reply, e, false);
+        });
+        if (!call.result.isDone()) {
+            call.hedge = timer.schedule(() -> hedge(call, secondary, command, args), delayNanos, TimeUnit.NANOSECONDS);
+            if (call.result.isDone()) {
+                call.hedge.cancel(false);
+            }
+        }
+        return call.result;
+    }
+
+    /**
+     * 执行命令并等待结果
+     * @param command redis命令，如：get
+     * @param args redis命令参数： 如： [foo]
+     * @return 执行结果
+     */
+    public RedisReply execAndReturn(RedisCommand command, String ...args) {
+        return join(exec(command, args));
+    }
+
+    /**
+     * 执行命令并等待结果，参数按原样发送
+     * @param command redis命令，如：get
+     * @param args redis命令参数
+     * @return 执行结果
+     */
+    public RedisReply execAndReturn(RedisCommand command, byte[] ...args) {
+        return join(exec(command, args));
+    }
+
+    /**
+     * @return 当前的对冲延迟阈值
+     */
+    public long getDelayNanos() {
+        return delayNanos;
+    }
+
+    public Config getConfig() {
+        return config;
+    }
+
+    /**
+     * @return 对冲读取的统计信息
+     */
+    public Stats getStats() {
+        Stats stats = new Stats();
+        stats.readCount = readCount.get();
+        stats.hedgeCount = hedgeCount.get();
+        stats.hedgeWinCount = hedgeWinCount.get();
+        stats.budgetExhaustedCount = budgetExhaustedCount.get();
+        stats.delayNanos = delayNanos;
+        return stats;
+    }
+
+    /**
+     * 关闭客户端，尚未完成的命令会以异常结束
+     */
+    public void close() {
+        timer.shutdownNow();
+        for (RedisAsyncClient client : clients) {
+            client.close();
+        }
+    }
+
+    private void hedge(Call call, RedisAsyncClient secondary, RedisCommand command, byte[][] args) {
+        if (call.result.isDone()) {
+            return;
+        }
+        // 第一个请求已经失败时不再对冲，也不消耗预算
+        if (call.pending.getAndUpdate(n -> n == 0 ? 0 : n + 1) == 0) {
+            return;
+        }
+        if (!takeBudget()) {
+            budgetExhaustedCount.incrementAndGet();
+            // 撤销计数，第一个请求期间已经失败时由这里结束
+            call.release();
+            return;
+        }
+        hedgeCount.incrementAndGet();
+        secondary.exec(command, args).whenComplete((reply, e) -> call.onComplete(reply, e, true));
+    }
+
+    private void addBudget() {
+        long current;
+        long updated;
+        do {
+            current = budget.get();
+            updated = Math.min(current + config.getBudgetPercent(), maxBudget);
+        } while (current != updated && !budget.compareAndSet(current, updated));
+    }
+
+    private boolean takeBudget() {
+        long current;
+        do {
+            current = budget.get();
+            if (current < 100) {
+                return false;
+            }
+        } while (!budget.compareAndSet(current, current - 100));
+        return true;
+    }
+
+    /**
+     * 记录第一个请求的延迟，每满一批重新计算延迟阈值并开始新的一批
+     */
+    private void record(long nanos) {
+        RedisLatencyHistogram histogram = window;
+        histogram.record(nanos);
+        if (windowCount.incrementAndGet() == config.getWindowSize()) {
+            delayNanos = Math.max(histogram.getValueAtPercentile(config.getDelayPercentile()),
+                    TimeUnit.MICROSECONDS.toNanos(config.getMinDelayMicros()));
+            window = new RedisLatencyHistogram();
+            windowCount.set(0);
+        }
+    }
+
+    private static RedisReply join(CompletableFuture<RedisReply> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RedisException) {
+                throw (RedisException) e.getCause();
+            }
+            throw new RedisException("Execute command failed.", e.getCause());
+        }
+    }
+
+    /**
+     * 一次只读命令，包括第一个请求和可能的对冲请求
+     */
+    private class Call {
+        final CompletableFuture<RedisReply> result = new CompletableFuture<>();
+        // 尚未返回的请求数，为0时所有请求都已失败
+        final AtomicInteger pending = new AtomicInteger(1);
+        // 统计在完成result之前更新，调用方返回后可以看到
+        final AtomicBoolean settled = new AtomicBoolean();
+        volatile ScheduledFuture<?> hedge;
+        // 最近一个失败请求的异常
+        volatile Throwable failure;
+
+        void onComplete(RedisReply reply, Throwable e, boolean hedged) {
+            if (e == null) {
+                if (settled.compareAndSet(false, true)) {
+                    cancelHedge();
+                    if (hedged) {
+                        hedgeWinCount.incrementAndGet();
+                    }
+                    result.complete(reply);
+                }
+                return;
+            }
+            failure = e;
+            release();
+        }
+
+        /**
+         * 一个请求失败或放弃对冲，所有请求都已失败时以最近的异常结束
+         */
+        void release() {
+            if (pending.decrementAndGet() == 0 && settled.compareAndSet(false, true)) {
+                cancelHedge();
+                result.completeExceptionally(failure);
+            }
+        }
+
+        private void cancelHedge() {
+            ScheduledFuture<?> task = hedge;
+            if (task != null) {
+                task.cancel(false);
+            }
+        }
+    }
+
+    public static class Config {
+        private double delayPercentile = 95;
+        private long initialDelayMillis = 10;
+        private long minDelayMicros = 100;
+        private int windowSize = 1000;
+        private int budgetPercent = 5;
+        private int maxBurst = 10;
+
+        /**
+         * @return 延迟阈值使用的百分位
+         */
+        public double getDelayPercentile() {
+            return delayPercentile;
+        }
+
+        public void setDelayPercentile(double delayPercentile) {
+            this.delayPercentile = delayPercentile;
+        }
+
+        /**
+         * @return 第一批延迟统计完成之前使用的延迟阈值
+         */
+        public long getInitialDelayMillis() {
+            return initialDelayMillis;
+        }
+
+        public void setInitialDelayMillis(long initialDelayMillis) {
+            this.initialDelayMillis = initialDelayMillis;
+        }
+
+        /**
+         * @return 延迟阈值的下限，避免在延迟很低时频繁对冲
+         */
+        public long getMinDelayMicros() {
+            return minDelayMicros;
+        }
+
+        public void setMinDelayMicros(long minDelayMicros) {
+            this.minDelayMicros = minDelayMicros;
+        }
+
+        /**
+         * @return 每批统计的只读命令数，每批结束后更新延迟阈值
+         */
+        public int getWindowSize() {
+            return windowSize;
+        }
+
+        public void setWindowSize(int windowSize) {
+            this.windowSize = windowSize;
+        }
+
+        /**
+         * @return 对冲请求数占只读命令数的最大百分比
+         */
+        public int getBudgetPercent() {
+            return budgetPercent;
+        }
+
+        public void setBudgetPercent(int budgetPercent) {
+            this.budgetPercent = budgetPercent;
+        }
+
+        /**
+         * @return 预算可以累积的对冲请求数，允许短时间内连续对冲
+         */
+        public int getMaxBurst() {
+            return maxBurst;
+        }
+
+        public void setMaxBurst(int maxBurst) {
+            this.maxBurst = maxBurst;
+        }
+    }
+
+    /**
+     * 对冲读取的统计信息
+     */
+    public static class Stats {
+        private long readCount;
+        private long hedgeCount;
+        private long hedgeWinCount;
+        private long budgetExhaustedCount;
+        private long delayNanos;
+
+        /**
+         * @return 只读命令数
+         */
+        public long getReadCount() {
+            return readCount;
+        }
+
+        /**
+         * @return 发送的对冲请求数
+         */
+        public long getHedgeCount() {
+            return hedgeCount;
+        }
+
+        /**
+         * @return 对冲请求先返回的次数
+         */
+        public long getHedgeWinCount() {
+            return hedgeWinCount;
+        }
+
+        /**
+         * @return 超过延迟阈值但因预算不足没有对冲的次数
+         */
+        public long getBudgetExhaustedCount() {
+            return budgetExhaustedCount;
+        }
+
+        public long getDelayNanos() {
+            return delayNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{" +
+                    "readCount=" + readCount +
+                    ", hedgeCount=" + hedgeCount +
+                    ", hedgeWinCount=" + hedgeWinCount +
+                    ", budgetExhaustedCount=" + budgetExhaustedCount +
+                    ", delayNanos=" + delayNanos +
+                    '}';
+        }
+    }
+}
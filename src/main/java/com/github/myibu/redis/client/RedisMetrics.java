@@ -0,0 +1,216 @@
+package com.github.myibu.redis.client;
+
+import com.github.myibu.redis.client.RedisClient.RedisCommand;
+import com.github.myibu.redis.client.RedisClient.RedisException;
+import com.github.myibu.redis.client.RedisClient.RedisReplyType;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+/**
+ * 内置的指标统计，线程安全，可以由多个客户端和连接池共享
+ * 每个命令分别统计总延迟和其中阻塞等待网络数据的时间，两者的差为客户端编码和解析的开销。
+ * <pre>
+ * RedisMetrics metrics = new RedisMetrics();
+ * redisClient.setMetricsListener(metrics);
+ * metrics.registerMBean("default");
+ * </pre>
+ * @author myibu
+ * Create on 2026/10/18
+ */
+public class RedisMetrics implements RedisMetricsListener, RedisMetricsMXBean {
+    private static final RedisCommand[] COMMANDS = RedisCommand.values();
+    private static final RedisReplyType[] REPLY_TYPES = RedisReplyType.values();
+
+    private final AtomicReferenceArray<RedisLatencyHistogram> latencies = new AtomicReferenceArray<>(COMMANDS.length);
+    private final AtomicReferenceArray<RedisLatencyHistogram> ioWaits = new AtomicReferenceArray<>(COMMANDS.length);
+    private final AtomicLongArray replyCounts = new AtomicLongArray(REPLY_TYPES.length);
+    private final RedisLatencyHistogram poolWait = new RedisLatencyHistogram();
+    private final LongAdder bytesWritten = new LongAdder();
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder reconnectCount = new LongAdder();
+    private ObjectName objectName;
+
+    @Override
+    public void onCommand(RedisCommand command, long latencyNanos, long ioWaitNanos) {
+        histogram(latencies, command).record(latencyNanos);
+        histogram(ioWaits, command).record(ioWaitNanos);
+    }
+
+    @Override
+    public void onReply(RedisReplyType type) {
+        replyCounts.incrementAndGet(type.ordinal());
+    }
+
+    @Override
+    public void onBytesWritten(long bytes) {
+        bytesWritten.add(bytes);
+    }
+
+    @Override
+    public void onBytesRead(long bytes) {
+        bytesRead.add(bytes);
+    }
+
+    @Override
+    public void onReconnect(InetSocketAddress address) {
+        reconnectCount.increment();
+    }
+
+    @Override
+    public void onPoolWait(long waitNanos) {
+        poolWait.record(waitNanos);
+    }
+
+    /**
+     * @return 命令的延迟直方图，单位纳秒，没有执行过时为null
+     */
+    public RedisLatencyHistogram getLatency(RedisCommand command) {
+        return latencies.get(command.ordinal());
+    }
+
+    /**
+     * @return 命令阻塞等待网络数据时间的直方图，单位纳秒，没有执行过时为null
+     */
+    public RedisLatencyHistogram getIoWait(RedisCommand command) {
+        return ioWaits.get(command.ordinal());
+    }
+
+    /**
+     * @return 从连接池借出连接的等待时间直方图，单位纳秒
+     */
+    public RedisLatencyHistogram getPoolWait() {
+        return poolWait;
+    }
+
+    public long getReplyCount(RedisReplyType type) {
+        return replyCounts.get(type.ordinal());
+    }
+
+    @Override
+    public long getCommandCount() {
+        long count = 0;
+        for (int i = 0; i < COMMANDS.length; i++) {
+            RedisLatencyHistogram histogram = latencies.get(i);
+            if (histogram != null) {
+                count += histogram.getCount();
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public long getBytesWritten() {
+        return bytesWritten.sum();
+    }
+
+    @Override
+    public long getBytesRead() {
+        return bytesRead.sum();
+    }
+
+    @Override
+    public long getErrorCount() {
+        return getReplyCount(RedisReplyType.ERRORS) + getReplyCount(RedisReplyType.BLOB_ERRORS);
+    }
+
+    @Override
+    public long getReconnectCount() {
+        return reconnectCount.sum();
+    }
+
+    @Override
+    public Map<String, Long> getCommandCounts() {
+        return collect(latencies, RedisLatencyHistogram::getCount);
+    }
+
+    @Override
+    public Map<String, Long> getLatencyP50Nanos() {
+        return collect(latencies, histogram -> histogram.getValueAtPercentile(50));
+    }
+
+    @Override
+    public Map<String, Long> getLatencyP99Nanos() {
+        return collect(latencies, histogram -> histogram.getValueAtPercentile(99));
+    }
+
+    @Override
+    public Map<String, Long> getIoWaitP99Nanos() {
+        return collect(ioWaits, histogram -> histogram.getValueAtPercentile(99));
+    }
+
+    @Override
+    public Map<String, Long> getReplyCounts() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (int i = 0; i < REPLY_TYPES.length; i++) {
+            long count = replyCounts.get(i);
+            if (count > 0) {
+                counts.put(REPLY_TYPES[i].name(), count);
+            }
+        }
+        return counts;
+    }
+
+    @Override
+    public long getPoolWaitP99Nanos() {
+        return poolWait.getValueAtPercentile(99);
+    }
+
+    /**
+     * 注册到平台MBeanServer，ObjectName为com.github.myibu.redis:type=RedisMetrics,name={name}
+     * @param name 名称，用于区分多个实例
+     */
+    public void registerMBean(String name) {
+        try {
+            ObjectName objectName = new ObjectName("com.github.myibu.redis:type=RedisMetrics,name=" + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+            this.objectName = objectName;
+        } catch (JMException e) {
+            throw new RedisException("Register MBean failed.", e);
+        }
+    }
+
+    public void unregisterMBean() {
+        if (objectName == null) {
+            return;
+        }
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+            objectName = null;
+        } catch (JMException e) {
+            throw new RedisException("Unregister MBean failed.", e);
+        }
+    }
+
+    private static RedisLatencyHistogram histogram(AtomicReferenceArray<RedisLatencyHistogram> histograms, RedisCommand command) {
+        RedisLatencyHistogram histogram = histograms.get(command.ordinal());
+        if (histogram == null) {
+            histograms.compareAndSet(command.ordinal(), null, new RedisLatencyHistogram());
+            histogram = histograms.get(command.ordinal());
+        }
+        return histogram;
+    }
+
+    private static Map<String, Long> collect(AtomicReferenceArray<RedisLatencyHistogram> histograms, ToLongFunction<RedisLatencyHistogram> fn) {
+        Map<String, Long> values = new LinkedHashMap<>();
+        for (int i = 0; i < COMMANDS.length; i++) {
+            RedisLatencyHistogram histogram = histograms.get(i);
+            if (histogram != null) {
+                values.put(COMMANDS[i].name(), fn.applyAsLong(histogram));
+            }
+        }
+        return values;
+    }
+}
@@ -0,0 +1,51 @@
+package com.github.myibu.redis.client;
+
+import com.github.myibu.redis.client.RedisClient.RedisCommand;
+import com.github.myibu.redis.client.RedisClient.RedisReplyType;
+
+import java.net.InetSocketAddress;
+
+/**
+ * 客户端指标监听器，方法在执行命令的线程中同步调用，实现需要足够快且线程安全。
+ * 没有设置监听器时不会产生任何统计开销，内置实现见{@link RedisMetrics}。
+ * @author myibu
+ * Create on 2026/10/18
+ */
+public interface RedisMetricsListener {
+
+    /**
+     * 一问一答的命令执行完成，管道和事务中的命令不会触发
+     * @param command 命令
+     * @param latencyNanos 从开始写入命令到读取完整响应的时间
+     * @param ioWaitNanos 其中阻塞等待网络数据的时间，其余为编码、发送和解析的时间
+     */
+    default void onCommand(RedisCommand command, long latencyNanos, long ioWaitNanos) {
+    }
+
+    /**
+     * 读取到一个响应，包括管道和事务中的响应
+     * @param type 响应类型
+     */
+    default void onReply(RedisReplyType type) {
+    }
+
+    default void onBytesWritten(long bytes) {
+    }
+
+    default void onBytesRead(long bytes) {
+    }
+
+    /**
+     * 连接断开后重新连接
+     * @param address 服务端地址
+     */
+    default void onReconnect(InetSocketAddress address) {
+    }
+
+    /**
+     * 从连接池借出连接
+     * @param waitNanos 等待时间
+     */
+    default void onPoolWait(long waitNanos) {
+    }
+}
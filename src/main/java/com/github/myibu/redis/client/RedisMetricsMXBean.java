@@ -0,0 +1,48 @@
+package com.github.myibu.redis.client;
+
+import java.util.Map;
+
+/**
+ * 通过JMX暴露的客户端指标，见{@link RedisMetrics#registerMBean(String)}
+ * @author myibu
+ * Create on 2026/10/18
+ */
+public interface RedisMetricsMXBean {
+
+    long getCommandCount();
+
+    long getBytesWritten();
+
+    long getBytesRead();
+
+    long getErrorCount();
+
+    long getReconnectCount();
+
+    /**
+     * @return 每个命令的执行次数
+     */
+    Map<String, Long> getCommandCounts();
+
+    /**
+     * @return 每个命令延迟的P50，单位纳秒
+     */
+    Map<String, Long> getLatencyP50Nanos();
+
+    /**
+     * @return 每个命令延迟的P99，单位纳秒
+     */
+    Map<String, Long> getLatencyP99Nanos();
+
+    /**
+     * @return 每个命令阻塞等待网络数据时间的P99，单位纳秒
+     */
+    Map<String, Long> getIoWaitP99Nanos();
+
+    /**
+     * @return 每种响应类型的个数
+     */
+    Map<String, Long> getReplyCounts();
+
+    long getPoolWaitP99Nanos();
+}
@@ -0,0 +1,426 @@
+package com.github.myibu.redis.client;
+
+import com.github.myibu.redis.client.RedisClient.RedisCommand;
+import com.github.myibu.redis.client.RedisClient.RedisException;
+import com.github.myibu.redis.client.RedisClient.RedisReply;
+import com.github.myibu.redis.client.RedisClient.RedisReplyType;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 客户端缓存，缓存GET、HGET和HGETALL的结果，命中时不访问服务端
+ * 服务端通过CLIENT TRACKING在缓存的key被修改时发送失效通知，通知有两种接收方式：
+ * RESP3连接上的Push消息，或者重定向到单独的订阅连接(RESP2)。
+ * 按最近最少使用淘汰，同时限制缓存的key个数和响应的总字节数。
+ * <pre>
+ * RedisClient client = new RedisClient();
+ * client.enableNearCache(new RedisNearCache.Config());
+ * client.execAndReturn(RedisCommand.GET, "foo");
+ * </pre>
+ * @author myibu
+ * Create on 2026/10/18
+ */
+public class RedisNearCache {
+    private static final String INVALIDATE = "invalidate";
+    private static final String INVALIDATE_CHANNEL = "__redis__:invalidate";
+    // 每个key的固定开销估算
+    private static final int ENTRY_OVERHEAD = 64;
+
+    private final Config config;
+    private final ReentrantLock lock = new ReentrantLock();
+    // 按访问顺序排列，头部为最久未访问的key
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes = 0;
+    // 每次失效加1，用于丢弃失效通知之后才返回的旧数据
+    private final AtomicLong stamp = new AtomicLong();
+    private final RedisSubscriber invalidator;
+    private volatile boolean enabled = true;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+    private final AtomicLong invalidationCount = new AtomicLong();
+
+    RedisNearCache(InetSocketAddress address, Config config) {
+        if (config.getMaxEntries() <= 0 || config.getMaxBytes() <= 0) {
+            throw new IllegalArgumentException("Invalid cache size, maxEntries=" + config.getMaxEntries() + ", maxBytes=" + config.getMaxBytes());
+        }
+        this.config = config;
+        this.invalidator = config.isRedirect() ? createInvalidator(address) : null;
+    }
+
+    private RedisSubscriber createInvalidator(InetSocketAddress address) {
+        RedisSubscriber subscriber = new RedisSubscriber(address, Runnable::run);
+        CountDownLatch subscribed = new CountDownLatch(1);
+        subscriber.subscribe(new RedisSubscriber.Listener() {
+            @Override
+            public void onMessage(RedisSubscriber.Message message) {
+                invalidate(message.getReply());
+            }
+
+            @Override
+            public void onSubscribe(String name, long count) {
+                subscribed.countDown();
+            }
+
+            @Override
+            public void onError(Exception e) {
+                // 失效通知中断后缓存的数据不再可靠
+                enabled = false;
+                clear();
+            }
+        }, INVALIDATE_CHANNEL);
+        try {
+            if (!subscribed.await(config.getSubscribeTimeoutMillis(), TimeUnit.MILLISECONDS)) {
+                subscriber.close();
+                throw new RedisException("Subscribe " + INVALIDATE_CHANNEL + " timeout.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            subscriber.close();
+            throw new RedisException("Subscribe " + INVALIDATE_CHANNEL + " interrupted.", e);
+        }
+        return subscriber;
+    }
+
+    /**
+     * @return 开启CLIENT TRACKING的命令参数
+     */
+    String[] trackingArgs() {
+        if (invalidator == null) {
+            return new String[]{"TRACKING", "on"};
+        }
+        return new String[]{"TRACKING", "on", "REDIRECT", String.valueOf(invalidator.getClientId())};
+    }
+
+    /**
+     * @return 命令的结果是否可以缓存
+     */
+    static boolean isCacheable(RedisCommand command, byte[][] args) {
+        switch (command) {
+            case GET:
+            case HGETALL:
+                return args.length == 1;
+            case HGET:
+                return args.length == 2;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * @return 缓存的结果，未命中时返回null
+     */
+    RedisReply get(RedisCommand command, byte[][] args) {
+        if (!enabled) {
+            return null;
+        }
+        RedisReply reply = null;
+        lock.lock();
+        try {
+            Entry entry = entries.get(key(args[0]));
+            if (entry != null) {
+                switch (command) {
+                    case GET:
+                        reply = entry.value;
+                        break;
+                    case HGETALL:
+                        reply = entry.all;
+                        break;
+                    case HGET:
+                        reply = entry.fields == null ? null : entry.fields.get(key(args[1]));
+                        break;
+                    default:
+                        break;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        (reply == null ? missCount : hitCount).incrementAndGet();
+        return reply;
+    }
+
+    /**
+     * @return 当前的失效版本，发送命令前获取，写入缓存时传入
+     */
+    long stamp() {
+        return stamp.get();
+    }
+
+    /**
+     * 缓存命令的结果，获取stamp之后有失效通知时不缓存
+     */
+    void put(RedisCommand command, byte[][] args, RedisReply reply, long stamp) {
+        if (!enabled || reply.getType() == RedisReplyType.ERRORS || reply.getType() == RedisReplyType.BLOB_ERRORS) {
+            return;
+        }
+        int size = reply.size();
+        if (size + ENTRY_OVERHEAD > config.getMaxBytes()) {
+            return;
+        }
+        String key = key(args[0]);
+        lock.lock();
+        try {
+            if (stamp != this.stamp.get()) {
+                return;
+            }
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                entry = new Entry();
+                entry.bytes = ENTRY_OVERHEAD + args[0].length;
+                entries.put(key, entry);
+                bytes += entry.bytes;
+            }
+            RedisReply old;
+            switch (command) {
+                case GET:
+                    old = entry.value;
+                    entry.value = reply;
+                    break;
+                case HGETALL:
+                    old = entry.all;
+                    entry.all = reply;
+                    break;
+                case HGET:
+                    if (entry.fields == null) {
+                        entry.fields = new HashMap<>();
+                    }
+                    old = entry.fields.put(key(args[1]), reply);
+                    if (old == null) {
+                        size += args[1].length;
+                    }
+                    break;
+                default:
+                    return;
+            }
+            size -= old == null ? 0 : old.size();
+            entry.bytes += size;
+            bytes += size;
+            evict();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void evict() {
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext() && (entries.size() > config.getMaxEntries() || bytes > config.getMaxBytes())) {
+            bytes -= it.next().bytes;
+            it.remove();
+            evictionCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * 处理RESP3的Push消息
+     * @return 是否为失效通知
+     */
+    boolean onPush(RedisReply push) {
+        @SuppressWarnings("unchecked")
+        List<RedisReply> elements = (List<RedisReply>) push.getData();
+        if (elements.size() < 2 || !INVALIDATE.equals(elements.get(0).getData())) {
+            return false;
+        }
+        invalidate(elements.get(1));
+        return true;
+    }
+
+    /**
+     * 使缓存失效
+     * @param keys 失效的key数组，为null时表示服务端清空了数据库
+     */
+    private void invalidate(RedisReply keys) {
+        invalidationCount.incrementAndGet();
+        if (keys.isNull()) {
+            clear();
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        List<RedisReply> elements = (List<RedisReply>) keys.getData();
+        lock.lock();
+        try {
+            stamp.incrementAndGet();
+            for (RedisReply element : elements) {
+                Entry entry = entries.remove(key(element.getBytes()));
+                if (entry != null) {
+                    bytes -= entry.bytes;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void clear() {
+        lock.lock();
+        try {
+            stamp.incrementAndGet();
+            entries.clear();
+            bytes = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return 缓存是否可用，重定向的订阅连接断开后不再可用
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Config getConfig() {
+        return config;
+    }
+
+    public Stats getStats() {
+        Stats stats = new Stats();
+        lock.lock();
+        try {
+            stats.size = entries.size();
+            stats.bytes = bytes;
+        } finally {
+            lock.unlock();
+        }
+        stats.hitCount = hitCount.get();
+        stats.missCount = missCount.get();
+        stats.evictionCount = evictionCount.get();
+        stats.invalidationCount = invalidationCount.get();
+        return stats;
+    }
+
+    void close() {
+        enabled = false;
+        if (invalidator != null) {
+            invalidator.close();
+        }
+        clear();
+    }
+
+    /**
+     * 以ISO-8859-1解码，每个字节对应一个字符，二进制的key也不会冲突
+     */
+    private static String key(byte[] key) {
+        return new String(key, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * 同一个key的所有缓存结果，key失效时一起移除
+     */
+    private static class Entry {
+        RedisReply value;
+        RedisReply all;
+        Map<String, RedisReply> fields;
+        long bytes;
+    }
+
+    public static class Config {
+        private int maxEntries = 10000;
+        private long maxBytes = 64 * 1024 * 1024;
+        private boolean redirect = false;
+        private long subscribeTimeoutMillis = 3000;
+
+        /**
+         * @return 最多缓存的key个数
+         */
+        public int getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        /**
+         * @return 缓存的最大字节数
+         */
+        public long getMaxBytes() {
+            return maxBytes;
+        }
+
+        public void setMaxBytes(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        /**
+         * @return 是否通过单独的连接接收失效通知，为false时使用RESP3的Push消息
+         */
+        public boolean isRedirect() {
+            return redirect;
+        }
+
+        public void setRedirect(boolean redirect) {
+            this.redirect = redirect;
+        }
+
+        /**
+         * @return 重定向模式下订阅失效通知的最长等待时间
+         */
+        public long getSubscribeTimeoutMillis() {
+            return subscribeTimeoutMillis;
+        }
+
+        public void setSubscribeTimeoutMillis(long subscribeTimeoutMillis) {
+            this.subscribeTimeoutMillis = subscribeTimeoutMillis;
+        }
+    }
+
+    public static class Stats {
+        private int size;
+        private long bytes;
+        private long hitCount;
+        private long missCount;
+        private long evictionCount;
+        private long invalidationCount;
+
+        public int getSize() {
+            return size;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getHitCount() {
+            return hitCount;
+        }
+
+        public long getMissCount() {
+            return missCount;
+        }
+
+        public long getEvictionCount() {
+            return evictionCount;
+        }
+
+        public long getInvalidationCount() {
+            return invalidationCount;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{" +
+                    "size=" + size +
+                    ", bytes=" + bytes +
+                    ", hitCount=" + hitCount +
+                    ", missCount=" + missCount +
+                    ", evictionCount=" + evictionCount +
+                    ", invalidationCount=" + invalidationCount +
+                    '}';
+        }
+    }
+}
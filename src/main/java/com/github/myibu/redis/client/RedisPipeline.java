@@ -0,0 +1,145 @@
+package com.github.myibu.redis.client;
+
+import com.github.myibu.redis.client.RedisClient.RedisCommand;
+import com.github.myibu.redis.client.RedisClient.RedisException;
+import com.github.myibu.redis.client.RedisClient.RedisReply;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Redis管道，批量发送命令后按顺序读取响应，多个命令只需要一次网络往返
+ * <pre>
+ * RedisPipeline pipeline = redisClient.pipelined();
+ * pipeline.exec(RedisCommand.SET, "foo", "bar");
+ * RedisPipeline.Response foo = pipeline.exec(RedisCommand.GET, "foo");
+ * pipeline.sync();
+ * foo.get();
+ * </pre>
+ * @author myibu
+ * Create on 2026/10/18
+ */
+public class RedisPipeline {
+    private final RedisClient client;
+    private final List<Response> responses = new ArrayList<>();
+
+    RedisPipeline(RedisClient client) {
+        this.client = client;
+    }
+
+    /**
+     * 添加无参数的命令
+     * @param command redis命令，如：ping
+     * @return 命令的响应，{@link #sync()}之后可用
+     */
+    public Response exec(RedisCommand command) {
+        return exec(command, new byte[0][]);
+    }
+
+    /**
+     * 添加命令
+     * @param command redis命令，如：set
+     * @param args redis命令参数： 如： [foo bar]
+     * @return 命令的响应，{@link #sync()}之后可用
+     */
+    public Response exec(RedisCommand command, String ...args) {
+        try {
+            return exec(command, RedisClient.encodeArgs(args));
+        } catch (RedisException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RedisException("Execute command failed.", e);
+        }
+    }
+
+    /**
+     * 添加命令，参数按原样发送
+     * @param command redis命令，如：set
+     * @param args redis命令参数
+     * @return 命令的响应，{@link #sync()}之后可用
+     */
+    public Response exec(RedisCommand command, byte[] ...args) {
+        try {
+            client.sendCommand(command.raw, args);
+        } catch (RedisException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RedisException("Execute command failed.", e);
+        }
+        Response response = new Response();
+        responses.add(response);
+        return response;
+    }
+
+    /**
+     * @return 尚未读取响应的命令个数
+     */
+    public int size() {
+        return responses.size();
+    }
+
+    /**
+     * 发送所有命令，并按顺序读取每个命令的响应
+     */
+    public void sync() {
+        if (responses.isEmpty()) {
+            return;
+        }
+        try {
+            client.flush();
+            for (Response response : responses) {
+                response.set(client.readReply());
+            }
+        } catch (RedisException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RedisException("Execute command failed.", e);
+        } finally {
+            responses.clear();
+        }
+    }
+
+    /**
+     * 发送所有命令，并按顺序返回每个命令的响应
+     * @return 所有命令的响应
+     */
+    public List<RedisReply> syncAndReturnAll() {
+        List<Response> pending = new ArrayList<>(responses);
+        sync();
+        List<RedisReply> replies = new ArrayList<>(pending.size());
+        for (Response response : pending) {
+            replies.add(response.get());
+        }
+        return replies;
+    }
+
+    /**
+     * 管道中单个命令的响应
+     */
+    public static class Response {
+        private RedisReply reply;
+        private boolean done;
+
+        void set(RedisReply reply) {
+            this.reply = reply;
+            this.done = true;
+        }
+
+        /**
+         * @return 是否已经读取到响应
+         */
+        public boolean isDone() {
+            return done;
+        }
+
+        /**
+         * @return 命令的响应
+         */
+        public RedisReply get() {
+            if (!done) {
+                throw new RedisException("Please call sync() before get the response.");
+            }
+            return reply;
+        }
+    }
+}
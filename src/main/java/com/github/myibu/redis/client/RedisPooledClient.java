@@ -0,0 +1,128 @@
+package com.github.myibu.redis.client;
+
+import com.github.myibu.redis.client.RedisClient.RedisCommand;
+import com.github.myibu.redis.client.RedisClient.RedisException;
+import com.github.myibu.redis.client.RedisClient.RedisReply;
+
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+
+/**
+ * 可在多个线程间共享的阻塞式Redis客户端
+ * 每个命令从连接池借出一个连接，执行完毕后立即归还，整个读写过程只使用java.util.concurrent中的锁，
+ * 不使用synchronized，因此大量虚拟线程共用同一个实例时不会占用(pin)载体线程。
+ * <pre>
+ * RedisPooledClient client = new RedisPooledClient();
+ * // 任意线程，包括虚拟线程
+ * client.execAndReturn(RedisCommand.GET, "foo");
+ * </pre>
+ * @author myibu
+ * Create on 2026/10/18
+ */
+public class RedisPooledClient {
+    private final RedisClientPool pool;
+    private final boolean ownPool;
+
+    public RedisPooledClient() {
+        this("127.0.0.1", 6379);
+    }
+
+    public RedisPooledClient(String hostname, int port) {
+        this(new InetSocketAddress(hostname, port), new RedisClientPool.Config());
+    }
+
+    public RedisPooledClient(InetSocketAddress socketAddress, RedisClientPool.Config config) {
+        this.pool = new RedisClientPool(socketAddress, config);
+        this.ownPool = true;
+    }
+
+    /**
+     * @param pool 使用已有的连接池，关闭客户端时不会关闭该连接池
+     */
+    public RedisPooledClient(RedisClientPool pool) {
+        this.pool = pool;
+        this.ownPool = false;
+    }
+
+    /**
+     * 执行无参数的命令并返回结果
+     * @param command redis命令，如：ping
+     * @return 执行结果
+     */
+    public RedisReply execAndReturn(RedisCommand command) {
+        return pool.execute(client -> client.execAndReturn(command));
+    }
+
+    /**
+     * 执行命令并返回结果
+     * @param command redis命令，如：set
+     * @param args redis命令参数： 如： [foo bar]
+     * @return 执行结果
+     */
+    public RedisReply execAndReturn(RedisCommand command, String ...args) {
+        byte[][] argBytes;
+        try {
+            argBytes = RedisClient.encodeArgs(args);
+        } catch (UnsupportedEncodingException e) {
+            throw new RedisException("Execute command failed.", e);
+        }
+        return execAndReturn(command, argBytes);
+    }
+
+    /**
+     * 执行命令并返回结果，参数按原样发送
+     * @param command redis命令，如：set
+     * @param args redis命令参数
+     * @return 执行结果
+     */
+    public RedisReply execAndReturn(RedisCommand command, byte[] ...args) {
+        return pool.execute(client -> client.execAndReturn(command, args));
+    }
+
+    /**
+     * 执行无参数的命令
+     * @param command redis命令，如：ping
+     */
+    public void exec(RedisCommand command) {
+        execAndReturn(command);
+    }
+
+    /**
+     * 执行命令
+     * @param command redis命令，如：set
+     * @param args redis命令参数： 如： [foo bar]
+     */
+    public void exec(RedisCommand command, String ...args) {
+        execAndReturn(command, args);
+    }
+
+    /**
+     * 执行命令，参数按原样发送
+     * @param command redis命令，如：set
+     * @param args redis命令参数
+     */
+    public void exec(RedisCommand command, byte[] ...args) {
+        execAndReturn(command, args);
+    }
+
+    /**
+     * 执行Lua脚本，见{@link RedisClient#eval(RedisScript, String[], String...)}
+     * @param script 脚本
+     * @param keys 脚本中的KEYS
+     * @param args 脚本中的ARGV
+     * @return 执行结果
+     */
+    public RedisReply eval(RedisScript script, String[] keys, String ...args) {
+        return pool.execute(client -> client.eval(script, keys, args));
+    }
+
+    public RedisClientPool getPool() {
+        return pool;
+    }
+
+    public void close() {
+        if (ownPool) {
+            pool.close();
+        }
+    }
+}
@@ -0,0 +1,479 @@
+package com.github.myibu.redis.client;
+
+import com.github.myibu.redis.client.RedisClient.RedisCommand;
+import com.github.myibu.redis.client.RedisClient.RedisException;
+import com.github.myibu.redis.client.RedisClient.RedisReply;
+import com.github.myibu.redis.client.RedisClient.RedisReplyType;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 读写分离的客户端，线程安全
+ * 写命令发送到主节点，只读命令发送到从节点。选择从节点时优先选择平均延迟与未完成命令数的乘积最小的节点，
+ * 可以限制从节点的复制延迟(字节数)，从节点都不可用时读取主节点。
+ * 从节点可以直接配置，也可以通过ROLE命令从主节点获取，后台定时刷新复制偏移量和延迟。
+ * <pre>
+ * RedisReplicatedClient client = new RedisReplicatedClient(new InetSocketAddress("127.0.0.1", 6379), new RedisReplicatedClient.Config());
+ * client.exec(RedisCommand.SET, "foo", "bar");
+ * client.execAndReturn(RedisCommand.GET, "foo");
+ * </pre>
+ * @author myibu
+ * Create on 2026/10/18
+ */
+public class RedisReplicatedClient {
+    // 只读命令，不包含带STORE的变体和可能修改数据的命令
+    static final Set<RedisCommand> READ_ONLY_COMMANDS = Collections.unmodifiableSet(EnumSet.of(
+            RedisCommand.GET, RedisCommand.MGET, RedisCommand.STRLEN, RedisCommand.EXISTS, RedisCommand.GETBIT,
+            RedisCommand.GETRANGE, RedisCommand.SUBSTR, RedisCommand.BITCOUNT, RedisCommand.BITPOS, RedisCommand.BITFIELD_RO,
+            RedisCommand.LLEN, RedisCommand.LINDEX, RedisCommand.LRANGE, RedisCommand.LPOS,
+            RedisCommand.SISMEMBER, RedisCommand.SMISMEMBER, RedisCommand.SCARD, RedisCommand.SRANDMEMBER,
+            RedisCommand.SINTER, RedisCommand.SUNION, RedisCommand.SDIFF, RedisCommand.SMEMBERS, RedisCommand.SSCAN,
+            RedisCommand.ZRANGE, RedisCommand.ZRANGEBYSCORE, RedisCommand.ZREVRANGEBYSCORE, RedisCommand.ZRANGEBYLEX,
+            RedisCommand.ZREVRANGEBYLEX, RedisCommand.ZCOUNT, RedisCommand.ZLEXCOUNT, RedisCommand.ZREVRANGE,
+            RedisCommand.ZCARD, RedisCommand.ZSCORE, RedisCommand.ZMSCORE, RedisCommand.ZRANK, RedisCommand.ZREVRANK,
+            RedisCommand.ZSCAN, RedisCommand.ZRANDMEMBER, RedisCommand.ZUNION, RedisCommand.ZINTER, RedisCommand.ZDIFF,
+            RedisCommand.HGET, RedisCommand.HMGET, RedisCommand.HLEN, RedisCommand.HSTRLEN, RedisCommand.HKEYS,
+            RedisCommand.HVALS, RedisCommand.HGETALL, RedisCommand.HEXISTS, RedisCommand.HRANDFIELD, RedisCommand.HSCAN,
+            RedisCommand.TYPE, RedisCommand.TTL, RedisCommand.PTTL, RedisCommand.KEYS, RedisCommand.SCAN,
+            RedisCommand.DBSIZE, RedisCommand.RANDOMKEY, RedisCommand.DUMP,
+            RedisCommand.GEORADIUS_RO, RedisCommand.GEORADIUSBYMEMBER_RO, RedisCommand.GEOHASH, RedisCommand.GEOPOS,
+            RedisCommand.GEODIST, RedisCommand.GEOSEARCH, RedisCommand.XRANGE, RedisCommand.XREVRANGE, RedisCommand.XLEN));
+    // 平均延迟的平滑系数
+    private static final double EWMA_ALPHA = 0.2;
+
+    private final Config config;
+    private final boolean discover;
+    private final Node primary;
+    private volatile List<Node> replicas;
+    private final ScheduledExecutorService refresher;
+    private volatile boolean closed = false;
+
+    /**
+     * 通过ROLE命令获取主从节点
+     * @param node 任意一个主节点或从节点
+     * @param config 配置
+     */
+    public RedisReplicatedClient(InetSocketAddress node, Config config) {
+        this.config = config;
+        this.discover = true;
+        RedisClient client = new RedisClient(node);
+        InetSocketAddress primaryAddress = node;
+        try {
+            List<RedisReply> role = role(client);
+            if (!"master".equals(role.get(0).getData())) {
+                // 从节点的ROLE：[slave, host, port, state, offset]
+                primaryAddress = new InetSocketAddress((String) role.get(1).getData(), ((Number) role.get(2).getData()).intValue());
+            }
+        } finally {
+            client.close();
+        }
+        this.primary = new Node(primaryAddress, config.getPoolConfig());
+        this.replicas = Collections.emptyList();
+        this.refresher = start();
+    }
+
+    /**
+     * 使用配置的主从节点
+     * @param primary 主节点
+     * @param replicas 从节点
+     * @param config 配置
+     */
+    public RedisReplicatedClient(InetSocketAddress primary, List<InetSocketAddress> replicas, Config config) {
+        this.config = config;
+        this.discover = false;
+        this.primary = new Node(primary, config.getPoolConfig());
+        List<Node> nodes = new ArrayList<>();
+        for (InetSocketAddress replica : replicas) {
+            nodes.add(new Node(replica, config.getPoolConfig()));
+        }
+        this.replicas = Collections.unmodifiableList(nodes);
+        this.refresher = start();
+    }
+
+    private ScheduledExecutorService start() {
+        refresh();
+        if (config.getRefreshIntervalMillis() <= 0) {
+            return null;
+        }
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "redis-replicated-client-refresher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = config.getRefreshIntervalMillis();
+        executor.scheduleWithFixedDelay(this::refresh, period, period, TimeUnit.MILLISECONDS);
+        return executor;
+    }
+
+    /**
+     * 执行无参数的命令
+     * @param command redis命令，如：ping
+     * @return 执行结果
+     */
+    public RedisReply execAndReturn(RedisCommand command) {
+        return execAndReturn(command, new byte[0][]);
+    }
+
+    /**
+     * 执行命令并返回结果
+     * @param command redis命令，如：set
+     * @param args redis命令参数： 如： [foo bar]
+     * @return 执行结果
+     */
+    public RedisReply execAndReturn(RedisCommand command, String ...args) {
+        try {
+            return execAndReturn(command, RedisClient.encodeArgs(args));
+        } catch (RedisException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RedisException("Execute command failed.", e);
+        }
+    }
+
+    /**
+     * 执行命令并返回结果，参数按原样发送，只读命令发送到从节点
+     * @param command redis命令，如：set
+     * @param args redis命令参数
+     * @return 执行结果
+     */
+    public RedisReply execAndReturn(RedisCommand command, byte[] ...args) {
+        if (closed) {
+            throw new RedisException("Client is closed.");
+        }
+        if (READ_ONLY_COMMANDS.contains(command)) {
+            Node replica = select();
+            if (replica != null) {
+                try {
+                    RedisReply reply = replica.execute(command, args);
+                    if (!isUnavailable(reply)) {
+                        return reply;
+                    }
+                } catch (RedisException e) {
+                    // 刷新时重新检查
+                    replica.healthy = false;
+                }
+            }
+        }
+        return primary.execute(command, args);
+    }
+
+    /**
+     * 执行无参数的命令
+     * @param command redis命令，如：ping
+     */
+    public void exec(RedisCommand command) {
+        execAndReturn(command);
+    }
+
+    /**
+     * 执行命令
+     * @param command redis命令，如：set
+     * @param args redis命令参数： 如： [foo bar]
+     */
+    public void exec(RedisCommand command, String ...args) {
+        execAndReturn(command, args);
+    }
+
+    /**
+     * 执行命令，参数按原样发送
+     * @param command redis命令，如：set
+     * @param args redis命令参数
+     */
+    public void exec(RedisCommand command, byte[] ...args) {
+        execAndReturn(command, args);
+    }
+
+    public Node getPrimary() {
+        return primary;
+    }
+
+    /**
+     * @return 当前的从节点
+     */
+    public List<Node> getReplicas() {
+        return replicas;
+    }
+
+    public Config getConfig() {
+        return config;
+    }
+
+    public void close() {
+        closed = true;
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+        primary.pool.close();
+        for (Node replica : replicas) {
+            replica.pool.close();
+        }
+    }
+
+    /**
+     * @return 可用的从节点中得分最低的节点，都不可用时为null
+     */
+    private Node select() {
+        Node selected = null;
+        double best = Double.MAX_VALUE;
+        for (Node replica : replicas) {
+            if (!isEligible(replica)) {
+                continue;
+            }
+            double score = replica.score();
+            if (score < best) {
+                best = score;
+                selected = replica;
+            }
+        }
+        return selected;
+    }
+
+    private boolean isEligible(Node replica) {
+        if (!replica.healthy) {
+            return false;
+        }
+        long maxLag = config.getMaxLagBytes();
+        return maxLag < 0 || (replica.lag >= 0 && replica.lag <= maxLag);
+    }
+
+    /**
+     * 从节点正在加载数据或与主节点断开时返回的错误
+     */
+    private static boolean isUnavailable(RedisReply reply) {
+        if (reply.getType() != RedisReplyType.ERRORS) {
+            return false;
+        }
+        String error = (String) reply.getData();
+        return error.startsWith("LOADING") || error.startsWith("MASTERDOWN");
+    }
+
+    /**
+     * 从主节点获取从节点列表和复制偏移量，并检查不可用的从节点
+     */
+    void refresh() {
+        if (closed) {
+            return;
+        }
+        List<RedisReply> role;
+        try {
+            role = primary.pool.execute(RedisReplicatedClient::role);
+        } catch (RuntimeException e) {
+            // 主节点不可用时保持原有状态
+            return;
+        }
+        if (!"master".equals(role.get(0).getData()) || role.size() < 3) {
+            return;
+        }
+        long offset = ((Number) role.get(1).getData()).longValue();
+        @SuppressWarnings("unchecked")
+        List<RedisReply> connected = (List<RedisReply>) role.get(2).getData();
+        List<Node> current = new ArrayList<>(replicas);
+        List<Node> reported = new ArrayList<>();
+        for (RedisReply element : connected) {
+            // [host, port, offset]，port和offset为字符串
+            @SuppressWarnings("unchecked")
+            List<RedisReply> info = (List<RedisReply>) element.getData();
+            InetSocketAddress address = new InetSocketAddress((String) info.get(0).getData(), Integer.parseInt(String.valueOf(info.get(1).getData())));
+            long lag = offset - Long.parseLong(String.valueOf(info.get(2).getData()));
+            Node replica = find(current, address);
+            if (replica == null && discover) {
+                replica = new Node(address, config.getPoolConfig());
+                current.add(replica);
+            }
+            if (replica != null) {
+                replica.lag = Math.max(lag, 0);
+                reported.add(replica);
+            }
+        }
+        for (Node replica : current) {
+            if (!reported.contains(replica)) {
+                // 主节点没有报告的从节点无法得知复制延迟
+                replica.lag = -1;
+            }
+            probe(replica);
+        }
+        if (discover) {
+            List<Node> removed = new ArrayList<>(current);
+            removed.removeAll(reported);
+            current.removeAll(removed);
+            replicas = Collections.unmodifiableList(current);
+            for (Node replica : removed) {
+                replica.pool.close();
+            }
+        }
+    }
+
+    /**
+     * 使用PING检查从节点，同时更新平均延迟
+     */
+    private static void probe(Node replica) {
+        try {
+            RedisReply reply = replica.execute(RedisCommand.PING, new byte[0][]);
+            replica.healthy = reply.getType() != RedisReplyType.ERRORS;
+        } catch (RuntimeException e) {
+            replica.healthy = false;
+        }
+    }
+
+    private static Node find(List<Node> replicas, InetSocketAddress address) {
+        for (Node replica : replicas) {
+            if (replica.address.getPort() == address.getPort()
+                    && (replica.address.equals(address) || replica.address.getHostString().equals(address.getHostString()))) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<RedisReply> role(RedisClient client) {
+        RedisReply reply = client.execAndReturn(RedisCommand.ROLE);
+        if (reply.getType() == RedisReplyType.ERRORS) {
+            throw new RedisException("Get role failed: " + reply.getData());
+        }
+        return (List<RedisReply>) reply.getData();
+    }
+
+    /**
+     * 主节点或从节点
+     */
+    public static class Node {
+        private final InetSocketAddress address;
+        private final RedisClientPool pool;
+        private final AtomicInteger outstanding = new AtomicInteger();
+        // 平均延迟(纳秒)，以double的bit保存
+        private final AtomicLong latency = new AtomicLong(Double.doubleToLongBits(0));
+        private final AtomicLong commandCount = new AtomicLong();
+        private volatile boolean healthy = true;
+        private volatile long lag = -1;
+
+        Node(InetSocketAddress address, RedisClientPool.Config poolConfig) {
+            this.address = address;
+            this.pool = new RedisClientPool(address, poolConfig);
+        }
+
+        RedisReply execute(RedisCommand command, byte[][] args) {
+            outstanding.incrementAndGet();
+            long start = System.nanoTime();
+            try {
+                RedisReply reply = pool.execute(client -> client.execAndReturn(command, args));
+                record(System.nanoTime() - start);
+                commandCount.incrementAndGet();
+                return reply;
+            } finally {
+                outstanding.decrementAndGet();
+            }
+        }
+
+        private void record(long nanos) {
+            long prev;
+            long next;
+            do {
+                prev = latency.get();
+                double avg = Double.longBitsToDouble(prev);
+                next = Double.doubleToLongBits(avg == 0 ? nanos : avg + EWMA_ALPHA * (nanos - avg));
+            } while (!latency.compareAndSet(prev, next));
+        }
+
+        double score() {
+            return (getLatencyNanos() + 1) * (outstanding.get() + 1);
+        }
+
+        public InetSocketAddress getAddress() {
+            return address;
+        }
+
+        /**
+         * @return 平均延迟
+         */
+        public double getLatencyNanos() {
+            return Double.longBitsToDouble(latency.get());
+        }
+
+        /**
+         * @return 未完成的命令数
+         */
+        public int getOutstanding() {
+            return outstanding.get();
+        }
+
+        /**
+         * @return 执行的命令数
+         */
+        public long getReadCount() {
+            return commandCount.get();
+        }
+
+        public boolean isHealthy() {
+            return healthy;
+        }
+
+        /**
+         * @return 落后主节点的复制偏移量，未知时为-1
+         */
+        public long getLag() {
+            return lag;
+        }
+
+        @Override
+        public String toString() {
+            return "Node{" +
+                    "address=" + address +
+                    ", latencyNanos=" + (long) getLatencyNanos() +
+                    ", outstanding=" + outstanding +
+                    ", commandCount=" + commandCount +
+                    ", healthy=" + healthy +
+                    ", lag=" + lag +
+                    '}';
+        }
+    }
+
+    public static class Config {
+        private long maxLagBytes = -1;
+        private long refreshIntervalMillis = 1000;
+        private RedisClientPool.Config poolConfig = new RedisClientPool.Config();
+
+        /**
+         * @return 从节点允许落后主节点的最大复制偏移量，为-1时不限制
+         */
+        public long getMaxLagBytes() {
+            return maxLagBytes;
+        }
+
+        public void setMaxLagBytes(long maxLagBytes) {
+            this.maxLagBytes = maxLagBytes;
+        }
+
+        /**
+         * @return 刷新从节点状态的间隔，为0时只在创建时刷新
+         */
+        public long getRefreshIntervalMillis() {
+            return refreshIntervalMillis;
+        }
+
+        public void setRefreshIntervalMillis(long refreshIntervalMillis) {
+            this.refreshIntervalMillis = refreshIntervalMillis;
+        }
+
+        /**
+         * @return 每个节点的连接池配置
+         */
+        public RedisClientPool.Config getPoolConfig() {
+            return poolConfig;
+        }
+
+        public void setPoolConfig(RedisClientPool.Config poolConfig) {
+            this.poolConfig = poolConfig;
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package com.github.myibu.redis.client;
+
+import com.github.myibu.redis.client.RedisClient.RedisCommand;
+import com.github.myibu.redis.client.RedisClient.RedisException;
+import com.github.myibu.redis.client.RedisClient.RedisReply;
+import com.github.myibu.redis.client.RedisClient.RedisReplyType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * SCAN、HSCAN、SSCAN和ZSCAN的迭代器，自动管理游标
+ * 收到一页结果后立即发送下一页的请求，服务端处理下一页的同时调用方处理当前页，内存中最多只有一页结果。
+ * 迭代结束或调用{@link #close()}之前不要通过同一个客户端执行其他命令。
+ * <pre>
+ * RedisScanIterator.Params params = new RedisScanIterator.Params();
+ * params.setMatch("user:*");
+ * try (RedisScanIterator&lt;RedisReply&gt; keys = redisClient.scan(params)) {
+ *     keys.forEachRemaining(System.out::println);
+ * }
+ * </pre>
+ * @author myibu
+ * Create on 2026/10/18
+ */
+public class RedisScanIterator<T> implements Iterator<T>, AutoCloseable {
+    private static final String END_CURSOR = "0";
+
+    private final RedisClient client;
+    private final RedisCommand command;
+    private final byte[] key;
+    private final byte[][] options;
+    private final Function<List<RedisReply>, List<T>> mapper;
+    private List<T> page = Collections.emptyList();
+    private int index = 0;
+    // 已发送但尚未读取响应的请求
+    private boolean pending = false;
+
+    RedisScanIterator(RedisClient client, RedisCommand command, byte[] key, Params params, Function<List<RedisReply>, List<T>> mapper) {
+        this.client = client;
+        this.command = command;
+        this.key = key;
+        this.options = params.toArgs(command == RedisCommand.SCAN);
+        this.mapper = mapper;
+        send(END_CURSOR.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * SCAN和SSCAN的结果，每个元素为一个key或member
+     */
+    static List<RedisReply> elements(List<RedisReply> elements) {
+        return elements;
+    }
+
+    /**
+     * HSCAN和ZSCAN的结果，field和value或member和score成对出现
+     */
+    static List<Map.Entry<RedisReply, RedisReply>> pairs(List<RedisReply> elements) {
+        List<Map.Entry<RedisReply, RedisReply>> pairs = new ArrayList<>(elements.size() / 2);
+        for (int i = 0; i + 1 < elements.size(); i += 2) {
+            pairs.add(new AbstractMap.SimpleImmutableEntry<>(elements.get(i), elements.get(i + 1)));
+        }
+        return pairs;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (index >= page.size()) {
+            if (!pending) {
+                return false;
+            }
+            readPage();
+        }
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return page.get(index++);
+    }
+
+    /**
+     * @return 顺序流，关闭流时关闭迭代器
+     */
+    public Stream<T> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.NONNULL), false)
+                .onClose(this::close);
+    }
+
+    /**
+     * 停止迭代，读取已经发送的下一页请求的响应，之后客户端可以执行其他命令
+     */
+    @Override
+    public void close() {
+        page = Collections.emptyList();
+        if (pending) {
+            pending = false;
+            try {
+                client.readReply();
+            } catch (RedisException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new RedisException("Execute command failed.", e);
+            }
+        }
+    }
+
+    private void readPage() {
+        RedisReply reply;
+        try {
+            pending = false;
+            reply = client.readReply();
+        } catch (RedisException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RedisException("Execute command failed.", e);
+        }
+        if (reply.getType() != RedisReplyType.ARRAYS) {
+            throw new RedisException("Scan failed: " + reply.getData());
+        }
+        @SuppressWarnings("unchecked")
+        List<RedisReply> result = (List<RedisReply>) reply.getData();
+        byte[] cursor = result.get(0).getBytes();
+        if (!END_CURSOR.equals(new String(cursor, StandardCharsets.US_ASCII))) {
+            // 先发送下一页的请求，再处理当前页
+            send(cursor);
+        }
+        @SuppressWarnings("unchecked")
+        List<RedisReply> elements = (List<RedisReply>) result.get(1).getData();
+        page = mapper.apply(elements);
+        index = 0;
+    }
+
+    private void send(byte[] cursor) {
+        int offset = key == null ? 1 : 2;
+        byte[][] args = new byte[offset + options.length][];
+        if (key != null) {
+            args[0] = key;
+        }
+        args[offset - 1] = cursor;
+        System.arraycopy(options, 0, args, offset, options.length);
+        try {
+            client.sendCommand(command.raw, args);
+            client.flush();
+        } catch (RedisException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RedisException("Execute command failed.", e);
+        }
+        pending = true;
+    }
+
+    /**
+     * 扫描参数
+     */
+    public static class Params {
+        private String match;
+        private int count;
+        private String type;
+
+        /**
+         * @return 匹配的模式，如：user:*
+         */
+        public String getMatch() {
+            return match;
+        }
+
+        public void setMatch(String match) {
+            this.match = match;
+        }
+
+        /**
+         * @return 每页期望的元素个数，小于等于0时使用服务端默认值
+         */
+        public int getCount() {
+            return count;
+        }
+
+        public void setCount(int count) {
+            this.count = count;
+        }
+
+        /**
+         * @return key的类型，如：string，只用于SCAN
+         */
+        public String getType() {
+            return type;
+        }
+
+        public void setType(String type) {
+            this.type = type;
+        }
+
+        byte[][] toArgs(boolean scan) {
+            List<String> args = new ArrayList<>();
+            if (match != null) {
+                args.add("MATCH");
+                args.add(match);
+            }
+            if (count > 0) {
+                args.add("COUNT");
+                args.add(String.valueOf(count));
+            }
+            if (scan && type != null) {
+                args.add("TYPE");
+                args.add(type);
+            }
+            byte[][] bytes = new byte[args.size()][];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = args.get(i).getBytes(StandardCharsets.UTF_8);
+            }
+            return bytes;
+        }
+    }
+}
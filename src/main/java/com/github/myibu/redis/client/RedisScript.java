@@ -0,0 +1,73 @@
+package com.github.myibu.redis.client;
+
+import com.github.myibu.redis.client.RedisClient.RedisException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Lua脚本，SHA1在本地计算，执行时先使用EVALSHA，服务端没有缓存该脚本时再使用EVAL
+ * <pre>
+ * RedisScript script = new RedisScript("return redis.call('GET', KEYS[1])");
+ * redisClient.eval(script, new String[]{"foo"});
+ * </pre>
+ * @author myibu
+ * Create on 2026/10/18
+ */
+public class RedisScript {
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final String script;
+    private final byte[] body;
+    private final String sha1;
+    private final byte[] sha1Bytes;
+
+    public RedisScript(String script) {
+        this.script = script;
+        this.body = script.getBytes(StandardCharsets.UTF_8);
+        this.sha1 = sha1(body);
+        this.sha1Bytes = sha1.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    public String getScript() {
+        return script;
+    }
+
+    /**
+     * @return 脚本的SHA1，与SCRIPT LOAD的返回值相同
+     */
+    public String getSha1() {
+        return sha1;
+    }
+
+    byte[] body() {
+        return body;
+    }
+
+    byte[] sha1Bytes() {
+        return sha1Bytes;
+    }
+
+    private static String sha1(byte[] body) {
+        byte[] digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1").digest(body);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RedisException("SHA-1 is not supported.", e);
+        }
+        char[] hex = new char[digest.length * 2];
+        for (int i = 0; i < digest.length; i++) {
+            hex[i * 2] = HEX[(digest[i] >> 4) & 0xf];
+            hex[i * 2 + 1] = HEX[digest[i] & 0xf];
+        }
+        return new String(hex);
+    }
+
+    @Override
+    public String toString() {
+        return "RedisScript{" +
+                "sha1=" + sha1 +
+                '}';
+    }
+}
@@ -0,0 +1,78 @@
+package com.github.myibu.redis.client;
+
+import com.github.myibu.redis.client.RedisClient.RedisCommand;
+import com.github.myibu.redis.client.RedisClient.RedisException;
+import com.github.myibu.redis.client.RedisClient.RedisReply;
+import com.github.myibu.redis.client.RedisClient.RedisReplyType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lua脚本注册表，线程安全
+ * 注册的脚本可以在新建连接时通过SCRIPT LOAD一次性预加载，之后的EVALSHA不会再遇到NOSCRIPT。
+ * <pre>
+ * RedisScriptRegistry registry = new RedisScriptRegistry();
+ * RedisScript decr = registry.register("decr", "return redis.call('DECRBY', KEYS[1], ARGV[1])");
+ * RedisClientPool.Config config = new RedisClientPool.Config();
+ * config.setInitializer(registry::preload);
+ * </pre>
+ * @author myibu
+ * Create on 2026/10/18
+ */
+public class RedisScriptRegistry {
+    private static final byte[] LOAD = "LOAD".getBytes(StandardCharsets.US_ASCII);
+
+    private final Map<String, RedisScript> scripts = new ConcurrentHashMap<>();
+
+    /**
+     * 注册脚本
+     * @param name 脚本名
+     * @param script 脚本内容
+     * @return 脚本
+     */
+    public RedisScript register(String name, String script) {
+        RedisScript redisScript = new RedisScript(script);
+        scripts.put(name, redisScript);
+        return redisScript;
+    }
+
+    /**
+     * @param name 脚本名
+     * @return 脚本，未注册时为null
+     */
+    public RedisScript get(String name) {
+        return scripts.get(name);
+    }
+
+    public Collection<RedisScript> getScripts() {
+        return Collections.unmodifiableCollection(scripts.values());
+    }
+
+    /**
+     * 通过管道把所有注册的脚本加载到服务端
+     * @param client 客户端
+     */
+    public void preload(RedisClient client) {
+        List<RedisScript> all = new ArrayList<>(scripts.values());
+        if (all.isEmpty()) {
+            return;
+        }
+        RedisPipeline pipeline = client.pipelined();
+        for (RedisScript script : all) {
+            pipeline.exec(RedisCommand.SCRIPT, LOAD, script.body());
+        }
+        List<RedisReply> replies = pipeline.syncAndReturnAll();
+        for (int i = 0; i < replies.size(); i++) {
+            RedisReply reply = replies.get(i);
+            if (reply.getType() == RedisReplyType.ERRORS) {
+                throw new RedisException("Load script " + all.get(i).getSha1() + " failed: " + reply.getData());
+            }
+        }
+    }
+}
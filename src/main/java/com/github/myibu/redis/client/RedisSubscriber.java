@@ -0,0 +1,450 @@
+package com.github.myibu.redis.client;
+
+import com.github.myibu.redis.client.RedisClient.RedisCommand;
+import com.github.myibu.redis.client.RedisClient.RedisException;
+import com.github.myibu.redis.client.RedisClient.RedisReply;
+import com.github.myibu.redis.client.RedisClient.RedisReplyType;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Redis发布订阅的订阅端
+ * 使用独立的连接和读取线程持续接收消息，读取到的消息按批次交给executor分发给监听器，
+ * 同一时刻最多一个分发任务在执行，多线程的executor也按接收顺序通知监听器。
+ * 连接建立后可以随时订阅或取消订阅。
+ * <pre>
+ * RedisSubscriber subscriber = new RedisSubscriber();
+ * subscriber.subscribe(message -&gt; System.out.println(message.getData()), "foo");
+ * </pre>
+ * @author myibu
+ * Create on 2026/10/18
+ */
+public class RedisSubscriber {
+    private static final String MESSAGE = "message";
+    private static final String PMESSAGE = "pmessage";
+    private static final String SUBSCRIBE = "subscribe";
+    private static final String PSUBSCRIBE = "psubscribe";
+    private static final String UNSUBSCRIBE = "unsubscribe";
+    private static final String PUNSUBSCRIBE = "punsubscribe";
+
+    private final RedisClient client;
+    private final Executor executor;
+    private final Thread reader;
+    private final long clientId;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final Map<String, CopyOnWriteArrayList<Listener>> channelListeners = new ConcurrentHashMap<>();
+    private final Map<String, CopyOnWriteArrayList<Listener>> patternListeners = new ConcurrentHashMap<>();
+    // 已发送取消订阅、等待服务端确认的监听器，按发送顺序排列
+    private final Map<String, Queue<List<Listener>>> channelRemovals = new ConcurrentHashMap<>();
+    private final Map<String, Queue<List<Listener>>> patternRemovals = new ConcurrentHashMap<>();
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean dispatching = new AtomicBoolean();
+    private volatile boolean closed = false;
+
+    public RedisSubscriber() {
+        this("127.0.0.1", 6379);
+    }
+
+    public RedisSubscriber(String hostname, int port) {
+        this(new InetSocketAddress(hostname, port), Runnable::run);
+    }
+
+    /**
+     * @param socketAddress 服务端地址
+     * @param executor 执行监听器的线程池，默认在读取线程中直接执行
+     */
+    public RedisSubscriber(InetSocketAddress socketAddress, Executor executor) {
+        this.client = new RedisClient(socketAddress);
+        RedisReply id = client.execAndReturn(RedisCommand.CLIENT, "ID".getBytes(StandardCharsets.US_ASCII));
+        this.clientId = id.getType() == RedisReplyType.INTEGERS ? ((Number) id.getData()).longValue() : -1;
+        this.executor = executor;
+        this.reader = new Thread(this::run, "redis-subscriber-" + socketAddress);
+        this.reader.setDaemon(true);
+        this.reader.start();
+    }
+
+    /**
+     * 订阅频道
+     * @param listener 监听器
+     * @param channels 频道
+     */
+    public void subscribe(Listener listener, String ...channels) {
+        send(RedisCommand.SUBSCRIBE, channels, () -> addListener(channelListeners, channelRemovals, listener, channels));
+    }
+
+    /**
+     * 按模式订阅频道
+     * @param listener 监听器
+     * @param patterns 模式，如：news.*
+     */
+    public void psubscribe(Listener listener, String ...patterns) {
+        send(RedisCommand.PSUBSCRIBE, patterns, () -> addListener(patternListeners, patternRemovals, listener, patterns));
+    }
+
+    /**
+     * 取消订阅频道，调用时该频道的监听器会在收到服务端确认后移除，之后重新订阅的监听器保留
+     * @param channels 频道，为空时取消订阅所有频道
+     */
+    public void unsubscribe(String ...channels) {
+        send(RedisCommand.UNSUBSCRIBE, channels, () -> captureRemovals(channelListeners, channelRemovals, channels));
+    }
+
+    /**
+     * 取消按模式订阅，调用时该模式的监听器会在收到服务端确认后移除，之后重新订阅的监听器保留
+     * @param patterns 模式，为空时取消所有模式
+     */
+    public void punsubscribe(String ...patterns) {
+        send(RedisCommand.PUNSUBSCRIBE, patterns, () -> captureRemovals(patternListeners, patternRemovals, patterns));
+    }
+
+    /**
+     * @return 当前订阅的频道
+     */
+    public Set<String> getChannels() {
+        return Collections.unmodifiableSet(channelListeners.keySet());
+    }
+
+    /**
+     * @return 当前订阅的模式
+     */
+    public Set<String> getPatterns() {
+        return Collections.unmodifiableSet(patternListeners.keySet());
+    }
+
+    /**
+     * @return 订阅连接的id，可用于CLIENT TRACKING的REDIRECT，服务端不支持CLIENT ID时为-1
+     */
+    public long getClientId() {
+        return clientId;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * 关闭连接并停止读取线程
+     */
+    public void close() {
+        closed = true;
+        client.close();
+    }
+
+    private static void addListener(Map<String, CopyOnWriteArrayList<Listener>> listeners, Map<String, Queue<List<Listener>>> removals,
+                                    Listener listener, String[] names) {
+        for (String name : names) {
+            listeners.computeIfAbsent(name, k -> new CopyOnWriteArrayList<>()).addIfAbsent(listener);
+            // 重新订阅的监听器不再等待移除
+            Queue<List<Listener>> pending = removals.get(name);
+            if (pending != null) {
+                for (List<Listener> captured : pending) {
+                    captured.remove(listener);
+                }
+            }
+        }
+    }
+
+    private static void captureRemovals(Map<String, CopyOnWriteArrayList<Listener>> listeners, Map<String, Queue<List<Listener>>> removals,
+                                        String[] names) {
+        Iterable<String> targets = names.length == 0 ? new ArrayList<>(listeners.keySet()) : Arrays.asList(names);
+        for (String name : targets) {
+            List<Listener> current = listeners.get(name);
+            List<Listener> captured = new CopyOnWriteArrayList<>(current == null ? Collections.<Listener>emptyList() : current);
+            removals.computeIfAbsent(name, k -> new ConcurrentLinkedQueue<>()).add(captured);
+        }
+    }
+
+    /**
+     * 收到取消订阅的确认，只移除发送取消订阅时记录的监听器
+     */
+    private List<Listener> removeListeners(Map<String, CopyOnWriteArrayList<Listener>> listeners, Map<String, Queue<List<Listener>>> removals,
+                                           String name) {
+        writeLock.lock();
+        try {
+            Queue<List<Listener>> pending = removals.get(name);
+            List<Listener> captured = pending == null ? null : pending.poll();
+            if (pending != null && pending.isEmpty()) {
+                removals.remove(name);
+            }
+            if (captured == null) {
+                return Collections.emptyList();
+            }
+            CopyOnWriteArrayList<Listener> current = listeners.get(name);
+            if (current != null) {
+                current.removeAll(captured);
+                if (current.isEmpty()) {
+                    listeners.remove(name);
+                }
+            }
+            return captured;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * 在写锁内更新监听器并发送命令，保证监听器的变更与命令的发送顺序一致
+     */
+    private void send(RedisCommand command, String[] args, Runnable update) {
+        if (closed) {
+            throw new RedisException("Subscriber is closed.");
+        }
+        writeLock.lock();
+        try {
+            update.run();
+            client.sendCommand(command.raw, RedisClient.encodeArgs(args));
+            client.flush();
+        } catch (RedisException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RedisException("Execute command failed.", e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void run() {
+        while (!closed) {
+            List<RedisReply> replies;
+            try {
+                replies = client.readReplies();
+            } catch (Exception e) {
+                if (!closed) {
+                    closed = true;
+                    client.close();
+                    schedule(() -> dispatchError(e));
+                }
+                return;
+            }
+            schedule(() -> dispatch(replies));
+        }
+    }
+
+    /**
+     * 分发任务按顺序排队，同一时刻只有一个任务在executor中执行
+     */
+    private void schedule(Runnable task) {
+        tasks.add(task);
+        if (dispatching.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        try {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                task.run();
+            }
+        } finally {
+            dispatching.set(false);
+            // 释放标记前新加入的任务
+            if (!tasks.isEmpty() && dispatching.compareAndSet(false, true)) {
+                executor.execute(this::drain);
+            }
+        }
+    }
+
+    private void dispatch(List<RedisReply> replies) {
+        for (RedisReply reply : replies) {
+            if (reply.getType() != RedisReplyType.ARRAYS && reply.getType() != RedisReplyType.PUSHES) {
+                continue;
+            }
+            @SuppressWarnings("unchecked")
+            List<RedisReply> elements = (List<RedisReply>) reply.getData();
+            if (elements.size() < 3) {
+                continue;
+            }
+            String kind = (String) elements.get(0).getData();
+            String name = (String) elements.get(1).getData();
+            if (elements.get(1).isNull()) {
+                // 没有订阅任何频道时取消订阅
+                continue;
+            }
+            switch (kind) {
+                case MESSAGE:
+                    notifyListeners(channelListeners.get(name), new Message(null, name, elements.get(2)));
+                    break;
+                case PMESSAGE:
+                    if (elements.size() == 4) {
+                        notifyListeners(patternListeners.get(name), new Message(name, (String) elements.get(2).getData(), elements.get(3)));
+                    }
+                    break;
+                case SUBSCRIBE:
+                case PSUBSCRIBE:
+                    long subscribed = count(elements.get(2));
+                    for (Listener listener : listeners(kind, name)) {
+                        notifyListener(listener, l -> l.onSubscribe(name, subscribed));
+                    }
+                    break;
+                case UNSUBSCRIBE:
+                case PUNSUBSCRIBE:
+                    List<Listener> removed = UNSUBSCRIBE.equals(kind)
+                            ? removeListeners(channelListeners, channelRemovals, name)
+                            : removeListeners(patternListeners, patternRemovals, name);
+                    long remaining = count(elements.get(2));
+                    for (Listener listener : removed) {
+                        notifyListener(listener, l -> l.onUnsubscribe(name, remaining));
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    private List<Listener> listeners(String kind, String name) {
+        List<Listener> listeners = (SUBSCRIBE.equals(kind) ? channelListeners : patternListeners).get(name);
+        return listeners == null ? Collections.<Listener>emptyList() : listeners;
+    }
+
+    private static long count(RedisReply reply) {
+        return ((Number) reply.getData()).longValue();
+    }
+
+    private void notifyListeners(List<Listener> listeners, Message message) {
+        if (listeners == null) {
+            return;
+        }
+        for (Listener listener : listeners) {
+            notifyListener(listener, l -> l.onMessage(message));
+        }
+    }
+
+    /**
+     * 监听器抛出的异常交给该监听器的onError，不影响其他监听器和后续消息
+     */
+    private static void notifyListener(Listener listener, Consumer<Listener> action) {
+        try {
+            action.accept(listener);
+        } catch (RuntimeException e) {
+            notifyError(listener, e);
+        }
+    }
+
+    private static void notifyError(Listener listener, Exception e) {
+        try {
+            listener.onError(e);
+        } catch (RuntimeException ignored) {
+            // onError自身的异常无处上报，忽略以保证读取线程继续运行
+        }
+    }
+
+    private void dispatchError(Exception e) {
+        List<Listener> all = new ArrayList<>();
+        for (List<Listener> listeners : channelListeners.values()) {
+            all.addAll(listeners);
+        }
+        for (List<Listener> listeners : patternListeners.values()) {
+            all.addAll(listeners);
+        }
+        for (Listener listener : all) {
+            notifyError(listener, e);
+        }
+    }
+
+    /**
+     * 订阅消息的监听器
+     */
+    public interface Listener {
+        /**
+         * 收到消息
+         * @param message 消息
+         */
+        void onMessage(Message message);
+
+        /**
+         * 服务端确认订阅
+         * @param name 频道或模式
+         * @param count 当前连接订阅的频道和模式总数
+         */
+        default void onSubscribe(String name, long count) {
+        }
+
+        /**
+         * 服务端确认取消订阅
+         * @param name 频道或模式
+         * @param count 当前连接订阅的频道和模式总数
+         */
+        default void onUnsubscribe(String name, long count) {
+        }
+
+        /**
+         * 连接异常断开，订阅已失效；或者该监听器的其他回调抛出了异常，订阅仍然有效
+         * @param e 异常
+         */
+        default void onError(Exception e) {
+        }
+    }
+
+    /**
+     * 订阅到的消息
+     */
+    public static class Message {
+        private final String pattern;
+        private final String channel;
+        private final RedisReply payload;
+
+        Message(String pattern, String channel, RedisReply payload) {
+            this.pattern = pattern;
+            this.channel = channel;
+            this.payload = payload;
+        }
+
+        /**
+         * @return 匹配的模式，通过subscribe订阅时为null
+         */
+        public String getPattern() {
+            return pattern;
+        }
+
+        public String getChannel() {
+            return channel;
+        }
+
+        /**
+         * @return 消息内容
+         */
+        public String getData() {
+            return (String) payload.getData();
+        }
+
+        /**
+         * @return 消息内容的响应，如：失效通知中的key数组
+         */
+        public RedisReply getReply() {
+            return payload;
+        }
+
+        /**
+         * @return 消息内容的原始数据
+         */
+        public byte[] getBytes() {
+            return payload.getBytes();
+        }
+
+        @Override
+        public String toString() {
+            return "Message{" +
+                    "pattern=" + pattern +
+                    ", channel=" + channel +
+                    ", data=" + getData() +
+                    '}';
+        }
+    }
+}
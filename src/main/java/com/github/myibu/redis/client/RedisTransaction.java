@@ -0,0 +1,169 @@
+package com.github.myibu.redis.client;
+
+import com.github.myibu.redis.client.RedisClient.RedisCommand;
+import com.github.myibu.redis.client.RedisClient.RedisException;
+import com.github.myibu.redis.client.RedisClient.RedisReply;
+import com.github.myibu.redis.client.RedisClient.RedisReplyType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Redis事务，MULTI、所有命令和EXEC在提交时一次发送，只需要一次网络往返
+ * <pre>
+ * RedisTransaction transaction = redisClient.multi();
+ * transaction.exec(RedisCommand.DECRBY, "stock", "1");
+ * RedisPipeline.Response orders = transaction.exec(RedisCommand.INCR, "orders");
+ * transaction.commit();
+ * orders.get();
+ * </pre>
+ * @author myibu
+ * Create on 2026/10/18
+ */
+public class RedisTransaction {
+    private static final byte[][] NO_ARGS = new byte[0][];
+
+    private final RedisClient client;
+    private final List<RedisPipeline.Response> responses = new ArrayList<>();
+    private boolean done = false;
+    // MULTI之后连接已发送的字节数，用于判断事务中的命令是否已经因缓冲区满而发送
+    private long sentBytes;
+
+    RedisTransaction(RedisClient client) {
+        this.client = client;
+        try {
+            client.sendCommand(RedisCommand.MULTI.raw, NO_ARGS);
+            sentBytes = client.sentBytes();
+        } catch (RedisException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RedisException("Execute command failed.", e);
+        }
+    }
+
+    /**
+     * 添加无参数的命令
+     * @param command redis命令，如：ping
+     * @return 命令的响应，{@link #commit()}之后可用
+     */
+    public RedisPipeline.Response exec(RedisCommand command) {
+        return exec(command, NO_ARGS);
+    }
+
+    /**
+     * 添加命令
+     * @param command redis命令，如：set
+     * @param args redis命令参数： 如： [foo bar]
+     * @return 命令的响应，{@link #commit()}之后可用
+     */
+    public RedisPipeline.Response exec(RedisCommand command, String ...args) {
+        try {
+            return exec(command, RedisClient.encodeArgs(args));
+        } catch (RedisException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RedisException("Execute command failed.", e);
+        }
+    }
+
+    /**
+     * 添加命令，参数按原样发送
+     * @param command redis命令，如：set
+     * @param args redis命令参数
+     * @return 命令的响应，{@link #commit()}之后可用
+     */
+    public RedisPipeline.Response exec(RedisCommand command, byte[] ...args) {
+        checkDone();
+        try {
+            client.sendCommand(command.raw, args);
+        } catch (RedisException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RedisException("Execute command failed.", e);
+        }
+        RedisPipeline.Response response = new RedisPipeline.Response();
+        responses.add(response);
+        return response;
+    }
+
+    /**
+     * @return 事务中的命令个数
+     */
+    public int size() {
+        return responses.size();
+    }
+
+    /**
+     * 提交事务
+     * @return 每个命令的响应，WATCH的key被修改导致事务未执行时返回null
+     */
+    public List<RedisReply> commit() {
+        checkDone();
+        done = true;
+        RedisReply result;
+        RedisReply queueError = null;
+        try {
+            client.sendCommand(RedisCommand.EXEC.raw, NO_ARGS);
+            client.flush();
+            RedisReply multi = client.readReply();
+            if (multi.getType() == RedisReplyType.ERRORS) {
+                queueError = multi;
+            }
+            for (int i = 0; i < responses.size(); i++) {
+                RedisReply queued = client.readReply();
+                if (queueError == null && queued.getType() == RedisReplyType.ERRORS) {
+                    queueError = queued;
+                }
+            }
+            result = client.readReply();
+        } catch (RedisException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RedisException("Execute command failed.", e);
+        }
+        if (result.getType() == RedisReplyType.ERRORS) {
+            throw new RedisException("Transaction failed: " + result.getData()
+                    + (queueError == null ? "" : ", caused by: " + queueError.getData()));
+        }
+        if (result.isNull()) {
+            return null;
+        }
+        @SuppressWarnings("unchecked")
+        List<RedisReply> replies = (List<RedisReply>) result.getData();
+        for (int i = 0; i < replies.size() && i < responses.size(); i++) {
+            responses.get(i).set(replies.get(i));
+        }
+        return replies;
+    }
+
+    /**
+     * 放弃事务。命令都还在缓冲区中时直接丢弃并取消WATCH；
+     * 超过缓冲区大小的部分已经发送时，补发DISCARD并读取MULTI和各个命令的响应，失败时关闭连接。
+     */
+    public void discard() {
+        checkDone();
+        done = true;
+        if (client.sentBytes() == sentBytes) {
+            // exec会先清空缓冲区
+            client.exec(RedisCommand.UNWATCH);
+            return;
+        }
+        try {
+            client.sendCommand(RedisCommand.DISCARD.raw, NO_ARGS);
+            client.flush();
+            // MULTI、每个命令的QUEUED和DISCARD，DISCARD同时取消WATCH
+            for (int i = 0; i < responses.size() + 2; i++) {
+                client.readReply();
+            }
+        } catch (Exception e) {
+            client.closeSocket();
+            throw e instanceof RedisException ? (RedisException) e : new RedisException("Execute command failed.", e);
+        }
+    }
+
+    private void checkDone() {
+        if (done) {
+            throw new RedisException("Transaction is already committed or discarded.");
+        }
+    }
+}
@@ -0,0 +1,483 @@
+package com.github.myibu.redis.client;
+
+import com.github.myibu.redis.client.RedisClient.RedisCommand;
+import com.github.myibu.redis.client.RedisClient.RedisException;
+import com.github.myibu.redis.client.RedisClient.RedisOutputStream;
+import com.github.myibu.redis.client.RedisClient.RedisReply;
+import com.github.myibu.redis.client.RedisClient.RedisReplyType;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 带类型的客户端，key和field为字符串，值通过{@link RedisCodec}直接写入输出流，
+ * 整数、浮点数和布尔类型的结果直接从响应中解析，不创建包装对象。
+ * 服务端返回错误时抛出{@link RedisException}，非线程安全。
+ * <pre>
+ * RedisTypedClient&lt;String&gt; typed = new RedisTypedClient&lt;&gt;(redisClient, RedisCodec.utf8());
+ * long visits = typed.incr("visits");
+ * </pre>
+ * @author myibu
+ * Create on 2026/10/18
+ */
+public class RedisTypedClient<V> {
+    private final RedisClient client;
+    private final RedisCodec<V> codec;
+
+    public RedisTypedClient(RedisClient client, RedisCodec<V> codec) {
+        this.client = client;
+        this.codec = codec;
+    }
+
+    public RedisClient getClient() {
+        return client;
+    }
+
+    public RedisCodec<V> getCodec() {
+        return codec;
+    }
+
+    // ---------- strings ----------
+
+    /**
+     * @return 值，key不存在时为null
+     */
+    public V get(String key) {
+        return value(key(RedisCommand.GET, key));
+    }
+
+    public void set(String key, V value) {
+        try {
+            RedisOutputStream out = client.beginCommand(RedisCommand.SET, 2);
+            out.writeBulk(key);
+            codec.write(out, value);
+            call();
+        } catch (IOException | RuntimeException e) {
+            throw failed(e);
+        }
+    }
+
+    public void setex(String key, long seconds, V value) {
+        try {
+            RedisOutputStream out = client.beginCommand(RedisCommand.SETEX, 3);
+            out.writeBulk(key);
+            out.writeBulk(seconds);
+            codec.write(out, value);
+            call();
+        } catch (IOException | RuntimeException e) {
+            throw failed(e);
+        }
+    }
+
+    /**
+     * @return key不存在并设置成功时为true
+     */
+    public boolean setnx(String key, V value) {
+        return keyValue(RedisCommand.SETNX, key, value).getBoolean();
+    }
+
+    public List<V> mget(String ...keys) {
+        return values(keys(RedisCommand.MGET, keys));
+    }
+
+    /**
+     * @return 删除的key的个数
+     */
+    public long del(String ...keys) {
+        return keys(RedisCommand.DEL, keys).getLong();
+    }
+
+    public long exists(String ...keys) {
+        return keys(RedisCommand.EXISTS, keys).getLong();
+    }
+
+    public boolean expire(String key, long seconds) {
+        return keyLong(RedisCommand.EXPIRE, key, seconds).getBoolean();
+    }
+
+    /**
+     * @return 剩余秒数，没有过期时间时为-1，key不存在时为-2
+     */
+    public long ttl(String key) {
+        return key(RedisCommand.TTL, key).getLong();
+    }
+
+    // ---------- counters ----------
+
+    public long incr(String key) {
+        return key(RedisCommand.INCR, key).getLong();
+    }
+
+    public long incrBy(String key, long increment) {
+        return keyLong(RedisCommand.INCRBY, key, increment).getLong();
+    }
+
+    public long decr(String key) {
+        return key(RedisCommand.DECR, key).getLong();
+    }
+
+    public long decrBy(String key, long decrement) {
+        return keyLong(RedisCommand.DECRBY, key, decrement).getLong();
+    }
+
+    public double incrByFloat(String key, double increment) {
+        try {
+            RedisOutputStream out = client.beginCommand(RedisCommand.INCRBYFLOAT, 2);
+            out.writeBulk(key);
+            out.writeBulk(increment);
+            return call().getDouble();
+        } catch (IOException | RuntimeException e) {
+            throw failed(e);
+        }
+    }
+
+    // ---------- hashes ----------
+
+    /**
+     * @return 值，key或field不存在时为null
+     */
+    public V hget(String key, String field) {
+        return value(keyFields(RedisCommand.HGET, key, field));
+    }
+
+    /**
+     * @return field是新增的时为true
+     */
+    public boolean hset(String key, String field, V value) {
+        try {
+            RedisOutputStream out = client.beginCommand(RedisCommand.HSET, 3);
+            out.writeBulk(key);
+            out.writeBulk(field);
+            codec.write(out, value);
+            return call().getBoolean();
+        } catch (IOException | RuntimeException e) {
+            throw failed(e);
+        }
+    }
+
+    public List<V> hmget(String key, String ...fields) {
+        return values(keyFields(RedisCommand.HMGET, key, fields));
+    }
+
+    public Map<String, V> hgetAll(String key) {
+        RedisReply reply = key(RedisCommand.HGETALL, key);
+        Map<String, V> map = new LinkedHashMap<>();
+        if (reply.getType() == RedisReplyType.MAPS) {
+            @SuppressWarnings("unchecked")
+            Map<Object, RedisReply> data = (Map<Object, RedisReply>) reply.getData();
+            for (Map.Entry<Object, RedisReply> entry : data.entrySet()) {
+                map.put(String.valueOf(entry.getKey()), value(entry.getValue()));
+            }
+            return map;
+        }
+        @SuppressWarnings("unchecked")
+        List<RedisReply> elements = (List<RedisReply>) reply.getData();
+        for (int i = 0; i + 1 < elements.size(); i += 2) {
+            map.put((String) elements.get(i).getData(), value(elements.get(i + 1)));
+        }
+        return map;
+    }
+
+    public long hdel(String key, String ...fields) {
+        return keyFields(RedisCommand.HDEL, key, fields).getLong();
+    }
+
+    public boolean hexists(String key, String field) {
+        return keyFields(RedisCommand.HEXISTS, key, field).getBoolean();
+    }
+
+    public long hlen(String key) {
+        return key(RedisCommand.HLEN, key).getLong();
+    }
+
+    public long hincrBy(String key, String field, long increment) {
+        try {
+            RedisOutputStream out = client.beginCommand(RedisCommand.HINCRBY, 3);
+            out.writeBulk(key);
+            out.writeBulk(field);
+            out.writeBulk(increment);
+            return call().getLong();
+        } catch (IOException | RuntimeException e) {
+            throw failed(e);
+        }
+    }
+
+    public double hincrByFloat(String key, String field, double increment) {
+        try {
+            RedisOutputStream out = client.beginCommand(RedisCommand.HINCRBYFLOAT, 3);
+            out.writeBulk(key);
+            out.writeBulk(field);
+            out.writeBulk(increment);
+            return call().getDouble();
+        } catch (IOException | RuntimeException e) {
+            throw failed(e);
+        }
+    }
+
+    // ---------- lists ----------
+
+    /**
+     * @return 插入后列表的长度
+     */
+    @SafeVarargs
+    public final long lpush(String key, V ...values) {
+        try {
+            RedisOutputStream out = client.beginCommand(RedisCommand.LPUSH, 1 + values.length);
+            out.writeBulk(key);
+            // 逐个写入，可变参数数组不传给其他方法
+            for (V value : values) {
+                codec.write(out, value);
+            }
+            return call().getLong();
+        } catch (IOException | RuntimeException e) {
+            throw failed(e);
+        }
+    }
+
+    @SafeVarargs
+    public final long rpush(String key, V ...values) {
+        try {
+            RedisOutputStream out = client.beginCommand(RedisCommand.RPUSH, 1 + values.length);
+            out.writeBulk(key);
+            for (V value : values) {
+                codec.write(out, value);
+            }
+            return call().getLong();
+        } catch (IOException | RuntimeException e) {
+            throw failed(e);
+        }
+    }
+
+    public V lpop(String key) {
+        return value(key(RedisCommand.LPOP, key));
+    }
+
+    public V rpop(String key) {
+        return value(key(RedisCommand.RPOP, key));
+    }
+
+    public V lindex(String key, long index) {
+        return value(keyLong(RedisCommand.LINDEX, key, index));
+    }
+
+    public List<V> lrange(String key, long start, long stop) {
+        return values(keyRange(RedisCommand.LRANGE, key, start, stop));
+    }
+
+    public long llen(String key) {
+        return key(RedisCommand.LLEN, key).getLong();
+    }
+
+    // ---------- sets ----------
+
+    /**
+     * @return 新增的元素个数
+     */
+    @SafeVarargs
+    public final long sadd(String key, V ...members) {
+        try {
+            RedisOutputStream out = client.beginCommand(RedisCommand.SADD, 1 + members.length);
+            out.writeBulk(key);
+            for (V value : members) {
+                codec.write(out, value);
+            }
+            return call().getLong();
+        } catch (IOException | RuntimeException e) {
+            throw failed(e);
+        }
+    }
+
+    @SafeVarargs
+    public final long srem(String key, V ...members) {
+        try {
+            RedisOutputStream out = client.beginCommand(RedisCommand.SREM, 1 + members.length);
+            out.writeBulk(key);
+            for (V value : members) {
+                codec.write(out, value);
+            }
+            return call().getLong();
+        } catch (IOException | RuntimeException e) {
+            throw failed(e);
+        }
+    }
+
+    public boolean sismember(String key, V member) {
+        return keyValue(RedisCommand.SISMEMBER, key, member).getBoolean();
+    }
+
+    public List<V> smembers(String key) {
+        return values(key(RedisCommand.SMEMBERS, key));
+    }
+
+    public long scard(String key) {
+        return key(RedisCommand.SCARD, key).getLong();
+    }
+
+    // ---------- sorted sets ----------
+
+    /**
+     * @return member是新增的时为true
+     */
+    public boolean zadd(String key, double score, V member) {
+        return keyScoreValue(RedisCommand.ZADD, key, score, member).getBoolean();
+    }
+
+    /**
+     * @return 增加后的分数
+     */
+    public double zincrBy(String key, double increment, V member) {
+        return keyScoreValue(RedisCommand.ZINCRBY, key, increment, member).getDouble();
+    }
+
+    /**
+     * @return 分数，member不存在时为{@link Double#NaN}
+     */
+    public double zscore(String key, V member) {
+        RedisReply reply = keyValue(RedisCommand.ZSCORE, key, member);
+        return reply.isNull() ? Double.NaN : reply.getDouble();
+    }
+
+    /**
+     * @return 从0开始的排名，member不存在时为-1
+     */
+    public long zrank(String key, V member) {
+        RedisReply reply = keyValue(RedisCommand.ZRANK, key, member);
+        return reply.isNull() ? -1 : reply.getLong();
+    }
+
+    @SafeVarargs
+    public final long zrem(String key, V ...members) {
+        try {
+            RedisOutputStream out = client.beginCommand(RedisCommand.ZREM, 1 + members.length);
+            out.writeBulk(key);
+            for (V value : members) {
+                codec.write(out, value);
+            }
+            return call().getLong();
+        } catch (IOException | RuntimeException e) {
+            throw failed(e);
+        }
+    }
+
+    public List<V> zrange(String key, long start, long stop) {
+        return values(keyRange(RedisCommand.ZRANGE, key, start, stop));
+    }
+
+    public long zcard(String key) {
+        return key(RedisCommand.ZCARD, key).getLong();
+    }
+
+    private RedisReply key(RedisCommand command, String key) {
+        try {
+            client.beginCommand(command, 1).writeBulk(key);
+            return call();
+        } catch (IOException | RuntimeException e) {
+            throw failed(e);
+        }
+    }
+
+    private RedisReply keys(RedisCommand command, String[] keys) {
+        try {
+            RedisOutputStream out = client.beginCommand(command, keys.length);
+            for (String key : keys) {
+                out.writeBulk(key);
+            }
+            return call();
+        } catch (IOException | RuntimeException e) {
+            throw failed(e);
+        }
+    }
+
+    private RedisReply keyFields(RedisCommand command, String key, String ...fields) {
+        try {
+            RedisOutputStream out = client.beginCommand(command, 1 + fields.length);
+            out.writeBulk(key);
+            for (String field : fields) {
+                out.writeBulk(field);
+            }
+            return call();
+        } catch (IOException | RuntimeException e) {
+            throw failed(e);
+        }
+    }
+
+    private RedisReply keyLong(RedisCommand command, String key, long value) {
+        try {
+            RedisOutputStream out = client.beginCommand(command, 2);
+            out.writeBulk(key);
+            out.writeBulk(value);
+            return call();
+        } catch (IOException | RuntimeException e) {
+            throw failed(e);
+        }
+    }
+
+    private RedisReply keyRange(RedisCommand command, String key, long start, long stop) {
+        try {
+            RedisOutputStream out = client.beginCommand(command, 3);
+            out.writeBulk(key);
+            out.writeBulk(start);
+            out.writeBulk(stop);
+            return call();
+        } catch (IOException | RuntimeException e) {
+            throw failed(e);
+        }
+    }
+
+    private RedisReply keyValue(RedisCommand command, String key, V value) {
+        try {
+            RedisOutputStream out = client.beginCommand(command, 2);
+            out.writeBulk(key);
+            codec.write(out, value);
+            return call();
+        } catch (IOException | RuntimeException e) {
+            throw failed(e);
+        }
+    }
+
+    private RedisReply keyScoreValue(RedisCommand command, String key, double score, V value) {
+        try {
+            RedisOutputStream out = client.beginCommand(command, 3);
+            out.writeBulk(key);
+            out.writeBulk(score);
+            codec.write(out, value);
+            return call();
+        } catch (IOException | RuntimeException e) {
+            throw failed(e);
+        }
+    }
+
+    /**
+     * 命令只写入了一部分时，已经发出的部分无法撤回，关闭连接；还没有发出时丢弃缓冲区
+     */
+    private RedisException failed(Exception e) {
+        client.abortCommand();
+        return e instanceof RedisException ? (RedisException) e : new RedisException("Execute command failed.", e);
+    }
+
+    private RedisReply call() throws IOException {
+        client.flush();
+        RedisReply reply = client.readReply();
+        if (reply.getType() == RedisReplyType.ERRORS || reply.getType() == RedisReplyType.BLOB_ERRORS) {
+            throw new RedisException(String.valueOf(reply.getData()));
+        }
+        return reply;
+    }
+
+    private V value(RedisReply reply) {
+        return reply.isNull() ? null : codec.read(reply);
+    }
+
+    private List<V> values(RedisReply reply) {
+        @SuppressWarnings("unchecked")
+        List<RedisReply> elements = (List<RedisReply>) reply.getData();
+        List<V> values = new ArrayList<>(elements.size());
+        for (RedisReply element : elements) {
+            values.add(value(element));
+        }
+        return values;
+    }
+}
@@ -0,0 +1,75 @@
+package com.github.myibu.redis.client;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RedisAsyncClientTest {
+
+    @Test
+    public void testExec() throws Exception {
+        RedisAsyncClient client = new RedisAsyncClient();
+        try {
+            client.exec(RedisClient.RedisCommand.SET, "async:foo", "bar").get(1, TimeUnit.SECONDS);
+            RedisClient.RedisReply reply = client.exec(RedisClient.RedisCommand.GET, "async:foo").get(1, TimeUnit.SECONDS);
+            System.out.println(reply);
+            assertEquals("bar", reply.getData());
+            assertEquals("PONG", client.exec(RedisClient.RedisCommand.PING).get(1, TimeUnit.SECONDS).getData());
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void testConcurrentCallers() throws Exception {
+        RedisAsyncClient client = new RedisAsyncClient();
+        ExecutorService executor = Executors.newFixedThreadPool(32);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                final int thread = i;
+                futures.add(executor.submit(() -> {
+                    List<CompletableFuture<RedisClient.RedisReply>> gets = new ArrayList<>();
+                    for (int j = 0; j < 1000; j++) {
+                        String key = "async:" + thread + ":" + j;
+                        client.exec(RedisClient.RedisCommand.SET, key, String.valueOf(j));
+                        gets.add(client.exec(RedisClient.RedisCommand.GET, key));
+                    }
+                    for (int j = 0; j < 1000; j++) {
+                        assertEquals(String.valueOf(j), gets.get(j).get(5, TimeUnit.SECONDS).getData());
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+            client.close();
+        }
+    }
+
+    @Test
+    public void testClose() throws Exception {
+        RedisAsyncClient client = new RedisAsyncClient();
+        client.close();
+        try {
+            client.exec(RedisClient.RedisCommand.PING).get(1, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof RedisClient.RedisException);
+        }
+    }
+}
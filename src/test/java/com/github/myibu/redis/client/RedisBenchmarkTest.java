@@ -0,0 +1,52 @@
+package com.github.myibu.redis.client;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RedisBenchmarkTest {
+
+    @Test
+    public void testRun() throws Exception {
+        RedisBenchmark.Config config = RedisBenchmark.Config.parse(new String[]{
+                "-c", "4", "-n", "10001", "-P", "16", "-d", "64", "-r", "100", "-l", "10", "-t", "set:4,get:4,incr:1,lpush:1,lrange:1"});
+        config.setKeyPrefix("benchmark:test:");
+        RedisBenchmark.Result result = new RedisBenchmark(config).run();
+        result.print(System.out);
+        assertEquals(0, result.getErrors());
+        assertEquals(10001, result.getRequests());
+        assertEquals(5, result.getLatencies().size());
+        assertTrue(result.getOpsPerSecond() > 0);
+        assertTrue(result.getLatencies().get(RedisClient.RedisCommand.GET).getCount() > 0);
+    }
+
+    @Test
+    public void testParse() {
+        assertNull(RedisBenchmark.Config.parse(new String[]{"--help"}));
+        RedisBenchmark.Config config = RedisBenchmark.Config.parse(new String[]{"-h", "localhost", "-p", "6380", "-t", "get"});
+        assertEquals(6380, config.getAddress().getPort());
+        assertEquals(1, config.getMix().size());
+        assertEquals(Integer.valueOf(1), config.getMix().get(RedisClient.RedisCommand.GET));
+        // 非正数的选项和负数的权重是用法错误
+        String[][] invalid = {{"-c", "0"}, {"-n", "0"}, {"-P", "0"}, {"-r", "0"}, {"-l", "-1"}, {"-d", "-1"}, {"-t", "get:-1"}};
+        for (String[] args : invalid) {
+            try {
+                RedisBenchmark.Config.parse(args);
+                fail(args[0] + " " + args[1]);
+            } catch (IllegalArgumentException e) {
+                System.out.println(e.getMessage());
+            }
+        }
+        config = new RedisBenchmark.Config();
+        config.setPipeline(0);
+        try {
+            new RedisBenchmark(config);
+            fail();
+        } catch (RedisClient.RedisException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.github.myibu.redis.client;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class RedisBulkValueTest {
+
+    @Test
+    public void testFileChannel() throws IOException {
+        byte[] value = new byte[5 * 1024 * 1024 + 7];
+        new Random(1).nextBytes(value);
+        Path file = Files.createTempFile("redis-bulk", ".bin");
+        Path copy = Files.createTempFile("redis-bulk", ".copy");
+        RedisClient client = new RedisClient();
+        try {
+            Files.write(file, value);
+            try (FileChannel channel = FileChannel.open(file)) {
+                RedisClient.RedisReply reply = client.execAndReturn(RedisClient.RedisCommand.SET, RedisBulkValue.of("bulk:file"), RedisBulkValue.of(channel));
+                assertEquals("OK", reply.getData());
+                assertEquals(0, channel.position());
+            }
+            try (FileChannel channel = FileChannel.open(copy, StandardOpenOption.WRITE)) {
+                assertEquals(value.length, client.execAndTransfer(RedisClient.RedisCommand.GET, channel, "bulk:file"));
+            }
+            assertArrayEquals(value, Files.readAllBytes(copy));
+        } finally {
+            client.close();
+            Files.delete(file);
+            Files.delete(copy);
+        }
+    }
+
+    @Test
+    public void testInputStream() {
+        byte[] value = new byte[100000];
+        new Random(2).nextBytes(value);
+        RedisClient client = new RedisClient();
+        try {
+            client.execAndReturn(RedisClient.RedisCommand.HSET, RedisBulkValue.of("bulk:hash"), RedisBulkValue.of("field"),
+                    RedisBulkValue.of(new ByteArrayInputStream(value), value.length));
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            assertEquals(value.length, client.execAndTransfer(RedisClient.RedisCommand.HGET, out, "bulk:hash", "field"));
+            assertArrayEquals(value, out.toByteArray());
+
+            // 小于缓冲区的值
+            client.exec(RedisClient.RedisCommand.SET, "bulk:small", "bar");
+            out.reset();
+            assertEquals(3, client.execAndTransfer(RedisClient.RedisCommand.GET, out, "bulk:small"));
+            assertEquals("bar", out.toString());
+            client.exec(RedisClient.RedisCommand.DEL, "bulk:none");
+            assertEquals(-1, client.execAndTransfer(RedisClient.RedisCommand.GET, out, "bulk:none"));
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void testFailure() {
+        RedisClient client = new RedisClient();
+        try {
+            // 输入流提前结束，重新连接后可以继续使用
+            try {
+                client.execAndReturn(RedisClient.RedisCommand.SET, RedisBulkValue.of("bulk:short"),
+                        RedisBulkValue.of(new ByteArrayInputStream(new byte[10]), 20000));
+                fail();
+            } catch (RedisClient.RedisException e) {
+                System.out.println(e.getMessage());
+            }
+            assertEquals("PONG", client.execAndReturn(RedisClient.RedisCommand.PING).getData());
+
+            client.exec(RedisClient.RedisCommand.SET, "bulk:large", new String(new char[50000]).replace('\0', 'x'));
+            OutputStream broken = new OutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+                    throw new IOException("disk full");
+                }
+            };
+            try {
+                client.execAndTransfer(RedisClient.RedisCommand.GET, broken, "bulk:large");
+                fail();
+            } catch (RedisClient.RedisException e) {
+                assertEquals("disk full", e.getCause().getMessage());
+            }
+            assertEquals("PONG", client.execAndReturn(RedisClient.RedisCommand.PING).getData());
+
+            client.exec(RedisClient.RedisCommand.DEL, "bulk:list");
+            client.exec(RedisClient.RedisCommand.LPUSH, "bulk:list", "a");
+            try {
+                client.execAndTransfer(RedisClient.RedisCommand.GET, Channels.newChannel(new ByteArrayOutputStream()), "bulk:list");
+                fail();
+            } catch (RedisClient.RedisException e) {
+                System.out.println(e.getMessage());
+            }
+            assertEquals("PONG", client.execAndReturn(RedisClient.RedisCommand.PING).getData());
+        } finally {
+            client.close();
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.github.myibu.redis.client;
+
+import com.github.myibu.redis.client.RedisClient.RedisCommand;
+import com.github.myibu.redis.client.RedisClient.RedisException;
+import com.github.myibu.redis.client.RedisClient.RedisTimeoutException;
+import org.junit.Test;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RedisCircuitBreakerTest {
+    private static final InetSocketAddress ADDRESS = new InetSocketAddress("127.0.0.1", 6379);
+
+    @Test
+    public void testReadTimeout() {
+        RedisClient client = new RedisClient(ADDRESS, 1000, 200);
+        try {
+            client.exec(RedisCommand.DEL, "timeout:list");
+            long start = System.nanoTime();
+            try {
+                client.execAndReturn(RedisCommand.BLPOP, "timeout:list", "2");
+                fail();
+            } catch (RedisTimeoutException e) {
+                System.out.println(e.getMessage());
+            }
+            assertTrue(System.nanoTime() - start < 1000_000_000L);
+            // 超时的连接已被关闭，迟到的响应不会被当作下一个命令的响应
+            client.exec(RedisCommand.RPUSH, "timeout:list", "a");
+            assertEquals("a", client.execAndReturn(RedisCommand.LPOP, "timeout:list").getData());
+            assertEquals("PONG", client.execAndReturn(RedisCommand.PING).getData());
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void testDeadline() {
+        RedisClient client = new RedisClient(ADDRESS);
+        try {
+            client.exec(RedisCommand.DEL, "deadline:list");
+            long start = System.nanoTime();
+            try {
+                client.withDeadline(100, c -> c.execAndReturn(RedisCommand.BLPOP, "deadline:list", "2"));
+                fail();
+            } catch (RedisTimeoutException e) {
+                System.out.println(e.getMessage());
+            }
+            assertTrue(System.nanoTime() - start < 1000_000_000L);
+            // 嵌套调用使用较早的截止时间
+            start = System.nanoTime();
+            try {
+                client.withDeadline(100, c -> c.withDeadline(5000, c2 -> c2.execAndReturn(RedisCommand.BLPOP, "deadline:list", "2")));
+                fail();
+            } catch (RedisTimeoutException e) {
+                System.out.println(e.getMessage());
+            }
+            assertTrue(System.nanoTime() - start < 1000_000_000L);
+            assertEquals("PONG", client.withDeadline(1000, c -> c.execAndReturn(RedisCommand.PING)).getData());
+            // 截止时间结束后恢复不超时
+            assertTrue(client.execAndReturn(RedisCommand.BLPOP, "deadline:list", "1").isNull());
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void testPartialReply() throws Exception {
+        // 只返回部分响应后不再发送数据的服务端
+        ServerSocket server = new ServerSocket(0);
+        List<Socket> accepted = new CopyOnWriteArrayList<>();
+        Thread thread = new Thread(() -> {
+            try {
+                while (true) {
+                    Socket socket = server.accept();
+                    accepted.add(socket);
+                    OutputStream out = socket.getOutputStream();
+                    out.write("$10\r\nabc".getBytes(StandardCharsets.UTF_8));
+                    out.flush();
+                }
+            } catch (Exception ignored) {
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+        RedisCircuitBreaker.Config config = new RedisCircuitBreaker.Config();
+        config.setFailureThreshold(2);
+        config.setOpenMillis(300);
+        RedisCircuitBreaker breaker = new RedisCircuitBreaker(config);
+        RedisClient client = new RedisClient(new InetSocketAddress("127.0.0.1", server.getLocalPort()), 1000, 100);
+        try {
+            client.setCircuitBreaker(breaker);
+            for (int i = 0; i < 2; i++) {
+                try {
+                    client.execAndReturn(RedisCommand.GET, "foo");
+                    fail();
+                } catch (RedisTimeoutException e) {
+                    System.out.println(e.getMessage());
+                }
+            }
+            assertEquals(RedisCircuitBreaker.State.OPEN, breaker.getState());
+            // 熔断器打开期间立即失败，不再重新连接
+            long start = System.nanoTime();
+            try {
+                client.execAndReturn(RedisCommand.GET, "foo");
+                fail();
+            } catch (RedisException e) {
+                assertFalse(e instanceof RedisTimeoutException);
+                System.out.println(e.getMessage());
+            }
+            assertTrue(System.nanoTime() - start < 50_000_000L);
+            assertEquals(2, accepted.size());
+            // 试探请求仍然超时，重新打开
+            Thread.sleep(350);
+            try {
+                client.execAndReturn(RedisCommand.GET, "foo");
+                fail();
+            } catch (RedisTimeoutException e) {
+                System.out.println(e.getMessage());
+            }
+            assertEquals(RedisCircuitBreaker.State.OPEN, breaker.getState());
+            RedisCircuitBreaker.Stats stats = breaker.getStats();
+            System.out.println(stats);
+            assertEquals(3, stats.getFailureCount());
+            assertEquals(1, stats.getRejectedCount());
+            assertEquals(2, stats.getOpenedCount());
+        } finally {
+            client.close();
+            server.close();
+        }
+    }
+
+    @Test
+    public void testRecover() throws Exception {
+        RedisCircuitBreaker.Config config = new RedisCircuitBreaker.Config();
+        config.setFailureThreshold(2);
+        config.setOpenMillis(300);
+        RedisCircuitBreaker breaker = new RedisCircuitBreaker(config);
+        RedisClientPool.Config poolConfig = new RedisClientPool.Config();
+        poolConfig.setReadTimeoutMillis(100);
+        poolConfig.setCircuitBreaker(breaker);
+        RedisClientPool pool = new RedisClientPool(ADDRESS, poolConfig);
+        try {
+            pool.execute(client -> client.execAndReturn(RedisCommand.DEL, "breaker:list"));
+            for (int i = 0; i < 2; i++) {
+                try {
+                    pool.execute(client -> client.execAndReturn(RedisCommand.BLPOP, "breaker:list", "1"));
+                    fail();
+                } catch (RedisTimeoutException e) {
+                    System.out.println(e.getMessage());
+                }
+            }
+            assertEquals(RedisCircuitBreaker.State.OPEN, breaker.getState());
+            try {
+                pool.borrow();
+                fail();
+            } catch (RedisException e) {
+                System.out.println(e.getMessage());
+            }
+            Thread.sleep(350);
+            assertEquals("PONG", pool.execute(client -> client.execAndReturn(RedisCommand.PING)).getData());
+            assertEquals(RedisCircuitBreaker.State.CLOSED, breaker.getState());
+        } finally {
+            pool.close();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.github.myibu.redis.client;
+
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RedisClientPoolTest {
+
+    private static RedisClientPool.Config config(int minIdle, int maxTotal) {
+        RedisClientPool.Config config = new RedisClientPool.Config();
+        config.setMinIdle(minIdle);
+        config.setMaxTotal(maxTotal);
+        config.setMaxWaitMillis(200);
+        return config;
+    }
+
+    @Test
+    public void testConcurrentBorrow() throws Exception {
+        RedisClientPool pool = new RedisClientPool(new InetSocketAddress("127.0.0.1", 6379), config(2, 8));
+        assertEquals(2, pool.getStats().getIdle());
+        ExecutorService executor = Executors.newFixedThreadPool(50);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                final String key = "pool:" + i;
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < 100; j++) {
+                        final String value = String.valueOf(j);
+                        Object data = pool.execute(client -> {
+                            client.exec(RedisClient.RedisCommand.SET, key, value);
+                            return client.execAndReturn(RedisClient.RedisCommand.GET, key).getData();
+                        });
+                        assertEquals(value, data);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        RedisClientPool.Stats stats = pool.getStats();
+        System.out.println(stats);
+        assertEquals(5000, stats.getBorrowedCount());
+        assertEquals(0, stats.getActive());
+        assertTrue(stats.getCreatedCount() <= 8);
+        pool.close();
+    }
+
+    @Test
+    public void testBorrowTimeout() {
+        RedisClientPool pool = new RedisClientPool(new InetSocketAddress("127.0.0.1", 6379), config(0, 1));
+        RedisClient client = pool.borrow();
+        try {
+            pool.borrow();
+            fail();
+        } catch (RedisClient.RedisException e) {
+            assertEquals(1, pool.getStats().getTimeoutCount());
+        }
+        pool.invalidate(client);
+        // 销毁后可以重新创建连接
+        pool.release(pool.borrow());
+        assertEquals(2, pool.getStats().getCreatedCount());
+        pool.close();
+    }
+
+    @Test
+    public void testEvict() {
+        RedisClientPool.Config config = config(1, 4);
+        config.setTimeBetweenEvictionRunsMillis(0);
+        config.setMinEvictableIdleTimeMillis(1);
+        RedisClientPool pool = new RedisClientPool(new InetSocketAddress("127.0.0.1", 6379), config);
+        RedisClient a = pool.borrow();
+        RedisClient b = pool.borrow();
+        a.close();
+        pool.release(a);
+        pool.release(b);
+        assertEquals(2, pool.getStats().getIdle());
+        try {
+            Thread.sleep(5);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        pool.evict();
+        assertEquals(1, pool.getStats().getIdle());
+        pool.close();
+    }
+}
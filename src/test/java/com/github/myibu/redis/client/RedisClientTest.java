@@ -5,7 +5,20 @@ import org.junit.FixMethodOrder;
 import org.junit.Test;
 import org.junit.runners.MethodSorters;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 @FixMethodOrder(MethodSorters.NAME_ASCENDING)
 public class RedisClientTest {
@@ -93,4 +106,199 @@ public class RedisClientTest {
         List<RedisClient.RedisReply> redisReply = redisInputStream.readReplies();
         System.out.println(redisReply);
     }
+
+    @Test
+    public void test10SplitReply() throws Exception {
+        byte[] raw = "*3\r\n$9\r\nsubscribe\r\n$3\r\nfoo\r\n:1\r\n+OK\r\n".getBytes(StandardCharsets.UTF_8);
+        // 每次只返回一个字节，模拟响应跨越多个TCP分段
+        InputStream trickle = new ByteArrayInputStream(raw) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, 1));
+            }
+        };
+        RedisClient.RedisInputStream redisInputStream = new RedisClient.RedisInputStream(trickle, 4);
+        RedisClient.RedisReply redisReply = redisInputStream.readReply();
+        System.out.println(redisReply);
+        assertEquals(3, ((List<?>) redisReply.getData()).size());
+        assertEquals("OK", redisInputStream.readReply().getData());
+    }
+
+    @Test
+    public void test11LargeReply() throws Exception {
+        StringBuilder value = new StringBuilder();
+        for (int i = 0; i < 1 << 20; i++) {
+            value.append((char) ('a' + i % 26));
+        }
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        bos.write(("$" + value.length() + "\r\n" + value + "\r\n").getBytes(StandardCharsets.UTF_8));
+        bos.write("*100000\r\n".getBytes(StandardCharsets.UTF_8));
+        for (int i = 0; i < 100000; i++) {
+            bos.write((":" + i + "\r\n").getBytes(StandardCharsets.UTF_8));
+        }
+        RedisClient.RedisInputStream redisInputStream = new RedisClient.RedisInputStream(new ByteArrayInputStream(bos.toByteArray()));
+        List<RedisClient.RedisReply> redisReply = redisInputStream.readReplies();
+        assertEquals(2, redisReply.size());
+        assertEquals(value.toString(), redisReply.get(0).getData());
+        List<?> elements = (List<?>) redisReply.get(1).getData();
+        assertEquals(100000, elements.size());
+        assertEquals(99999, ((RedisClient.RedisReply) elements.get(99999)).getData());
+    }
+
+    @Test
+    public void test12NestedArrays() throws Exception {
+        RedisClient.RedisInputStream redisInputStream = new RedisClient.RedisInputStream("*2\r\n*2\r\n:1\r\n$-1\r\n$3\r\nbar\r\n");
+        RedisClient.RedisReply redisReply = redisInputStream.readReply();
+        List<?> elements = (List<?>) redisReply.getData();
+        RedisClient.RedisReply inner = (RedisClient.RedisReply) elements.get(0);
+        assertEquals("*2\r\n:1\r\n$-1\r\n", new String(inner.getRaw(), StandardCharsets.UTF_8));
+        assertEquals("bar", ((RedisClient.RedisReply) elements.get(1)).getData());
+        System.out.println(redisReply);
+    }
+
+    @Test
+    public void test13Binary() {
+        byte[] value = new byte[256];
+        for (int i = 0; i < value.length; i++) {
+            value[i] = (byte) i;
+        }
+        RedisClient client = new RedisClient();
+        try {
+            client.exec(RedisClient.RedisCommand.SET, "binary".getBytes(StandardCharsets.UTF_8), value);
+            RedisClient.RedisReply reply = client.execAndReturn(RedisClient.RedisCommand.GET, ByteBuffer.wrap("binary".getBytes(StandardCharsets.UTF_8)));
+            assertArrayEquals(value, reply.getBytes());
+            assertEquals(ByteBuffer.wrap(value), reply.getByteBuffer());
+            RedisClient.RedisReply nullReply = client.execAndReturn(RedisClient.RedisCommand.GET, "binary-missing".getBytes(StandardCharsets.UTF_8));
+            assertNull(nullReply.getBytes());
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void test14OutputStream() throws Exception {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        RedisClient.RedisOutputStream redisOutputStream = new RedisClient.RedisOutputStream(bos);
+        redisOutputStream.write(RedisClient.ASTERISK_BYTE);
+        redisOutputStream.writeIntCrLf(3);
+        redisOutputStream.write(RedisClient.RedisCommand.SET.raw);
+        redisOutputStream.writeLongCrLf(Long.MIN_VALUE);
+        redisOutputStream.writeIntCrLf(0);
+        redisOutputStream.writeIntCrLf(-12);
+        redisOutputStream.writeLongCrLf(Long.MAX_VALUE);
+        redisOutputStream.flush();
+        assertEquals("*3\r\n$3\r\nSET\r\n-9223372036854775808\r\n0\r\n-12\r\n9223372036854775807\r\n",
+                new String(bos.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void test15Resp3Types() throws Exception {
+        RedisClient.RedisInputStream redisInputStream = new RedisClient.RedisInputStream(
+                "%2\r\n+first\r\n:1\r\n$6\r\nsecond\r\n~2\r\n,1.5\r\n,-inf\r\n" +
+                "_\r\n#t\r\n(3492890328409238509324850943850943825024385\r\n" +
+                "=15\r\ntxt:Some string\r\n!9\r\nERR error\r\n" +
+                ">3\r\n$10\r\ninvalidate\r\n*1\r\n$3\r\nfoo\r\n_\r\n" +
+                "|1\r\n+ttl\r\n:3600\r\n$3\r\nbar\r\n");
+        List<RedisClient.RedisReply> pushes = new ArrayList<>();
+        redisInputStream.setPushListener(pushes::add);
+        List<RedisClient.RedisReply> replies = redisInputStream.readReplies();
+        assertEquals(7, replies.size());
+
+        RedisClient.RedisReply map = replies.get(0);
+        assertEquals(RedisClient.RedisReplyType.MAPS, map.getType());
+        Map<?, ?> entries = (Map<?, ?>) map.getData();
+        assertEquals(1, ((RedisClient.RedisReply) entries.get("first")).getData());
+        List<?> set = (List<?>) ((RedisClient.RedisReply) entries.get("second")).getData();
+        assertEquals(1.5, ((RedisClient.RedisReply) set.get(0)).getData());
+        assertEquals(Double.NEGATIVE_INFINITY, ((RedisClient.RedisReply) set.get(1)).getData());
+
+        assertTrue(replies.get(1).isNull());
+        assertNull(replies.get(1).getData());
+        assertEquals(Boolean.TRUE, replies.get(2).getData());
+        assertEquals(new BigInteger("3492890328409238509324850943850943825024385"), replies.get(3).getData());
+        assertEquals("Some string", replies.get(4).getData());
+        assertArrayEquals("Some string".getBytes(StandardCharsets.UTF_8), replies.get(4).getBytes());
+        assertEquals(RedisClient.RedisReplyType.BLOB_ERRORS, replies.get(5).getType());
+        assertEquals("ERR error", replies.get(5).getData());
+
+        RedisClient.RedisReply attributed = replies.get(6);
+        assertEquals("bar", attributed.getData());
+        assertEquals(3600, attributed.getAttributes().get("ttl").getData());
+
+        assertEquals(1, pushes.size());
+        RedisClient.RedisReply push = pushes.get(0);
+        assertEquals(RedisClient.RedisReplyType.PUSHES, push.getType());
+        assertEquals("invalidate", ((RedisClient.RedisReply) ((List<?>) push.getData()).get(0)).getData());
+        System.out.println(replies);
+    }
+
+    @Test
+    public void test16Hello() {
+        RedisClient client = new RedisClient();
+        try {
+            RedisClient.RedisReply hello = client.hello(3);
+            System.out.println(hello);
+            assertEquals(RedisClient.RedisReplyType.MAPS, hello.getType());
+            assertEquals(3, client.getProtocol());
+            client.exec(RedisClient.RedisCommand.DEL, "resp3-hash");
+            client.exec(RedisClient.RedisCommand.HSET, "resp3-hash", "a", "1", "b", "2");
+            RedisClient.RedisReply reply = client.execAndReturn(RedisClient.RedisCommand.HGETALL, "resp3-hash");
+            Map<?, ?> entries = (Map<?, ?>) reply.getData();
+            assertEquals("1", ((RedisClient.RedisReply) entries.get("a")).getData());
+            assertEquals("2", ((RedisClient.RedisReply) entries.get("b")).getData());
+
+            // 断线重连后保持RESP3
+            client.close();
+            reply = client.execAndReturn(RedisClient.RedisCommand.HGETALL, "resp3-hash");
+            assertEquals(RedisClient.RedisReplyType.MAPS, reply.getType());
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void test17PushListener() {
+        RedisClient client = new RedisClient();
+        List<RedisClient.RedisReply> pushes = new ArrayList<>();
+        try {
+            client.hello(3);
+            client.setPushListener(pushes::add);
+            client.exec(RedisClient.RedisCommand.CLIENT, "TRACKING", "on");
+            client.exec(RedisClient.RedisCommand.SET, "resp3-tracked", "1");
+            client.execAndReturn(RedisClient.RedisCommand.GET, "resp3-tracked");
+            client.exec(RedisClient.RedisCommand.SET, "resp3-tracked", "2");
+            assertEquals("2", client.execAndReturn(RedisClient.RedisCommand.GET, "resp3-tracked").getData());
+            System.out.println(pushes);
+            assertEquals(1, pushes.size());
+            assertEquals("invalidate", ((RedisClient.RedisReply) ((List<?>) pushes.get(0).getData()).get(0)).getData());
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void test18PushWithoutListener() throws Exception {
+        // 没有监听器时丢弃Push消息，不会被当作命令的响应
+        RedisClient.RedisInputStream redisInputStream = new RedisClient.RedisInputStream(
+                ">2\r\n$10\r\ninvalidate\r\n_\r\n+OK\r\n>2\r\n$10\r\ninvalidate\r\n_\r\n$3\r\nbar\r\n");
+        assertEquals("OK", redisInputStream.readReply().getData());
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        assertEquals(3, redisInputStream.readBulkTo(bos));
+        assertEquals("bar", new String(bos.toByteArray(), StandardCharsets.UTF_8));
+
+        RedisClient client = new RedisClient();
+        RedisClient other = new RedisClient();
+        try {
+            client.hello(3);
+            client.exec(RedisClient.RedisCommand.CLIENT, "TRACKING", "on");
+            client.exec(RedisClient.RedisCommand.SET, "resp3-untracked", "1");
+            client.execAndReturn(RedisClient.RedisCommand.GET, "resp3-untracked");
+            other.exec(RedisClient.RedisCommand.SET, "resp3-untracked", "2");
+            assertEquals("PONG", client.execAndReturn(RedisClient.RedisCommand.PING).getData());
+            assertEquals("2", client.execAndReturn(RedisClient.RedisCommand.GET, "resp3-untracked").getData());
+        } finally {
+            client.close();
+            other.close();
+        }
+    }
 }
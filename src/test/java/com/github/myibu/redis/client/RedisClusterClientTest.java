@@ -0,0 +1,262 @@
+package com.github.myibu.redis.client;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 使用进程内模拟的集群节点测试，每个节点只实现测试用到的命令
+ */
+public class RedisClusterClientTest {
+    // slot -> 负责该slot的节点
+    private final int[] owners = new int[RedisClusterClient.SLOT_COUNT];
+    // 正在迁移的slot -> 目标节点
+    private final Map<Integer, Integer> migrating = new ConcurrentHashMap<>();
+    private final List<FakeNode> nodes = new ArrayList<>();
+    private RedisClusterClient client;
+
+    @Before
+    public void setUp() throws IOException {
+        for (int i = 0; i < 3; i++) {
+            nodes.add(new FakeNode(i));
+        }
+        for (int slot = 0; slot < owners.length; slot++) {
+            owners[slot] = slot * 3 / owners.length;
+        }
+        client = new RedisClusterClient("127.0.0.1", nodes.get(0).port());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        client.close();
+        for (FakeNode node : nodes) {
+            node.close();
+        }
+    }
+
+    @Test
+    public void testSlot() {
+        assertEquals(12182, RedisClusterClient.slot("foo"));
+        assertEquals(12739, RedisClusterClient.slot("123456789"));
+        assertEquals(RedisClusterClient.slot("user1000"), RedisClusterClient.slot("{user1000}.following"));
+        assertEquals(RedisClusterClient.slot("{user1000}.followers"), RedisClusterClient.slot("{user1000}.following"));
+        // 空的{}不作为hash tag
+        assertEquals(RedisClusterClient.slot("foo{}{bar}"), slotOf("foo{}{bar}"));
+        assertEquals(RedisClusterClient.slot("{bar"), slotOf("{bar"));
+    }
+
+    @Test
+    public void testRouting() {
+        for (int i = 0; i < 100; i++) {
+            client.exec(RedisClient.RedisCommand.SET, "key:" + i, String.valueOf(i));
+        }
+        for (int i = 0; i < 100; i++) {
+            String key = "key:" + i;
+            assertEquals(String.valueOf(i), client.execAndReturn(RedisClient.RedisCommand.GET, key).getData());
+            assertTrue(owner(key).data.containsKey(key));
+        }
+        assertEquals(3, client.getNodes().size());
+    }
+
+    @Test
+    public void testMoved() {
+        client.exec(RedisClient.RedisCommand.SET, "foo", "bar");
+        int slot = RedisClusterClient.slot("foo");
+        FakeNode from = owner("foo");
+        FakeNode to = nodes.get((from.index + 1) % nodes.size());
+        to.data.put("foo", from.data.remove("foo"));
+        owners[slot] = to.index;
+
+        assertEquals("bar", client.execAndReturn(RedisClient.RedisCommand.GET, "foo").getData());
+        assertEquals(to.port(), client.getNode(slot).getPort());
+    }
+
+    @Test
+    public void testAsk() {
+        int slot = RedisClusterClient.slot("foo");
+        FakeNode from = owner("foo");
+        FakeNode to = nodes.get((from.index + 1) % nodes.size());
+        to.data.put("foo", "migrated");
+        migrating.put(slot, to.index);
+
+        assertEquals("migrated", client.execAndReturn(RedisClient.RedisCommand.GET, "foo").getData());
+        // ASK不会更新slot映射
+        assertEquals(from.port(), client.getNode(slot).getPort());
+    }
+
+    @Test
+    public void testMultiKey() {
+        client.exec(RedisClient.RedisCommand.MSET, "a", "1", "b", "2", "c", "3", "{a}.x", "4");
+        RedisClient.RedisReply reply = client.execAndReturn(RedisClient.RedisCommand.MGET, "a", "b", "missing", "c", "{a}.x");
+        System.out.println(reply);
+        List<?> values = (List<?>) reply.getData();
+        assertEquals("1", ((RedisClient.RedisReply) values.get(0)).getData());
+        assertEquals("2", ((RedisClient.RedisReply) values.get(1)).getData());
+        assertTrue(((RedisClient.RedisReply) values.get(2)).isNull());
+        assertEquals("3", ((RedisClient.RedisReply) values.get(3)).getData());
+        assertEquals("4", ((RedisClient.RedisReply) values.get(4)).getData());
+        assertEquals(4, client.execAndReturn(RedisClient.RedisCommand.DEL, "a", "b", "c", "{a}.x", "missing").getData());
+        assertNull(client.execAndReturn(RedisClient.RedisCommand.GET, "a").getBytes());
+    }
+
+    private FakeNode owner(String key) {
+        return nodes.get(owners[RedisClusterClient.slot(key)]);
+    }
+
+    private static int slotOf(String key) {
+        int crc = 0;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            crc ^= (b & 0xff) << 8;
+            for (int i = 0; i < 8; i++) {
+                crc = (crc & 0x8000) != 0 ? ((crc << 1) ^ 0x1021) & 0xffff : (crc << 1) & 0xffff;
+            }
+        }
+        return crc % RedisClusterClient.SLOT_COUNT;
+    }
+
+    private class FakeNode {
+        final int index;
+        final ServerSocket server;
+        final Map<String, String> data = new ConcurrentHashMap<>();
+
+        FakeNode(int index) throws IOException {
+            this.index = index;
+            this.server = new ServerSocket(0);
+            Thread thread = new Thread(this::accept);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        int port() {
+            return server.getLocalPort();
+        }
+
+        void close() throws IOException {
+            server.close();
+        }
+
+        private void accept() {
+            while (!server.isClosed()) {
+                try {
+                    Socket socket = server.accept();
+                    Thread thread = new Thread(() -> serve(socket));
+                    thread.setDaemon(true);
+                    thread.start();
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        }
+
+        private void serve(Socket socket) {
+            try {
+                RedisClient.RedisInputStream in = new RedisClient.RedisInputStream(socket.getInputStream());
+                OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+                boolean asking = false;
+                while (true) {
+                    List<RedisClient.RedisReply> replies = in.readReplies();
+                    for (RedisClient.RedisReply request : replies) {
+                        List<String> args = new ArrayList<>();
+                        for (Object arg : (List<?>) request.getData()) {
+                            args.add((String) ((RedisClient.RedisReply) arg).getData());
+                        }
+                        String command = args.get(0).toUpperCase();
+                        if ("ASKING".equals(command)) {
+                            asking = true;
+                            write(out, "+OK\r\n");
+                            continue;
+                        }
+                        write(out, handle(command, args.subList(1, args.size()), asking));
+                        asking = false;
+                    }
+                    out.flush();
+                }
+            } catch (Exception e) {
+                // 连接关闭
+            }
+        }
+
+        private String handle(String command, List<String> args, boolean asking) {
+            if ("CLUSTER".equals(command)) {
+                return clusterSlots();
+            }
+            if ("PING".equals(command)) {
+                return "+PONG\r\n";
+            }
+            int slot = RedisClusterClient.slot(args.get(0));
+            for (int i = 1; i < args.size(); i++) {
+                if (("MSET".equals(command) ? i % 2 == 0 : !"SET".equals(command)) && RedisClusterClient.slot(args.get(i)) != slot) {
+                    return "-CROSSSLOT Keys in request don't hash to the same slot\r\n";
+                }
+            }
+            Integer target = migrating.get(slot);
+            if (owners[slot] != index && !(asking && target != null && target == index)) {
+                return "-MOVED " + slot + " 127.0.0.1:" + nodes.get(owners[slot]).port() + "\r\n";
+            }
+            if (target != null && target != index && !data.containsKey(args.get(0))) {
+                return "-ASK " + slot + " 127.0.0.1:" + nodes.get(target).port() + "\r\n";
+            }
+            switch (command) {
+                case "SET":
+                    data.put(args.get(0), args.get(1));
+                    return "+OK\r\n";
+                case "MSET":
+                    for (int i = 0; i < args.size(); i += 2) {
+                        data.put(args.get(i), args.get(i + 1));
+                    }
+                    return "+OK\r\n";
+                case "GET":
+                    return bulk(data.get(args.get(0)));
+                case "MGET":
+                    StringBuilder sb = new StringBuilder("*" + args.size() + "\r\n");
+                    for (String key : args) {
+                        sb.append(bulk(data.get(key)));
+                    }
+                    return sb.toString();
+                case "DEL":
+                    int count = 0;
+                    for (String key : args) {
+                        count += data.remove(key) != null ? 1 : 0;
+                    }
+                    return ":" + count + "\r\n";
+                default:
+                    return "-ERR unknown command '" + command + "'\r\n";
+            }
+        }
+
+        private String clusterSlots() {
+            List<String> ranges = new ArrayList<>();
+            int start = 0;
+            for (int slot = 1; slot <= owners.length; slot++) {
+                if (slot == owners.length || owners[slot] != owners[start]) {
+                    ranges.add("*3\r\n:" + start + "\r\n:" + (slot - 1) + "\r\n*2\r\n$0\r\n\r\n:" + nodes.get(owners[start]).port() + "\r\n");
+                    start = slot;
+                }
+            }
+            return "*" + ranges.size() + "\r\n" + String.join("", ranges);
+        }
+
+        private String bulk(String value) {
+            return value == null ? "$-1\r\n" : "$" + value.getBytes(StandardCharsets.UTF_8).length + "\r\n" + value + "\r\n";
+        }
+
+        private void write(OutputStream out, String reply) throws IOException {
+            out.write(reply.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.github.myibu.redis.client;
+
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RedisCoalescingClientTest {
+
+    @Test
+    public void testConcurrentGet() throws Exception {
+        RedisClient writer = new RedisClient();
+        for (int i = 0; i < 200; i++) {
+            writer.exec(RedisClient.RedisCommand.SET, "coalesce:" + i, String.valueOf(i));
+        }
+        writer.exec(RedisClient.RedisCommand.DEL, "coalesce:hash");
+        writer.exec(RedisClient.RedisCommand.HSET, "coalesce:hash", "a", "1", "b", "2");
+        writer.close();
+
+        RedisCoalescingClient.Config config = new RedisCoalescingClient.Config();
+        config.setWindowMicros(200);
+        config.setMaxBatchSize(64);
+        RedisCoalescingClient client = new RedisCoalescingClient(new InetSocketAddress("127.0.0.1", 6379), new RedisClientPool.Config(), config);
+        ExecutorService executor = Executors.newFixedThreadPool(200);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                final int n = i;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int j = 0; j < 20; j++) {
+                        assertEquals(String.valueOf(n), client.get("coalesce:" + n).getData());
+                        assertEquals(n % 2 == 0 ? "1" : "2", client.hget("coalesce:hash", n % 2 == 0 ? "a" : "b").getData());
+                    }
+                    assertTrue(client.get("coalesce:missing").isNull());
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            RedisCoalescingClient.Stats stats = client.getStats();
+            System.out.println(stats);
+            assertEquals(200 * 41, stats.getRequestCount());
+            assertTrue(stats.getBatchCount() < stats.getRequestCount());
+        } finally {
+            executor.shutdown();
+            client.close();
+        }
+    }
+
+    @Test
+    public void testError() {
+        RedisClient writer = new RedisClient();
+        writer.exec(RedisClient.RedisCommand.SET, "coalesce:string", "1");
+        writer.close();
+        RedisCoalescingClient client = new RedisCoalescingClient();
+        try {
+            RedisClient.RedisReply reply = client.hget("coalesce:string", "a");
+            assertEquals(RedisClient.RedisReplyType.ERRORS, reply.getType());
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void testBatchedError() throws Exception {
+        RedisClient writer = new RedisClient();
+        writer.exec(RedisClient.RedisCommand.SET, "coalesce:string", "1");
+        writer.exec(RedisClient.RedisCommand.DEL, "coalesce:hash");
+        writer.exec(RedisClient.RedisCommand.HSET, "coalesce:hash", "a", "1");
+        writer.close();
+        // 两个调用方一定在同一个批次中
+        RedisCoalescingClient.Config config = new RedisCoalescingClient.Config();
+        config.setWindowMicros(10_000_000);
+        config.setMaxBatchSize(2);
+        RedisCoalescingClient client = new RedisCoalescingClient(new InetSocketAddress("127.0.0.1", 6379), new RedisClientPool.Config(), config);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            // HMGET的错误返回给所有调用方
+            Future<RedisClient.RedisReply> first = executor.submit(() -> client.hget("coalesce:string", "a"));
+            Future<RedisClient.RedisReply> second = executor.submit(() -> client.hget("coalesce:string", "b"));
+            assertEquals(RedisClient.RedisReplyType.ERRORS, first.get().getType());
+            assertEquals(RedisClient.RedisReplyType.ERRORS, second.get().getType());
+            // MGET对hash返回空值，而不是WRONGTYPE
+            first = executor.submit(() -> client.get("coalesce:hash"));
+            second = executor.submit(() -> client.get("coalesce:string"));
+            assertTrue(first.get().isNull());
+            assertEquals("1", second.get().getData());
+            assertEquals(2, client.getStats().getBatchCount());
+        } finally {
+            executor.shutdown();
+            client.close();
+        }
+    }
+}
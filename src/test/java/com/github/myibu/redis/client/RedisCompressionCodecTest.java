@@ -0,0 +1,180 @@
+package com.github.myibu.redis.client;
+
+import com.github.myibu.redis.client.RedisClient.RedisCommand;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RedisCompressionCodecTest {
+
+    private static String json(int size) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; sb.length() < size; i++) {
+            sb.append("{\"id\":").append(i).append(",\"name\":\"用户").append(i % 100)
+                    .append("\",\"email\":\"user").append(i).append("@example.com\",\"active\":").append(i % 3 == 0).append("},");
+        }
+        sb.setCharAt(sb.length() - 1, ']');
+        return sb.toString();
+    }
+
+    @Test
+    public void testCompress() {
+        RedisClient client = new RedisClient();
+        try {
+            RedisTypedClient<String> typed = new RedisTypedClient<>(client, new RedisCompressionCodec<>(RedisCodec.utf8(), new RedisCompressionCodec.Config()));
+            String value = json(40 * 1024);
+            typed.set("compression:json", value);
+            assertEquals(value, typed.get("compression:json"));
+            long stored = client.execAndReturn(RedisCommand.STRLEN, "compression:json").getLong();
+            System.out.println("40KB json stored as " + stored + " bytes");
+            assertTrue(stored * 4 < value.length());
+            // 小于阈值的值按原样写入
+            typed.set("compression:small", "bar");
+            assertEquals("bar", client.execAndReturn(RedisCommand.GET, "compression:small").getData());
+            assertEquals("bar", typed.get("compression:small"));
+            // 没有经过编解码器写入的文本数据可以直接读取
+            client.exec(RedisCommand.SET, "compression:plain", value);
+            assertEquals(value, typed.get("compression:plain"));
+            assertEquals(Arrays.asList(value, "bar"), typed.mget("compression:json", "compression:small"));
+            typed.hset("compression:hash", "doc", value);
+            assertEquals(value, typed.hget("compression:hash", "doc"));
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void testBytes() {
+        RedisClient client = new RedisClient();
+        try {
+            RedisCompressionCodec.Config config = new RedisCompressionCodec.Config();
+            config.setThresholdBytes(16);
+            RedisTypedClient<byte[]> typed = new RedisTypedClient<>(client, new RedisCompressionCodec<>(RedisCodec.bytes(), config));
+            // 无法压缩的值按原样写入
+            byte[] random = new byte[64 * 1024];
+            new Random(1).nextBytes(random);
+            random[0] = 1;
+            typed.set("compression:random", random);
+            assertArrayEquals(random, typed.get("compression:random"));
+            assertEquals(random.length, client.execAndReturn(RedisCommand.STRLEN, "compression:random").getLong());
+            // 与头部标记相同开头的值需要转义
+            byte[][] values = {{0, 'z'}, {0, 'z', 1, 0, 0, 0, 2, 'a', 'b'}, new byte[0], {0}};
+            for (byte[] value : values) {
+                typed.set("compression:magic", value);
+                assertArrayEquals(value, typed.get("compression:magic"));
+            }
+            // 头部中的长度损坏或过大时不会按该长度分配内存
+            byte[][] corrupted = {{0, 'z', 1, 0x7f, -1, -1, -1, 1, 2, 3}, {0, 'z', 1, 0x40, 0, 0, 0, 1, 2, 3}, {0, 'z', 0, 0, 0, 0, 100, 'a'}};
+            for (byte[] value : corrupted) {
+                client.exec(RedisCommand.SET, "compression:corrupted".getBytes(StandardCharsets.UTF_8), value);
+                try {
+                    typed.get("compression:corrupted");
+                    throw new AssertionError();
+                } catch (RedisClient.RedisException e) {
+                    System.out.println(e.getMessage());
+                }
+            }
+            for (int size = 16; size < 200000; size = size * 3 + 1) {
+                byte[] value = json(size).getBytes(StandardCharsets.UTF_8);
+                typed.set("compression:size", value);
+                assertArrayEquals(value, typed.get("compression:size"));
+            }
+            byte[] zeros = new byte[100000];
+            typed.set("compression:zeros", zeros);
+            assertArrayEquals(zeros, typed.get("compression:zeros"));
+            assertTrue(client.execAndReturn(RedisCommand.STRLEN, "compression:zeros").getLong() < 1000);
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void testCompressor() {
+        // 按字节取反的压缩算法，只用于验证自定义算法的id
+        RedisCompressionCodec.Compressor invert = new RedisCompressionCodec.Compressor() {
+            @Override
+            public int getId() {
+                return 7;
+            }
+
+            @Override
+            public void compress(byte[] b, int off, int len, OutputStream out) throws IOException {
+                for (int i = 0; i < len / 2; i++) {
+                    out.write(~b[off + i]);
+                }
+            }
+
+            @Override
+            public void decompress(byte[] b, int off, int len, byte[] dst, int dstOff, int dstLen) {
+                for (int i = 0; i < dstLen; i++) {
+                    dst[dstOff + i] = (byte) ~b[off + i % len];
+                }
+            }
+        };
+        RedisClient client = new RedisClient();
+        try {
+            RedisCompressionCodec.Config config = new RedisCompressionCodec.Config();
+            config.setThresholdBytes(4);
+            config.setCompressor(invert);
+            RedisTypedClient<String> typed = new RedisTypedClient<>(client, new RedisCompressionCodec<>(RedisCodec.utf8(), config));
+            String value = "abababababababababababababababababababab";
+            typed.set("compression:custom", value);
+            assertEquals(7, client.execAndReturn(RedisCommand.GETRANGE, "compression:custom", "2", "2").getBytes()[0]);
+            assertEquals(value, typed.get("compression:custom"));
+            try {
+                RedisTypedClient<String> deflate = new RedisTypedClient<>(client, new RedisCompressionCodec<>(RedisCodec.utf8(), new RedisCompressionCodec.Config()));
+                deflate.get("compression:custom");
+                throw new AssertionError();
+            } catch (RedisClient.RedisException e) {
+                System.out.println(e.getMessage());
+            }
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void testConcurrent() throws Exception {
+        // 线程数超过复用对象的上限时，多出的Deflater和Inflater用完后释放
+        RedisCompressionCodec<String> codec = new RedisCompressionCodec<>(RedisCodec.utf8(), new RedisCompressionCodec.Config());
+        ExecutorService executor = Executors.newFixedThreadPool(RedisCompressionCodec.POOL_SIZE * 2);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < RedisCompressionCodec.POOL_SIZE * 2; t++) {
+                int seed = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 100; i++) {
+                        String value = json(2048 + (seed * 100 + i) * 37);
+                        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+                        RedisClient.RedisOutputStream out = new RedisClient.RedisOutputStream(bos);
+                        codec.write(out, value);
+                        out.flush();
+                        RedisClient.RedisInputStream in = new RedisClient.RedisInputStream(new ByteArrayInputStream(bos.toByteArray()));
+                        assertEquals(value, codec.read(in.readReply()));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
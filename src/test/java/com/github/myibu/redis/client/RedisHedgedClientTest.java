@@ -0,0 +1,136 @@
+package com.github.myibu.redis.client;
+
+import com.github.myibu.redis.client.RedisClient.RedisCommand;
+import com.github.myibu.redis.client.RedisClient.RedisReply;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RedisHedgedClientTest {
+    private static final InetSocketAddress ADDRESS = new InetSocketAddress("127.0.0.1", 6379);
+
+    @Test
+    public void testHedge() throws Exception {
+        ServerSocket proxy = slowProxy(300);
+        RedisHedgedClient.Config config = new RedisHedgedClient.Config();
+        config.setInitialDelayMillis(20);
+        config.setBudgetPercent(100);
+        RedisHedgedClient client = new RedisHedgedClient(Arrays.asList(ADDRESS, (InetSocketAddress) proxy.getLocalSocketAddress()), config);
+        try {
+            RedisClient redisClient = new RedisClient();
+            redisClient.exec(RedisCommand.SET, "hedge:foo", "bar");
+            redisClient.close();
+            for (int i = 0; i < 10; i++) {
+                long start = System.nanoTime();
+                RedisReply reply = client.execAndReturn(RedisCommand.GET, "hedge:foo");
+                assertEquals("bar", reply.getData());
+                // 经过代理的请求被对冲请求替代
+                assertTrue(System.nanoTime() - start < 200_000_000L);
+            }
+            RedisHedgedClient.Stats stats = client.getStats();
+            System.out.println(stats);
+            assertEquals(10, stats.getReadCount());
+            assertTrue(stats.getHedgeCount() >= 5);
+            assertTrue(stats.getHedgeWinCount() >= 5);
+            // 被丢弃的响应不影响同一连接上的后续命令
+            Thread.sleep(350);
+            CompletableFuture<RedisReply> first = client.exec(RedisCommand.STRLEN, "hedge:foo");
+            CompletableFuture<RedisReply> second = client.exec(RedisCommand.STRLEN, "hedge:foo");
+            assertEquals(3, first.get().getData());
+            assertEquals(3, second.get().getData());
+        } finally {
+            client.close();
+            proxy.close();
+        }
+    }
+
+    @Test
+    public void testBudget() throws Exception {
+        ServerSocket proxy = slowProxy(100);
+        RedisHedgedClient.Config config = new RedisHedgedClient.Config();
+        config.setInitialDelayMillis(20);
+        config.setBudgetPercent(0);
+        config.setMaxBurst(1);
+        RedisHedgedClient client = new RedisHedgedClient(Arrays.asList((InetSocketAddress) proxy.getLocalSocketAddress(), ADDRESS), config);
+        try {
+            // 写命令只发送到第一个节点
+            assertEquals("OK", client.execAndReturn(RedisCommand.SET, "hedge:bar", "baz").getData());
+            for (int i = 0; i < 4; i++) {
+                assertEquals("baz", client.execAndReturn(RedisCommand.GET, "hedge:bar").getData());
+            }
+            RedisHedgedClient.Stats stats = client.getStats();
+            System.out.println(stats);
+            assertEquals(1, stats.getHedgeCount());
+            assertTrue(stats.getBudgetExhaustedCount() >= 1);
+        } finally {
+            client.close();
+            proxy.close();
+        }
+    }
+
+    @Test
+    public void testDelay() {
+        RedisHedgedClient.Config config = new RedisHedgedClient.Config();
+        config.setWindowSize(100);
+        config.setMinDelayMicros(0);
+        RedisHedgedClient client = new RedisHedgedClient(ADDRESS, config);
+        try {
+            assertEquals(10_000_000L, client.getDelayNanos());
+            for (int i = 0; i < 100; i++) {
+                client.execAndReturn(RedisCommand.GET, "hedge:foo");
+            }
+            // 本地服务端的P95远小于初始阈值
+            System.out.println(client.getDelayNanos());
+            assertTrue(client.getDelayNanos() < 10_000_000L);
+        } finally {
+            client.close();
+        }
+    }
+
+    /**
+     * 转发到本地redis的代理，客户端发送的数据延迟转发
+     */
+    private static ServerSocket slowProxy(long delayMillis) throws Exception {
+        ServerSocket server = new ServerSocket(0, 50, ADDRESS.getAddress());
+        Thread acceptor = new Thread(() -> {
+            try {
+                while (true) {
+                    Socket downstream = server.accept();
+                    Socket upstream = new Socket(ADDRESS.getAddress(), ADDRESS.getPort());
+                    pump(downstream.getInputStream(), upstream.getOutputStream(), delayMillis);
+                    pump(upstream.getInputStream(), downstream.getOutputStream(), 0);
+                }
+            } catch (Exception ignored) {
+            }
+        });
+        acceptor.setDaemon(true);
+        acceptor.start();
+        return server;
+    }
+
+    private static void pump(InputStream in, OutputStream out, long delayMillis) {
+        Thread thread = new Thread(() -> {
+            byte[] buf = new byte[8192];
+            try {
+                int n;
+                while ((n = in.read(buf)) > 0) {
+                    Thread.sleep(delayMillis);
+                    out.write(buf, 0, n);
+                    out.flush();
+                }
+            } catch (Exception ignored) {
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+    }
+}
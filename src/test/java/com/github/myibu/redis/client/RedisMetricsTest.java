@@ -0,0 +1,89 @@
+package com.github.myibu.redis.client;
+
+import org.junit.Test;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RedisMetricsTest {
+
+    @Test
+    public void testHistogram() {
+        RedisLatencyHistogram histogram = new RedisLatencyHistogram();
+        assertEquals(0, histogram.getValueAtPercentile(99));
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1000000, histogram.getMax());
+        long p50 = histogram.getValueAtPercentile(50);
+        long p99 = histogram.getValueAtPercentile(99);
+        System.out.println(histogram);
+        assertTrue(p50 >= 500000 && p50 <= 500000 * 33 / 32);
+        assertTrue(p99 >= 990000 && p99 <= 1000000);
+        for (long v : new long[]{0, 31, 32, 63, 64, 1000, Long.MAX_VALUE}) {
+            assertTrue(RedisLatencyHistogram.upperBoundOf(RedisLatencyHistogram.indexOf(v)) >= v);
+        }
+    }
+
+    @Test
+    public void testClient() throws Exception {
+        RedisMetrics metrics = new RedisMetrics();
+        RedisClient client = new RedisClient();
+        try {
+            client.setMetricsListener(metrics);
+            for (int i = 0; i < 100; i++) {
+                client.exec(RedisClient.RedisCommand.SET, "metrics:foo", "bar");
+                client.execAndReturn(RedisClient.RedisCommand.GET, "metrics:foo");
+            }
+            client.execAndReturn(RedisClient.RedisCommand.INCR, "metrics:foo");
+            assertEquals(100, metrics.getLatency(RedisClient.RedisCommand.GET).getCount());
+            assertEquals(100, metrics.getLatency(RedisClient.RedisCommand.SET).getCount());
+            assertEquals(201, metrics.getCommandCount());
+            assertEquals(1, metrics.getErrorCount());
+            assertEquals(100, metrics.getReplyCount(RedisClient.RedisReplyType.BULK_STRINGS));
+            assertNull(metrics.getLatency(RedisClient.RedisCommand.DEL));
+            RedisLatencyHistogram latency = metrics.getLatency(RedisClient.RedisCommand.GET);
+            RedisLatencyHistogram ioWait = metrics.getIoWait(RedisClient.RedisCommand.GET);
+            System.out.println(latency + " " + ioWait);
+            assertTrue(ioWait.getMean() <= latency.getMean());
+            assertTrue(metrics.getBytesWritten() > 100 * "*3\r\n$3\r\nSET\r\n".length());
+            assertTrue(metrics.getBytesRead() >= 100 * ("+OK\r\n".length() + "$3\r\nbar\r\n".length()));
+
+            // 断开后执行命令会重新连接
+            client.close();
+            client.execAndReturn(RedisClient.RedisCommand.PING);
+            assertEquals(1, metrics.getReconnectCount());
+
+            metrics.registerMBean("test");
+            ObjectName name = new ObjectName("com.github.myibu.redis:type=RedisMetrics,name=\"test\"");
+            assertEquals(202L, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "CommandCount"));
+            metrics.unregisterMBean();
+            assertTrue(!ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void testPool() {
+        RedisMetrics metrics = new RedisMetrics();
+        RedisClientPool.Config config = new RedisClientPool.Config();
+        config.setMetricsListener(metrics);
+        RedisClientPool pool = new RedisClientPool(new InetSocketAddress("127.0.0.1", 6379), config);
+        try {
+            for (int i = 0; i < 10; i++) {
+                pool.execute(c -> c.execAndReturn(RedisClient.RedisCommand.PING));
+            }
+            assertEquals(10, metrics.getPoolWait().getCount());
+            assertEquals(10, metrics.getLatency(RedisClient.RedisCommand.PING).getCount());
+        } finally {
+            pool.close();
+        }
+    }
+}
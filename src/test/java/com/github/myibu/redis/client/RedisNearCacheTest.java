@@ -0,0 +1,109 @@
+package com.github.myibu.redis.client;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class RedisNearCacheTest {
+
+    @Test
+    public void testPushInvalidation() {
+        RedisClient client = new RedisClient();
+        RedisClient writer = new RedisClient();
+        try {
+            writer.exec(RedisClient.RedisCommand.SET, "near:foo", "1");
+            writer.exec(RedisClient.RedisCommand.DEL, "near:hash");
+            writer.exec(RedisClient.RedisCommand.HSET, "near:hash", "a", "1", "b", "2");
+            RedisNearCache cache = client.enableNearCache(new RedisNearCache.Config());
+
+            RedisClient.RedisReply first = client.execAndReturn(RedisClient.RedisCommand.GET, "near:foo");
+            assertSame(first, client.execAndReturn(RedisClient.RedisCommand.GET, "near:foo"));
+            assertEquals("1", client.execAndReturn(RedisClient.RedisCommand.HGET, "near:hash", "a").getData());
+            assertEquals("1", client.execAndReturn(RedisClient.RedisCommand.HGET, "near:hash", "a").getData());
+            client.execAndReturn(RedisClient.RedisCommand.HGETALL, "near:hash");
+            client.execAndReturn(RedisClient.RedisCommand.HGETALL, "near:hash");
+            assertEquals(3, cache.getStats().getHitCount());
+
+            writer.exec(RedisClient.RedisCommand.SET, "near:foo", "2");
+            writer.exec(RedisClient.RedisCommand.HSET, "near:hash", "a", "3");
+            assertEquals("2", awaitValue(client, "near:foo", "2"));
+            assertEquals("3", client.execAndReturn(RedisClient.RedisCommand.HGET, "near:hash", "a").getData());
+
+            // 自己的写入也会使缓存失效
+            client.exec(RedisClient.RedisCommand.SET, "near:foo", "4");
+            assertEquals("4", client.execAndReturn(RedisClient.RedisCommand.GET, "near:foo").getData());
+            System.out.println(cache.getStats());
+            assertTrue(cache.getStats().getInvalidationCount() >= 3);
+        } finally {
+            client.close();
+            writer.close();
+        }
+    }
+
+    @Test
+    public void testRedirectInvalidation() {
+        RedisClient client = new RedisClient();
+        RedisClient writer = new RedisClient();
+        try {
+            writer.exec(RedisClient.RedisCommand.SET, "near:bar", "1");
+            RedisNearCache.Config config = new RedisNearCache.Config();
+            config.setRedirect(true);
+            RedisNearCache cache = client.enableNearCache(config);
+            assertEquals(2, client.getProtocol());
+
+            assertEquals("1", client.execAndReturn(RedisClient.RedisCommand.GET, "near:bar").getData());
+            assertEquals("1", client.execAndReturn(RedisClient.RedisCommand.GET, "near:bar").getData());
+            assertEquals(1, cache.getStats().getHitCount());
+
+            writer.exec(RedisClient.RedisCommand.SET, "near:bar", "2");
+            assertEquals("2", awaitValue(client, "near:bar", "2"));
+            System.out.println(cache.getStats());
+        } finally {
+            client.close();
+            writer.close();
+        }
+    }
+
+    @Test
+    public void testEviction() {
+        RedisClient client = new RedisClient();
+        try {
+            RedisNearCache.Config config = new RedisNearCache.Config();
+            config.setMaxEntries(10);
+            RedisNearCache cache = client.enableNearCache(config);
+            for (int i = 0; i < 20; i++) {
+                client.exec(RedisClient.RedisCommand.SET, "near:evict:" + i, String.valueOf(i));
+                client.execAndReturn(RedisClient.RedisCommand.GET, "near:evict:" + i);
+            }
+            assertEquals(10, cache.getStats().getSize());
+            assertEquals(10, cache.getStats().getEvictionCount());
+
+            cache.clear();
+            config.setMaxBytes(1024);
+            StringBuilder value = new StringBuilder();
+            for (int i = 0; i < 300; i++) {
+                value.append('x');
+            }
+            for (int i = 0; i < 10; i++) {
+                client.exec(RedisClient.RedisCommand.SET, "near:evict:" + i, value.toString());
+                client.execAndReturn(RedisClient.RedisCommand.GET, "near:evict:" + i);
+            }
+            System.out.println(cache.getStats());
+            assertTrue(cache.getStats().getBytes() <= 1024);
+        } finally {
+            client.close();
+        }
+    }
+
+    private static Object awaitValue(RedisClient client, String key, String expected) {
+        // 其他连接的失效通知是异步到达的
+        long deadline = System.currentTimeMillis() + 2000;
+        Object data;
+        do {
+            data = client.execAndReturn(RedisClient.RedisCommand.GET, key).getData();
+        } while (!expected.equals(data) && System.currentTimeMillis() < deadline);
+        return data;
+    }
+}
@@ -0,0 +1,56 @@
+package com.github.myibu.redis.client;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class RedisPipelineTest {
+    static RedisClient redisClient;
+
+    @BeforeClass
+    public static void init() {
+        redisClient = new RedisClient();
+    }
+
+    @AfterClass
+    public static void destroy() {
+        redisClient.close();
+    }
+
+    @Test
+    public void testResponses() {
+        RedisPipeline pipeline = redisClient.pipelined();
+        pipeline.exec(RedisClient.RedisCommand.SET, "pipeline:foo", "bar");
+        RedisPipeline.Response foo = pipeline.exec(RedisClient.RedisCommand.GET, "pipeline:foo");
+        RedisPipeline.Response error = pipeline.exec(RedisClient.RedisCommand.CLIENT);
+        RedisPipeline.Response pong = pipeline.exec(RedisClient.RedisCommand.PING);
+        pipeline.sync();
+        assertEquals("bar", foo.get().getData());
+        assertEquals(RedisClient.RedisReplyType.ERRORS, error.get().getType());
+        assertEquals("PONG", pong.get().getData());
+        System.out.println(foo.get());
+    }
+
+    @Test
+    public void testSyncAndReturnAll() {
+        RedisPipeline pipeline = redisClient.pipelined();
+        for (int i = 0; i < 10000; i++) {
+            pipeline.exec(RedisClient.RedisCommand.SET, "pipeline:" + i, String.valueOf(i));
+        }
+        for (int i = 0; i < 10000; i++) {
+            pipeline.exec(RedisClient.RedisCommand.GET, "pipeline:" + i);
+        }
+        List<RedisClient.RedisReply> replies = pipeline.syncAndReturnAll();
+        assertEquals(20000, replies.size());
+        for (int i = 0; i < 10000; i++) {
+            assertEquals("OK", replies.get(i).getData());
+            assertEquals(String.valueOf(i), replies.get(10000 + i).getData());
+        }
+        // 管道结束后客户端可以继续使用
+        assertEquals("PONG", redisClient.execAndReturn(RedisClient.RedisCommand.PING).getData());
+    }
+}
@@ -0,0 +1,80 @@
+package com.github.myibu.redis.client;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class RedisPooledClientTest {
+
+    @Test
+    public void testExec() {
+        RedisPooledClient client = new RedisPooledClient();
+        try {
+            client.exec(RedisClient.RedisCommand.SET, "pooled:foo", "bar");
+            RedisClient.RedisReply reply = client.execAndReturn(RedisClient.RedisCommand.GET, "pooled:foo");
+            System.out.println(reply);
+            assertEquals("bar", reply.getData());
+        } finally {
+            client.close();
+        }
+    }
+
+    /**
+     * 在Java 21以上运行，使用jdk.tracePinnedThreads检查执行命令时虚拟线程是否占用载体线程
+     */
+    @Test
+    public void testVirtualThreads() throws Exception {
+        ThreadFactory factory;
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            factory = (ThreadFactory) Class.forName("java.lang.Thread$Builder").getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            Assume.assumeNoException("Virtual threads are not supported", e);
+            return;
+        }
+        // 需要在创建第一个虚拟线程之前设置
+        System.setProperty("jdk.tracePinnedThreads", "short");
+        RedisClientPool.Config config = new RedisClientPool.Config();
+        config.setMaxTotal(16);
+        config.setMaxWaitMillis(60000);
+        RedisPooledClient client = new RedisPooledClient(new InetSocketAddress("127.0.0.1", 6379), config);
+        PrintStream out = System.out;
+        ByteArrayOutputStream trace = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(trace, true));
+        AtomicInteger succeeded = new AtomicInteger();
+        try {
+            List<Thread> threads = new ArrayList<>();
+            for (int i = 0; i < 10000; i++) {
+                final String key = "pooled:" + i;
+                final String value = String.valueOf(i);
+                Thread thread = factory.newThread(() -> {
+                    client.exec(RedisClient.RedisCommand.SET, key, value);
+                    if (value.equals(client.execAndReturn(RedisClient.RedisCommand.GET, key).getData())) {
+                        succeeded.incrementAndGet();
+                    }
+                });
+                thread.start();
+                threads.add(thread);
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        } finally {
+            System.setOut(out);
+            client.close();
+        }
+        System.out.println(client.getPool().getStats());
+        assertEquals(10000, succeeded.get());
+        assertFalse(trace.toString(), trace.toString().contains("<== monitors"));
+    }
+}
@@ -0,0 +1,196 @@
+package com.github.myibu.redis.client;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 使用进程内模拟的主从节点测试，GET返回节点名，主节点的ROLE返回各个从节点的复制偏移量
+ */
+public class RedisReplicatedClientTest {
+    private FakeNode primary;
+    private FakeNode fast;
+    private FakeNode slow;
+    private final List<RedisReplicatedClient> clients = new ArrayList<>();
+
+    @Before
+    public void setUp() throws IOException {
+        primary = new FakeNode("primary", 0);
+        fast = new FakeNode("fast", 0);
+        slow = new FakeNode("slow", 5);
+        primary.replicas = Arrays.asList(fast, slow);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        for (RedisReplicatedClient client : clients) {
+            client.close();
+        }
+        primary.close();
+        fast.close();
+        slow.close();
+    }
+
+    @Test
+    public void testReadWriteSplitting() {
+        RedisReplicatedClient client = client(new RedisReplicatedClient.Config());
+        for (int i = 0; i < 100; i++) {
+            client.exec(RedisClient.RedisCommand.SET, "foo", "bar");
+            assertTrue(!"primary".equals(client.execAndReturn(RedisClient.RedisCommand.GET, "foo").getData()));
+        }
+        assertEquals(100, primary.writes.get());
+        assertEquals(0, primary.reads.get());
+        System.out.println(client.getReplicas());
+        // 延迟低的从节点承担大部分读取
+        assertTrue(fast.reads.get() > slow.reads.get());
+    }
+
+    @Test
+    public void testMaxLag() {
+        RedisReplicatedClient.Config config = new RedisReplicatedClient.Config();
+        config.setMaxLagBytes(100);
+        fast.offset = 500;
+        slow.offset = 950;
+        RedisReplicatedClient client = client(config);
+        assertEquals(500, client.getReplicas().get(0).getLag());
+        for (int i = 0; i < 10; i++) {
+            assertEquals("slow", client.execAndReturn(RedisClient.RedisCommand.GET, "foo").getData());
+        }
+        slow.offset = 0;
+        client.refresh();
+        assertEquals("primary", client.execAndReturn(RedisClient.RedisCommand.GET, "foo").getData());
+    }
+
+    @Test
+    public void testReplicaDown() throws IOException {
+        RedisReplicatedClient client = client(new RedisReplicatedClient.Config());
+        fast.close();
+        slow.close();
+        assertEquals("primary", client.execAndReturn(RedisClient.RedisCommand.GET, "foo").getData());
+        assertEquals("primary", client.execAndReturn(RedisClient.RedisCommand.GET, "foo").getData());
+    }
+
+    @Test
+    public void testDiscover() {
+        RedisReplicatedClient.Config config = new RedisReplicatedClient.Config();
+        config.setRefreshIntervalMillis(0);
+        RedisReplicatedClient client = new RedisReplicatedClient(new InetSocketAddress("127.0.0.1", slow.port()), config);
+        clients.add(client);
+        assertEquals(primary.port(), client.getPrimary().getAddress().getPort());
+        assertEquals(2, client.getReplicas().size());
+    }
+
+    private RedisReplicatedClient client(RedisReplicatedClient.Config config) {
+        RedisReplicatedClient client = new RedisReplicatedClient(new InetSocketAddress("127.0.0.1", primary.port()),
+                Arrays.asList(new InetSocketAddress("127.0.0.1", fast.port()), new InetSocketAddress("127.0.0.1", slow.port())), config);
+        clients.add(client);
+        return client;
+    }
+
+    private class FakeNode {
+        final String name;
+        final long delayMillis;
+        final ServerSocket server;
+        final AtomicInteger reads = new AtomicInteger();
+        final AtomicInteger writes = new AtomicInteger();
+        final List<Socket> sockets = new ArrayList<>();
+        volatile List<FakeNode> replicas;
+        volatile long offset = 1000;
+
+        FakeNode(String name, long delayMillis) throws IOException {
+            this.name = name;
+            this.delayMillis = delayMillis;
+            this.server = new ServerSocket(0);
+            Thread thread = new Thread(this::accept);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        int port() {
+            return server.getLocalPort();
+        }
+
+        void close() throws IOException {
+            server.close();
+            synchronized (sockets) {
+                for (Socket socket : sockets) {
+                    socket.close();
+                }
+            }
+        }
+
+        private void accept() {
+            while (!server.isClosed()) {
+                try {
+                    Socket socket = server.accept();
+                    synchronized (sockets) {
+                        sockets.add(socket);
+                    }
+                    Thread thread = new Thread(() -> serve(socket));
+                    thread.setDaemon(true);
+                    thread.start();
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        }
+
+        private void serve(Socket socket) {
+            try {
+                RedisClient.RedisInputStream in = new RedisClient.RedisInputStream(socket.getInputStream());
+                OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+                while (true) {
+                    RedisClient.RedisReply request = in.readReply();
+                    String command = (String) ((RedisClient.RedisReply) ((List<?>) request.getData()).get(0)).getData();
+                    out.write(handle(command.toUpperCase()).getBytes(StandardCharsets.UTF_8));
+                    out.flush();
+                }
+            } catch (Exception e) {
+                // 连接关闭
+            }
+        }
+
+        private String handle(String command) throws InterruptedException {
+            switch (command) {
+                case "PING":
+                    return "+PONG\r\n";
+                case "SET":
+                    writes.incrementAndGet();
+                    return "+OK\r\n";
+                case "GET":
+                    reads.incrementAndGet();
+                    Thread.sleep(delayMillis);
+                    return "$" + name.length() + "\r\n" + name + "\r\n";
+                case "ROLE":
+                    if (replicas == null) {
+                        return "*5\r\n$5\r\nslave\r\n$9\r\n127.0.0.1\r\n:" + primary.port() + "\r\n$9\r\nconnected\r\n:" + offset + "\r\n";
+                    }
+                    StringBuilder sb = new StringBuilder("*3\r\n$6\r\nmaster\r\n:1000\r\n*" + replicas.size() + "\r\n");
+                    for (FakeNode replica : replicas) {
+                        String port = String.valueOf(replica.port());
+                        String offset = String.valueOf(replica.offset);
+                        sb.append("*3\r\n$9\r\n127.0.0.1\r\n$").append(port.length()).append("\r\n").append(port)
+                                .append("\r\n$").append(offset.length()).append("\r\n").append(offset).append("\r\n");
+                    }
+                    return sb.toString();
+                default:
+                    return "-ERR unknown command '" + command + "'\r\n";
+            }
+        }
+    }
+}
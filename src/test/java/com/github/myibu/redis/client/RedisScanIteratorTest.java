@@ -0,0 +1,102 @@
+package com.github.myibu.redis.client;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RedisScanIteratorTest {
+
+    @Test
+    public void testScan() {
+        RedisClient client = new RedisClient();
+        try {
+            RedisPipeline pipeline = client.pipelined();
+            for (int i = 0; i < 1000; i++) {
+                pipeline.exec(RedisClient.RedisCommand.SET, "scan:key:" + i, String.valueOf(i));
+            }
+            pipeline.sync();
+            RedisScanIterator.Params params = new RedisScanIterator.Params();
+            params.setMatch("scan:key:*");
+            params.setCount(100);
+            params.setType("string");
+            Set<String> keys = new HashSet<>();
+            try (RedisScanIterator<RedisClient.RedisReply> iterator = client.scan(params)) {
+                iterator.forEachRemaining(reply -> keys.add((String) reply.getData()));
+            }
+            assertEquals(1000, keys.size());
+            assertTrue(keys.contains("scan:key:999"));
+
+            params.setType("hash");
+            try (RedisScanIterator<RedisClient.RedisReply> iterator = client.scan(params)) {
+                assertTrue(!iterator.hasNext());
+            }
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void testClose() {
+        RedisClient client = new RedisClient();
+        try {
+            RedisPipeline pipeline = client.pipelined();
+            for (int i = 0; i < 100; i++) {
+                pipeline.exec(RedisClient.RedisCommand.SET, "scan:close:" + i, String.valueOf(i));
+            }
+            pipeline.sync();
+            RedisScanIterator.Params params = new RedisScanIterator.Params();
+            params.setMatch("scan:close:*");
+            params.setCount(10);
+            // 只取前几个元素，关闭时读取已发送的下一页请求
+            try (Stream<RedisClient.RedisReply> stream = client.scan(params).stream()) {
+                assertEquals(5, stream.limit(5).count());
+            }
+            assertEquals("PONG", client.execAndReturn(RedisClient.RedisCommand.PING).getData());
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void testHscanAndZscan() {
+        RedisClient client = new RedisClient();
+        try {
+            client.exec(RedisClient.RedisCommand.DEL, "scan:hash", "scan:zset", "scan:set");
+            RedisPipeline pipeline = client.pipelined();
+            for (int i = 0; i < 300; i++) {
+                pipeline.exec(RedisClient.RedisCommand.HSET, "scan:hash", "f" + i, "v" + i);
+                pipeline.exec(RedisClient.RedisCommand.ZADD, "scan:zset", String.valueOf(i), "m" + i);
+                pipeline.exec(RedisClient.RedisCommand.SADD, "scan:set", "s" + i);
+            }
+            pipeline.sync();
+            RedisScanIterator.Params params = new RedisScanIterator.Params();
+            params.setCount(50);
+            Map<String, String> hash;
+            try (Stream<Map.Entry<RedisClient.RedisReply, RedisClient.RedisReply>> stream = client.hscan("scan:hash", params).stream()) {
+                hash = stream.collect(Collectors.toMap(e -> (String) e.getKey().getData(), e -> (String) e.getValue().getData()));
+            }
+            assertEquals(300, hash.size());
+            assertEquals("v42", hash.get("f42"));
+
+            Map<String, String> zset;
+            try (Stream<Map.Entry<RedisClient.RedisReply, RedisClient.RedisReply>> stream = client.zscan("scan:zset", params).stream()) {
+                zset = stream.collect(Collectors.toMap(e -> (String) e.getKey().getData(), e -> (String) e.getValue().getData()));
+            }
+            assertEquals(300, zset.size());
+            assertEquals("42", zset.get("m42"));
+
+            try (Stream<RedisClient.RedisReply> stream = client.sscan("scan:set", params).stream()) {
+                assertEquals(300, stream.count());
+            }
+        } finally {
+            client.close();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.github.myibu.redis.client;
+
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class RedisScriptTest {
+
+    @Test
+    public void testEval() {
+        RedisClient client = new RedisClient();
+        try {
+            RedisScript script = new RedisScript("return redis.call('DECRBY', KEYS[1], ARGV[1])");
+            client.exec(RedisClient.RedisCommand.SET, "script:stock", "10");
+            client.exec(RedisClient.RedisCommand.SCRIPT, "FLUSH");
+            client.exec(RedisClient.RedisCommand.CONFIG, "RESETSTAT");
+            // 第一次EVALSHA返回NOSCRIPT，使用EVAL加载
+            assertEquals(8, client.eval(script, new String[]{"script:stock"}, "2").getData());
+            for (int i = 0; i < 5; i++) {
+                client.eval(script, new String[]{"script:stock"}, "1");
+            }
+            assertEquals("3", client.execAndReturn(RedisClient.RedisCommand.GET, "script:stock").getData());
+            String stats = (String) client.execAndReturn(RedisClient.RedisCommand.INFO, "commandstats").getData();
+            System.out.println(stats);
+            assertEquals(1, calls(stats, "eval"));
+            assertEquals(6, calls(stats, "evalsha"));
+            assertEquals(script.getSha1(), client.execAndReturn(RedisClient.RedisCommand.SCRIPT, "LOAD", script.getScript()).getData());
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void testPreload() {
+        RedisScriptRegistry registry = new RedisScriptRegistry();
+        RedisScript get = registry.register("get", "return redis.call('GET', KEYS[1])");
+        registry.register("set", "return redis.call('SET', KEYS[1], ARGV[1])");
+        RedisClient admin = new RedisClient();
+        admin.exec(RedisClient.RedisCommand.SCRIPT, "FLUSH");
+        admin.close();
+
+        RedisClientPool.Config config = new RedisClientPool.Config();
+        config.setInitializer(registry::preload);
+        RedisPooledClient client = new RedisPooledClient(new InetSocketAddress("127.0.0.1", 6379), config);
+        try {
+            client.eval(registry.get("set"), new String[]{"script:foo"}, "bar");
+            List<?> exists = (List<?>) client.execAndReturn(RedisClient.RedisCommand.SCRIPT, "EXISTS", get.getSha1()).getData();
+            assertEquals(1, ((RedisClient.RedisReply) exists.get(0)).getData());
+            assertEquals("bar", client.eval(get, new String[]{"script:foo"}).getData());
+        } finally {
+            client.close();
+        }
+    }
+
+    private static int calls(String stats, String command) {
+        for (String line : stats.split("\r\n")) {
+            if (line.startsWith("cmdstat_" + command + ":calls=")) {
+                String value = line.substring(("cmdstat_" + command + ":calls=").length());
+                return Integer.parseInt(value.substring(0, value.indexOf(',')));
+            }
+        }
+        return 0;
+    }
+}
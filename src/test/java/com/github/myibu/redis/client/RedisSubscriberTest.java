@@ -0,0 +1,169 @@
+package com.github.myibu.redis.client;
+
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.util.Collections;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RedisSubscriberTest {
+
+    @Test
+    public void testSubscribe() throws Exception {
+        // 多线程的executor也按接收顺序分发
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        RedisSubscriber subscriber = new RedisSubscriber(new InetSocketAddress("127.0.0.1", 6379), executor);
+        RedisClient publisher = new RedisClient();
+        try {
+            BlockingQueue<RedisSubscriber.Message> messages = new LinkedBlockingQueue<>();
+            CountDownLatch subscribed = new CountDownLatch(2);
+            CountDownLatch unsubscribed = new CountDownLatch(1);
+            RedisSubscriber.Listener listener = new RedisSubscriber.Listener() {
+                @Override
+                public void onMessage(RedisSubscriber.Message message) {
+                    messages.add(message);
+                }
+
+                @Override
+                public void onSubscribe(String name, long count) {
+                    subscribed.countDown();
+                }
+
+                @Override
+                public void onUnsubscribe(String name, long count) {
+                    unsubscribed.countDown();
+                }
+            };
+            subscriber.subscribe(listener, "sub:foo");
+            subscriber.psubscribe(listener, "sub:news.*");
+            assertTrue(subscribed.await(1, TimeUnit.SECONDS));
+
+            for (int i = 0; i < 10000; i++) {
+                publisher.exec(RedisClient.RedisCommand.PUBLISH, "sub:foo", "Hi" + i);
+            }
+            publisher.exec(RedisClient.RedisCommand.PUBLISH, "sub:news.tech", "pattern");
+            for (int i = 0; i < 10000; i++) {
+                RedisSubscriber.Message message = messages.poll(1, TimeUnit.SECONDS);
+                assertEquals("sub:foo", message.getChannel());
+                assertEquals("Hi" + i, message.getData());
+            }
+            RedisSubscriber.Message message = messages.poll(1, TimeUnit.SECONDS);
+            System.out.println(message);
+            assertEquals("sub:news.*", message.getPattern());
+            assertEquals("sub:news.tech", message.getChannel());
+
+            subscriber.unsubscribe("sub:foo");
+            assertTrue(unsubscribed.await(1, TimeUnit.SECONDS));
+            assertEquals(0, publisher.execAndReturn(RedisClient.RedisCommand.PUBLISH, "sub:foo", "gone").getData());
+        } finally {
+            publisher.close();
+            subscriber.close();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testResubscribe() throws Exception {
+        RedisSubscriber subscriber = new RedisSubscriber();
+        RedisClient publisher = new RedisClient();
+        try {
+            BlockingQueue<String> events = new LinkedBlockingQueue<>();
+            RedisSubscriber.Listener first = listener("first", events);
+            RedisSubscriber.Listener second = listener("second", events);
+            subscriber.subscribe(first, "sub:bar");
+            // 确认之前重新订阅，取消订阅的确认只移除之前的监听器
+            subscriber.unsubscribe("sub:bar");
+            subscriber.subscribe(second, "sub:bar");
+            awaitEvent(events, "first:unsubscribe");
+            awaitEvent(events, "second:subscribe");
+            assertEquals(Collections.singleton("sub:bar"), subscriber.getChannels());
+            publisher.exec(RedisClient.RedisCommand.PUBLISH, "sub:bar", "hello");
+            assertEquals("second:hello", events.poll(1, TimeUnit.SECONDS));
+            assertNull(events.poll(100, TimeUnit.MILLISECONDS));
+        } finally {
+            publisher.close();
+            subscriber.close();
+        }
+    }
+
+    @Test
+    public void testListenerException() throws Exception {
+        // 默认在读取线程中执行监听器，监听器的异常不能中断读取
+        RedisSubscriber subscriber = new RedisSubscriber();
+        RedisClient publisher = new RedisClient();
+        try {
+            BlockingQueue<String> events = new LinkedBlockingQueue<>();
+            RedisSubscriber.Listener failing = new RedisSubscriber.Listener() {
+                @Override
+                public void onMessage(RedisSubscriber.Message message) {
+                    if ("boom".equals(message.getData())) {
+                        throw new IllegalStateException("boom");
+                    }
+                    events.add("failing:" + message.getData());
+                }
+
+                @Override
+                public void onSubscribe(String channel, long count) {
+                    events.add("failing:subscribe");
+                }
+
+                @Override
+                public void onError(Exception e) {
+                    events.add("failing:error:" + e.getMessage());
+                    throw new IllegalStateException("again");
+                }
+            };
+            subscriber.subscribe(listener("other", events), "sub:error");
+            awaitEvent(events, "other:subscribe");
+            subscriber.subscribe(failing, "sub:error");
+            awaitEvent(events, "failing:subscribe");
+            publisher.exec(RedisClient.RedisCommand.PUBLISH, "sub:error", "boom");
+            publisher.exec(RedisClient.RedisCommand.PUBLISH, "sub:error", "after");
+            assertEquals("other:boom", events.poll(1, TimeUnit.SECONDS));
+            assertEquals("failing:error:boom", events.poll(1, TimeUnit.SECONDS));
+            assertEquals("other:after", events.poll(1, TimeUnit.SECONDS));
+            assertEquals("failing:after", events.poll(1, TimeUnit.SECONDS));
+            assertTrue(!subscriber.isClosed());
+        } finally {
+            publisher.close();
+            subscriber.close();
+        }
+    }
+
+    private static RedisSubscriber.Listener listener(String name, BlockingQueue<String> events) {
+        return new RedisSubscriber.Listener() {
+            @Override
+            public void onMessage(RedisSubscriber.Message message) {
+                events.add(name + ":" + message.getData());
+            }
+
+            @Override
+            public void onSubscribe(String channel, long count) {
+                events.add(name + ":subscribe");
+            }
+
+            @Override
+            public void onUnsubscribe(String channel, long count) {
+                events.add(name + ":unsubscribe");
+            }
+        };
+    }
+
+    private static void awaitEvent(BlockingQueue<String> events, String expected) throws InterruptedException {
+        String event;
+        do {
+            event = events.poll(1, TimeUnit.SECONDS);
+            assertNotNull(expected, event);
+        } while (!expected.equals(event));
+    }
+}
@@ -0,0 +1,139 @@
+package com.github.myibu.redis.client;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RedisTransactionTest {
+
+    @Test
+    public void testCommit() {
+        RedisClient client = new RedisClient();
+        try {
+            client.exec(RedisClient.RedisCommand.SET, "tx:stock", "10");
+            RedisTransaction transaction = client.multi();
+            transaction.exec(RedisClient.RedisCommand.DECRBY, "tx:stock", "3");
+            RedisPipeline.Response stock = transaction.exec(RedisClient.RedisCommand.GET, "tx:stock");
+            RedisPipeline.Response error = transaction.exec(RedisClient.RedisCommand.LPUSH, "tx:stock", "x");
+            assertEquals(3, transaction.size());
+            List<RedisClient.RedisReply> replies = transaction.commit();
+            System.out.println(replies);
+            assertEquals(3, replies.size());
+            assertEquals(7, replies.get(0).getData());
+            assertEquals("7", stock.get().getData());
+            assertEquals(RedisClient.RedisReplyType.ERRORS, error.get().getType());
+            // 事务之后客户端可以正常使用
+            assertEquals("7", client.execAndReturn(RedisClient.RedisCommand.GET, "tx:stock").getData());
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void testExecAbort() {
+        RedisClient client = new RedisClient();
+        try {
+            RedisTransaction transaction = client.multi();
+            transaction.exec(RedisClient.RedisCommand.SET, "tx:abort", "1");
+            transaction.exec(RedisClient.RedisCommand.GET);
+            try {
+                transaction.commit();
+                fail();
+            } catch (RedisClient.RedisException e) {
+                System.out.println(e.getMessage());
+                assertTrue(e.getMessage().contains("EXECABORT"));
+            }
+            assertEquals("PONG", client.execAndReturn(RedisClient.RedisCommand.PING).getData());
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void testDiscard() {
+        RedisClient client = new RedisClient();
+        try {
+            client.exec(RedisClient.RedisCommand.DEL, "tx:discard");
+            RedisTransaction transaction = client.multi();
+            transaction.exec(RedisClient.RedisCommand.SET, "tx:discard", "1");
+            transaction.discard();
+            assertTrue(client.execAndReturn(RedisClient.RedisCommand.GET, "tx:discard").isNull());
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void testDiscardLarge() {
+        RedisClient client = new RedisClient();
+        try {
+            client.exec(RedisClient.RedisCommand.DEL, "tx:discard:large");
+            char[] chars = new char[10 * 1024];
+            Arrays.fill(chars, 'x');
+            // 超过输出缓冲区的命令在discard之前已经发送
+            RedisTransaction transaction = client.multi();
+            transaction.exec(RedisClient.RedisCommand.SET, "tx:discard:large", new String(chars));
+            transaction.exec(RedisClient.RedisCommand.INCR, "tx:discard:counter");
+            transaction.discard();
+            assertTrue(client.execAndReturn(RedisClient.RedisCommand.GET, "tx:discard:large").isNull());
+            assertEquals("PONG", client.execAndReturn(RedisClient.RedisCommand.PING).getData());
+            transaction = client.multi();
+            RedisPipeline.Response response = transaction.exec(RedisClient.RedisCommand.SET, "tx:discard:large", "1");
+            transaction.commit();
+            assertEquals("OK", response.get().getData());
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void testWatchAndRetry() throws Exception {
+        RedisClient init = new RedisClient();
+        init.exec(RedisClient.RedisCommand.SET, "tx:counter", "0");
+        init.close();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                futures.add(executor.submit(() -> {
+                    RedisClient client = new RedisClient();
+                    try {
+                        for (int j = 0; j < 50; j++) {
+                            client.watchAndRetry(100, 1, c -> {
+                                int value = Integer.parseInt((String) c.execAndReturn(RedisClient.RedisCommand.GET, "tx:counter").getData());
+                                RedisTransaction transaction = c.multi();
+                                transaction.exec(RedisClient.RedisCommand.SET, "tx:counter", String.valueOf(value + 1));
+                                return transaction;
+                            }, "tx:counter");
+                        }
+                    } finally {
+                        client.close();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        RedisClient client = new RedisClient();
+        try {
+            assertEquals("200", client.execAndReturn(RedisClient.RedisCommand.GET, "tx:counter").getData());
+            assertNull(client.watchAndRetry(c -> null, "tx:counter"));
+        } finally {
+            client.close();
+        }
+    }
+}
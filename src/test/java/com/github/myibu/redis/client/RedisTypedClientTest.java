@@ -0,0 +1,158 @@
+package com.github.myibu.redis.client;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RedisTypedClientTest {
+
+    @Test
+    public void testStringsAndCounters() {
+        RedisClient client = new RedisClient();
+        try {
+            RedisTypedClient<String> typed = new RedisTypedClient<>(client, RedisCodec.utf8());
+            typed.del("typed:str", "typed:counter", "typed:float");
+            String value = "中文🙂abc\uD800x";
+            typed.set("typed:str", value);
+            assertEquals(new String(value.getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8), typed.get("typed:str"));
+            assertNull(typed.get("typed:none"));
+            // 超过一次编码的字符数，代理对跨越分块的边界
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < 1023; i++) {
+                sb.append('a');
+            }
+            for (int i = 0; i < 1000; i++) {
+                sb.append("🙂中é");
+            }
+            String large = sb.append('\uD800').toString();
+            typed.set("typed:large", large);
+            assertArrayEquals(large.getBytes(StandardCharsets.UTF_8), client.execAndReturn(RedisClient.RedisCommand.GET, "typed:large").getBytes());
+            assertFalse(typed.setnx("typed:str", "x"));
+            assertEquals(Arrays.asList(typed.get("typed:str"), null), typed.mget("typed:str", "typed:none"));
+
+            // 超出int范围的计数器
+            assertEquals(1L << 40, typed.incrBy("typed:counter", 1L << 40));
+            assertEquals((1L << 40) + 1, typed.incr("typed:counter"));
+            assertEquals(-5, typed.decrBy("typed:counter", (1L << 40) + 6));
+            assertEquals(-5L, client.execAndReturn(RedisClient.RedisCommand.GET, "typed:counter").getLong());
+            client.exec(RedisClient.RedisCommand.SET, "typed:counter", String.valueOf(Long.MAX_VALUE - 1));
+            assertEquals(Long.MAX_VALUE, client.execAndReturn(RedisClient.RedisCommand.INCR, "typed:counter").getData());
+            assertEquals(2.5, typed.incrByFloat("typed:float", 2.5), 0);
+            assertEquals(2.0, typed.incrByFloat("typed:float", -0.5), 0);
+
+            assertTrue(typed.expire("typed:str", 100));
+            assertTrue(typed.ttl("typed:str") > 0);
+            assertEquals(2, typed.exists("typed:str", "typed:float", "typed:none"));
+            try {
+                typed.incr("typed:str");
+                fail();
+            } catch (RedisClient.RedisException e) {
+                System.out.println(e.getMessage());
+            }
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void testCollections() {
+        RedisClient client = new RedisClient();
+        try {
+            RedisTypedClient<byte[]> typed = new RedisTypedClient<>(client, RedisCodec.bytes());
+            typed.del("typed:hash", "typed:list", "typed:set", "typed:zset");
+            byte[] a = {0, 1, 2};
+            byte[] b = {(byte) 0xff};
+
+            assertTrue(typed.hset("typed:hash", "a", a));
+            assertFalse(typed.hset("typed:hash", "a", a));
+            typed.hset("typed:hash", "b", b);
+            assertArrayEquals(a, typed.hget("typed:hash", "a"));
+            Map<String, byte[]> all = typed.hgetAll("typed:hash");
+            assertEquals(2, all.size());
+            assertArrayEquals(b, all.get("b"));
+            assertEquals(10, typed.hincrBy("typed:hash", "n", 10));
+            assertTrue(typed.hexists("typed:hash", "n"));
+            assertEquals(3, typed.hlen("typed:hash"));
+            assertEquals(1, typed.hdel("typed:hash", "n", "none"));
+
+            assertEquals(2, typed.rpush("typed:list", a, b));
+            assertEquals(3, typed.lpush("typed:list", b));
+            assertEquals(3, typed.lrange("typed:list", 0, -1).size());
+            assertArrayEquals(a, typed.lindex("typed:list", 1));
+            assertArrayEquals(b, typed.rpop("typed:list"));
+            assertEquals(2, typed.llen("typed:list"));
+
+            assertEquals(2, typed.sadd("typed:set", a, b, a));
+            assertTrue(typed.sismember("typed:set", b));
+            assertEquals(2, typed.smembers("typed:set").size());
+            assertEquals(1, typed.srem("typed:set", b));
+            assertEquals(1, typed.scard("typed:set"));
+
+            assertTrue(typed.zadd("typed:zset", 1.5, a));
+            typed.zadd("typed:zset", -3, b);
+            assertEquals(4.0, typed.zincrBy("typed:zset", 2.5, a), 0);
+            assertEquals(-3.0, typed.zscore("typed:zset", b), 0);
+            assertTrue(Double.isNaN(typed.zscore("typed:zset", new byte[]{9})));
+            assertEquals(1, typed.zrank("typed:zset", a));
+            assertEquals(-1, typed.zrank("typed:zset", new byte[]{9}));
+            assertArrayEquals(b, typed.zrange("typed:zset", 0, 0).get(0));
+            assertEquals(2, typed.zcard("typed:zset"));
+
+            // RESP3下的Map和Double
+            client.hello(3);
+            assertEquals(2, typed.hgetAll("typed:hash").size());
+            assertEquals(-3.0, typed.zscore("typed:zset", b), 0);
+            assertEquals(1, typed.zrem("typed:zset", b));
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void testCodecFailure() {
+        // 写入一部分后失败的编解码器，较大的值已经有数据发出
+        RedisCodec<Integer> failing = new RedisCodec<Integer>() {
+            @Override
+            public void write(RedisClient.RedisOutputStream out, Integer size) throws IOException {
+                out.write(("$" + (size + 1) + "\r\n").getBytes(StandardCharsets.US_ASCII));
+                out.write(new byte[size]);
+                throw new IllegalStateException("codec failed");
+            }
+
+            @Override
+            public Integer read(RedisClient.RedisReply reply) {
+                return reply.getBytes().length;
+            }
+        };
+        RedisClient client = new RedisClient();
+        try {
+            RedisTypedClient<Integer> typed = new RedisTypedClient<>(client, failing);
+            typed.del("typed:failing");
+            for (int size : new int[]{10, 20000}) {
+                try {
+                    typed.set("typed:failing", size);
+                    fail();
+                } catch (IllegalStateException e) {
+                    fail();
+                } catch (RedisClient.RedisException e) {
+                    System.out.println(e.getMessage());
+                }
+                // 连接没有错位
+                assertEquals("PONG", client.execAndReturn(RedisClient.RedisCommand.PING).getData());
+                assertNull(typed.get("typed:failing"));
+            }
+        } finally {
+            client.close();
+        }
+    }
+}